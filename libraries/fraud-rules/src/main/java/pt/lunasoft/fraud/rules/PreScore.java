@@ -0,0 +1,28 @@
+package pt.lunasoft.fraud.rules;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Stateless rule scores computed inline at ingestion, where they decide whether a transaction is
+ * refused before it is stored. They stay in ingestion: fraud detection evaluates the same rules
+ * itself, in the same {@code app.fraud.rules.zone}.
+ */
+public record PreScore(Map<String, Double> scores) {
+
+	public PreScore {
+		scores = Collections.unmodifiableMap(scores);
+	}
+
+	/**
+	 * Sum of the individual rule scores; the API rejection threshold is expressed against it.
+	 */
+	public double total() {
+		double total = 0.0;
+		for (double score : scores.values()) {
+			total += score;
+		}
+		return total;
+	}
+
+}
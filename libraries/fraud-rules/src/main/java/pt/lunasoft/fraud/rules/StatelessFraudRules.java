@@ -0,0 +1,92 @@
+package pt.lunasoft.fraud.rules;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import pt.lunasoft.models.Transaction;
+
+/**
+ * Fraud rules that only look at the transaction itself, never at account history, so they cost
+ * microseconds and can run anywhere: inline in ingestion to refuse extreme cases, in the fraud
+ * engine alongside the history rules, and alone when synchronous scoring degrades. Scores are the
+ * ones the fraud engine has always used.
+ */
+public class StatelessFraudRules {
+
+	public static final String HIGH_AMOUNT = "HIGH_AMOUNT";
+	public static final String UNUSUAL_TIME = "UNUSUAL_TIME";
+	public static final String ROUND_AMOUNT = "ROUND_AMOUNT";
+
+	public static final List<String> RULES = List.of(HIGH_AMOUNT, UNUSUAL_TIME, ROUND_AMOUNT);
+
+	private static final BigDecimal HIGH_AMOUNT_THRESHOLD = new BigDecimal("5000");
+	private static final BigDecimal VERY_HIGH_AMOUNT_THRESHOLD = new BigDecimal("10000");
+	private static final BigDecimal ONE_HUNDRED = new BigDecimal("100");
+	private static final BigDecimal FIVE_HUNDRED = new BigDecimal("500");
+	private static final BigDecimal ONE_THOUSAND = new BigDecimal("1000");
+
+	private final ZoneId zone;
+
+	/**
+	 * @param zone zone in which the unusual-time rule reads the hour, {@code app.fraud.rules.zone}
+	 * in both services so a transaction scores the same at ingestion and in fraud detection
+	 */
+	public StatelessFraudRules(ZoneId zone) {
+		this.zone = zone;
+	}
+
+	public ZoneId zone() {
+		return zone;
+	}
+
+	public PreScore evaluate(Transaction transaction) {
+		Map<String, Double> scores = new LinkedHashMap<>(4);
+		scores.put(HIGH_AMOUNT, highAmount(transaction));
+		scores.put(UNUSUAL_TIME, unusualTime(transaction));
+		scores.put(ROUND_AMOUNT, roundAmount(transaction));
+		return new PreScore(scores);
+	}
+
+	public double highAmount(Transaction transaction) {
+		BigDecimal amount = transaction.getAmount();
+		if (amount.compareTo(VERY_HIGH_AMOUNT_THRESHOLD) > 0) {
+			return 40.0;
+		}
+		if (amount.compareTo(HIGH_AMOUNT_THRESHOLD) > 0) {
+			return 25.0;
+		}
+		return 0.0;
+	}
+
+	/**
+	 * Late night (2 AM - 5 AM) scores higher than very early morning (5 AM - 6 AM).
+	 */
+	public double unusualTime(Transaction transaction) {
+		int hour = transaction.getTimestamp().atZone(zone).getHour();
+		if (hour >= 2 && hour < 5) {
+			return 20.0;
+		}
+		if (hour == 5) {
+			return 10.0;
+		}
+		return 0.0;
+	}
+
+	/**
+	 * Round amounts (like 1000.00) can indicate card testing.
+	 */
+	public double roundAmount(Transaction transaction) {
+		BigDecimal amount = transaction.getAmount();
+		if (amount.compareTo(ONE_THOUSAND) >= 0 && amount.remainder(ONE_THOUSAND).signum() == 0) {
+			return 15.0;
+		}
+		if (amount.compareTo(FIVE_HUNDRED) >= 0 && amount.remainder(ONE_HUNDRED).signum() == 0) {
+			return 8.0;
+		}
+		return 0.0;
+	}
+
+}
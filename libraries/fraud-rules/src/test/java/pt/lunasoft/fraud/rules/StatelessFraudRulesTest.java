@@ -0,0 +1,62 @@
+package pt.lunasoft.fraud.rules;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+import pt.lunasoft.models.Transaction;
+import pt.lunasoft.models.enums.TransactionType;
+
+class StatelessFraudRulesTest {
+
+	private final StatelessFraudRules rules = new StatelessFraudRules(ZoneOffset.UTC);
+
+	@Test
+	void shouldScoreAmountAndTimeWithoutHistory() {
+		// Given
+		Transaction transaction = transaction("12000.00", "2026-01-01T03:15:00Z");
+
+		// When
+		PreScore preScore = rules.evaluate(transaction);
+
+		// Then
+		assertThat(preScore.scores()).containsEntry(StatelessFraudRules.HIGH_AMOUNT, 40.0)
+				.containsEntry(StatelessFraudRules.UNUSUAL_TIME, 20.0)
+				.containsEntry(StatelessFraudRules.ROUND_AMOUNT, 15.0);
+		assertThat(preScore.total()).isEqualTo(75.0);
+		assertThat(rules.evaluate(transaction("42.17", "2026-01-01T14:00:00Z")).total()).isZero();
+	}
+
+	@Test
+	void shouldReadTheHourInTheConfiguredZone() {
+		// Given - 03:15 UTC is 04:15 in Lisbon summer time and 23:15 the day before in New York
+		Transaction transaction = transaction("42.17", "2026-07-01T03:15:00Z");
+
+		// When
+		double utc = rules.unusualTime(transaction);
+		double lisbon = new StatelessFraudRules(ZoneId.of("Europe/Lisbon")).unusualTime(transaction);
+		double newYork = new StatelessFraudRules(ZoneId.of("America/New_York")).unusualTime(transaction);
+
+		// Then
+		assertThat(utc).isEqualTo(20.0);
+		assertThat(lisbon).isEqualTo(20.0);
+		assertThat(newYork).isZero();
+	}
+
+	private static Transaction transaction(String amount, String timestamp) {
+		return Transaction.builder()
+				.accountId("ACC00001")
+				.amount(new BigDecimal(amount))
+				.currency("EUR")
+				.type(TransactionType.PURCHASE)
+				.merchant("Merchant")
+				.timestamp(Instant.parse(timestamp))
+				.build();
+	}
+
+}
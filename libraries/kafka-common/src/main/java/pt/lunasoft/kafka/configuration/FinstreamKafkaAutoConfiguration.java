@@ -0,0 +1,287 @@
+package pt.lunasoft.kafka.configuration;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaRetryTopic;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+import org.springframework.kafka.retrytopic.RetryTopicSchedulerWrapper;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.kafka.support.converter.BatchMessagingMessageConverter;
+import org.springframework.kafka.support.converter.ByteArrayJsonMessageConverter;
+import org.springframework.kafka.support.converter.RecordMessageConverter;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import pt.lunasoft.kafka.metrics.ListenerMetricsInterceptor;
+import pt.lunasoft.kafka.retry.DeadLetterHandler;
+import pt.lunasoft.kafka.serialization.AvroMessageConverter;
+import pt.lunasoft.kafka.serialization.AvroSerializer;
+import pt.lunasoft.kafka.serialization.FinstreamSerdes;
+import pt.lunasoft.kafka.serialization.FraudAlertAvroSerializer;
+import pt.lunasoft.kafka.serialization.SerializationFormat;
+import pt.lunasoft.kafka.serialization.TransactionAvroSerializer;
+import pt.lunasoft.models.FraudAlert;
+import pt.lunasoft.models.Transaction;
+
+/**
+ * Shared producer, consumer and listener setup for every FinStream service.
+ * <p>
+ * Consumers read raw bytes and the listener adapter converts them to the parameter type, so one
+ * consumer factory serves every listener, single or batch, and failed records reach the dead letter
+ * topic byte for byte. Producers serialize the common-models events in the configured format and
+ * pass {@code byte[]} values through untouched. Each bean backs off when the service defines its own.
+ */
+@AutoConfiguration(before = KafkaAutoConfiguration.class)
+@ConditionalOnClass(KafkaTemplate.class)
+@EnableConfigurationProperties({ FinstreamKafkaProperties.class, KafkaProperties.class })
+public class FinstreamKafkaAutoConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean(ProducerFactory.class)
+	public DefaultKafkaProducerFactory<Object, Object> kafkaProducerFactory(KafkaProperties kafkaProperties,
+			FinstreamKafkaProperties properties, ObjectProvider<ObjectMapper> objectMapper, ObjectProvider<MeterRegistry> meterRegistry) {
+		FinstreamKafkaProperties.Producer producer = properties.getProducer();
+		Map<String, Object> configs = kafkaProperties.buildProducerProperties();
+		configs.put(ProducerConfig.ACKS_CONFIG, producer.getAcks());
+		configs.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, producer.isIdempotence());
+		configs.put(ProducerConfig.LINGER_MS_CONFIG, producer.getLingerMs());
+		configs.put(ProducerConfig.BATCH_SIZE_CONFIG, producer.getBatchSize());
+		configs.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, producer.getCompressionType());
+		configs.put(ProducerConfig.BUFFER_MEMORY_CONFIG, producer.getBufferMemory());
+		configs.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, producer.getMaxBlockMs());
+		putSchemaDir(configs, properties);
+
+		Serializer<Object> valueSerializer = valueSerializer(properties.getSerialization().getFormat(), mapper(objectMapper));
+		valueSerializer.configure(configs, false);
+
+		DefaultKafkaProducerFactory<Object, Object> factory = new DefaultKafkaProducerFactory<>(configs,
+				() -> castKeySerializer(new StringSerializer()), () -> valueSerializer);
+		if (kafkaProperties.getProducer().getTransactionIdPrefix() != null) {
+			factory.setTransactionIdPrefix(kafkaProperties.getProducer().getTransactionIdPrefix());
+		}
+		// kafka.producer.* client metrics: record-send-rate, batch-size-avg, request-latency-avg, ...
+		meterRegistry.ifAvailable(registry -> factory.addListener(new MicrometerProducerListener<>(registry)));
+		return factory;
+	}
+
+	@Bean
+	@ConditionalOnMissingBean(ConsumerFactory.class)
+	public DefaultKafkaConsumerFactory<Object, Object> kafkaConsumerFactory(KafkaProperties kafkaProperties,
+			FinstreamKafkaProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+		FinstreamKafkaProperties.Consumer consumer = properties.getConsumer();
+		Map<String, Object> configs = kafkaProperties.buildConsumerProperties();
+		configs.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+		configs.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+		configs.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+		configs.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, consumer.getMaxPollRecords());
+		configs.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, consumer.getFetchMinBytes());
+		configs.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, consumer.getFetchMaxWaitMs());
+
+		DefaultKafkaConsumerFactory<Object, Object> factory = new DefaultKafkaConsumerFactory<>(configs);
+		// kafka.consumer.* client metrics: records-consumed-rate, records-lag-max, fetch-latency-avg, ...
+		meterRegistry.ifAvailable(registry -> factory.addListener(new MicrometerConsumerListener<>(registry)));
+		return factory;
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public RecordMessageConverter kafkaRecordMessageConverter(FinstreamKafkaProperties properties, ObjectProvider<ObjectMapper> objectMapper) {
+		if (properties.getSerialization().getFormat() == SerializationFormat.AVRO) {
+			Map<String, Object> configs = new HashMap<>();
+			putSchemaDir(configs, properties);
+			return new AvroMessageConverter(mapper(objectMapper), configs);
+		}
+		return new ByteArrayJsonMessageConverter(mapper(objectMapper));
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public FinstreamSerdes finstreamSerdes(FinstreamKafkaProperties properties, ObjectProvider<ObjectMapper> objectMapper) {
+		Map<String, Object> configs = new HashMap<>();
+		putSchemaDir(configs, properties);
+		return new FinstreamSerdes(properties.getSerialization().getFormat(), mapper(objectMapper), configs);
+	}
+
+	@Bean
+	@ConditionalOnMissingBean(CommonErrorHandler.class)
+	@ConditionalOnProperty(prefix = "finstream.kafka.dead-letter", name = "enabled", matchIfMissing = true)
+	public DefaultErrorHandler kafkaErrorHandler(KafkaOperations<Object, Object> kafkaTemplate, FinstreamKafkaProperties properties) {
+		FinstreamKafkaProperties.DeadLetter deadLetter = properties.getDeadLetter();
+		// Partition -1 lets the producer partition by key, so the DLT may have fewer partitions than the source
+		DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
+				(record, ex) -> new TopicPartition(record.topic() + deadLetter.getSuffix(), -1));
+
+		ExponentialBackOff backOff = new ExponentialBackOff(deadLetter.getInitialIntervalMs(), deadLetter.getMultiplier());
+		backOff.setMaxInterval(deadLetter.getMaxIntervalMs());
+		backOff.setMaxAttempts(deadLetter.getMaxRetries());
+		return new DefaultErrorHandler(recoverer, backOff);
+	}
+
+	@Bean
+	@ConditionalOnMissingBean(name = "kafkaListenerContainerFactory")
+	public ConcurrentKafkaListenerContainerFactory<Object, Object> kafkaListenerContainerFactory(ConsumerFactory<Object, Object> consumerFactory,
+			FinstreamKafkaProperties properties, RecordMessageConverter messageConverter, ObjectProvider<CommonErrorHandler> errorHandler,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		ConcurrentKafkaListenerContainerFactory<Object, Object> factory = listenerContainerFactory(consumerFactory, properties, errorHandler);
+		factory.setRecordMessageConverter(messageConverter);
+		meterRegistry.ifAvailable(registry -> factory.setRecordInterceptor(
+				new ListenerMetricsInterceptor(registry, properties.getDeadLetter().getSuffix())));
+		return factory;
+	}
+
+	/**
+	 * Same consumer settings, but the listener receives everything returned by one poll
+	 * (up to max-poll-records) as a {@code List}.
+	 */
+	@Bean
+	@ConditionalOnMissingBean(name = "batchKafkaListenerContainerFactory")
+	public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(ConsumerFactory<Object, Object> consumerFactory,
+			FinstreamKafkaProperties properties, RecordMessageConverter messageConverter, ObjectProvider<CommonErrorHandler> errorHandler,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		ConcurrentKafkaListenerContainerFactory<Object, Object> factory = listenerContainerFactory(consumerFactory, properties, errorHandler);
+		factory.setBatchListener(true);
+		factory.setBatchMessageConverter(new BatchMessagingMessageConverter(messageConverter));
+		meterRegistry.ifAvailable(registry -> factory.setBatchInterceptor(
+				new ListenerMetricsInterceptor(registry, properties.getDeadLetter().getSuffix())));
+		return factory;
+	}
+
+	@Bean
+	public KafkaAdmin.NewTopics deadLetterTopics(FinstreamKafkaProperties properties) {
+		FinstreamKafkaProperties.DeadLetter deadLetter = properties.getDeadLetter();
+		return new KafkaAdmin.NewTopics(deadLetter.getTopics().stream()
+				.map(topic -> TopicBuilder.name(topic + deadLetter.getSuffix())
+						.partitions(deadLetter.getPartitions())
+						.replicas(deadLetter.getReplicas())
+						.build())
+				.toArray(NewTopic[]::new));
+	}
+
+	/**
+	 * Non-blocking retries for the topics listed under {@code finstream.kafka.retry.topics}. A failing
+	 * record is committed on its source topic and re-published to {@code <topic>-retry-0}, {@code -retry-1},
+	 * ... whose consumers wait out an exponentially growing delay before redelivering it, then to the
+	 * dead letter topic. One poison record therefore never holds up the rest of its partition.
+	 */
+	@Configuration(proxyBeanMethods = false)
+	@EnableKafkaRetryTopic
+	@ConditionalOnProperty(prefix = "finstream.kafka.retry", name = "enabled")
+	static class RetryTopicsConfiguration {
+
+		// Dedicated scheduler that resumes paused retry-tier partitions once their delay has elapsed
+		@Bean
+		@ConditionalOnMissingBean
+		public RetryTopicSchedulerWrapper retryTopicSchedulerWrapper() {
+			ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+			scheduler.setThreadNamePrefix("kafka-retry-");
+			return new RetryTopicSchedulerWrapper(scheduler);
+		}
+
+		@Bean
+		@ConditionalOnMissingBean
+		public DeadLetterHandler finstreamDeadLetterHandler(ObjectProvider<MeterRegistry> meterRegistry) {
+			return new DeadLetterHandler(meterRegistry.getIfAvailable());
+		}
+
+		@Bean
+		@ConditionalOnMissingBean(RetryTopicConfiguration.class)
+		public RetryTopicConfiguration finstreamRetryTopicConfiguration(KafkaTemplate<Object, Object> kafkaTemplate,
+				FinstreamKafkaProperties properties) {
+			FinstreamKafkaProperties.Retry retry = properties.getRetry();
+			return RetryTopicConfigurationBuilder.newInstance()
+					.includeTopics(retry.getTopics())
+					.maxAttempts(retry.getAttempts())
+					.exponentialBackoff(retry.getInitialDelayMs(), retry.getMultiplier(), retry.getMaxDelayMs())
+					.suffixTopicsWithIndexValues()
+					.dltSuffix(properties.getDeadLetter().getSuffix())
+					.autoCreateTopicsWith(retry.getPartitions(), retry.getReplicas())
+					.listenerFactory("kafkaListenerContainerFactory")
+					.dltHandlerMethod("finstreamDeadLetterHandler", DeadLetterHandler.METHOD_NAME)
+					.create(kafkaTemplate);
+		}
+
+	}
+
+	private static ConcurrentKafkaListenerContainerFactory<Object, Object> listenerContainerFactory(ConsumerFactory<Object, Object> consumerFactory,
+			FinstreamKafkaProperties properties, ObjectProvider<CommonErrorHandler> errorHandler) {
+		ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+		factory.setConsumerFactory(consumerFactory);
+		factory.setConcurrency(properties.getConsumer().getConcurrency());
+		factory.getContainerProperties().setAckMode(properties.getConsumer().getAckMode());
+		factory.getContainerProperties().setMicrometerEnabled(true);
+		errorHandler.ifAvailable(factory::setCommonErrorHandler);
+		return factory;
+	}
+
+	private static Serializer<Object> valueSerializer(SerializationFormat format, ObjectMapper objectMapper) {
+		JsonSerializer<Object> json = new JsonSerializer<>(objectMapper);
+		json.setAddTypeInfo(false);
+
+		// Checked in order: raw bytes pass through, events use the configured format, the rest is JSON
+		Map<Class<?>, Serializer<?>> delegates = new LinkedHashMap<>();
+		delegates.put(byte[].class, new ByteArraySerializer());
+		if (format == SerializationFormat.AVRO) {
+			delegates.put(Transaction.class, new TransactionAvroSerializer());
+			delegates.put(FraudAlert.class, new FraudAlertAvroSerializer());
+		}
+		delegates.put(Object.class, json);
+		return new DelegatingByTypeSerializer(delegates, true);
+	}
+
+	private static void putSchemaDir(Map<String, Object> configs, FinstreamKafkaProperties properties) {
+		if (properties.getSerialization().getSchemaDir() != null) {
+			configs.put(AvroSerializer.SCHEMA_DIR_CONFIG, properties.getSerialization().getSchemaDir());
+		}
+	}
+
+	private static ObjectMapper mapper(ObjectProvider<ObjectMapper> objectMapper) {
+		return objectMapper.getIfAvailable(JacksonUtils::enhancedObjectMapper);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Serializer<Object> castKeySerializer(StringSerializer serializer) {
+		return (Serializer) serializer;
+	}
+
+}
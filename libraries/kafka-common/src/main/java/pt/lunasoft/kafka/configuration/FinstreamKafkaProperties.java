@@ -0,0 +1,114 @@
+package pt.lunasoft.kafka.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.kafka.listener.ContainerProperties.AckMode;
+
+import lombok.Data;
+import pt.lunasoft.kafka.serialization.SerializationFormat;
+
+/**
+ * Shared Kafka defaults applied by {@link FinstreamKafkaAutoConfiguration} on top of {@code spring.kafka.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "finstream.kafka")
+public class FinstreamKafkaProperties {
+
+	private Serialization serialization = new Serialization();
+	private Producer producer = new Producer();
+	private Consumer consumer = new Consumer();
+	private DeadLetter deadLetter = new DeadLetter();
+	private Retry retry = new Retry();
+
+	@Data
+	public static class Serialization {
+
+		private SerializationFormat format = SerializationFormat.JSON;
+
+		/**
+		 * Directory of the file-based schema store, shared by producers and consumers. Only used for AVRO.
+		 */
+		private String schemaDir;
+
+	}
+
+	@Data
+	public static class Producer {
+
+		private String acks = "all";
+		private boolean idempotence = true;
+		private int lingerMs = 20;
+		private int batchSize = 64 * 1024;
+		private String compressionType = "zstd";
+		private long bufferMemory = 32 * 1024 * 1024L;
+		private long maxBlockMs = 5000;
+
+	}
+
+	@Data
+	public static class Consumer {
+
+		private int concurrency = 3;
+		private AckMode ackMode = AckMode.BATCH;
+		private int maxPollRecords = 500;
+
+		/**
+		 * Let the broker wait for this many bytes (or fetch-max-wait-ms) before answering a fetch.
+		 */
+		private int fetchMinBytes = 64 * 1024;
+		private int fetchMaxWaitMs = 100;
+
+	}
+
+	@Data
+	public static class DeadLetter {
+
+		private boolean enabled = true;
+		private String suffix = ".DLT";
+
+		/**
+		 * Blocking retries before a record is published to the dead letter topic.
+		 */
+		private int maxRetries = 3;
+		private long initialIntervalMs = 500;
+		private double multiplier = 2.0;
+		private long maxIntervalMs = 10_000;
+
+		/**
+		 * Source topics whose dead letter topic is created at startup.
+		 */
+		private List<String> topics = new ArrayList<>();
+		private int partitions = 3;
+		private short replicas = 1;
+
+	}
+
+	/**
+	 * Non-blocking retries: a failed record is forwarded to {@code <topic>-retry-0}, {@code -retry-1}, ...
+	 * with growing delays and finally to the dead letter topic, while the main listener moves on.
+	 */
+	@Data
+	public static class Retry {
+
+		private boolean enabled = false;
+
+		/**
+		 * Listener topics that get retry tiers; other listeners keep the blocking error handler.
+		 */
+		private List<String> topics = new ArrayList<>();
+
+		/**
+		 * Total deliveries including the first one, so attempts - 1 retry tiers.
+		 */
+		private int attempts = 4;
+		private long initialDelayMs = 1000;
+		private double multiplier = 4.0;
+		private long maxDelayMs = 60_000;
+		private int partitions = 3;
+		private short replicas = 1;
+
+	}
+
+}
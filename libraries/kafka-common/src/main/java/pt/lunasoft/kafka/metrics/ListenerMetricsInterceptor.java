@@ -0,0 +1,128 @@
+package pt.lunasoft.kafka.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Listener-side throughput and lag, complementing the client metrics bound by the Micrometer
+ * consumer listener.
+ * <ul>
+ * <li>{@code finstream.kafka.listener.records}: records handled, tagged by topic, outcome and tier</li>
+ * <li>{@code finstream.kafka.listener.lag}: time between the record timestamp and the moment the
+ * listener receives it, i.e. consumer lag expressed in time rather than offsets</li>
+ * </ul>
+ * The {@code tier} tag tells the main topic ({@code main}) apart from the non-blocking retry tiers
+ * ({@code retry-0}, {@code retry-1}, ...) and the dead letter topic ({@code dlt}).
+ */
+public class ListenerMetricsInterceptor implements RecordInterceptor<Object, Object>, BatchInterceptor<Object, Object> {
+
+	private static final String RETRY_SUFFIX = "-retry";
+
+	private final MeterRegistry registry;
+	private final String deadLetterSuffix;
+
+	// Meters per topic, built once rather than looked up in the registry for every record
+	private final Map<String, Timer> lagTimers = new ConcurrentHashMap<>();
+	private final Map<String, Counter> successCounters = new ConcurrentHashMap<>();
+	private final Map<String, Counter> failureCounters = new ConcurrentHashMap<>();
+
+	public ListenerMetricsInterceptor(MeterRegistry registry) {
+		this(registry, ".DLT");
+	}
+
+	public ListenerMetricsInterceptor(MeterRegistry registry, String deadLetterSuffix) {
+		this.registry = registry;
+		this.deadLetterSuffix = deadLetterSuffix;
+	}
+
+	/**
+	 * Derives the tier from the topic name as laid out by the retry topic configuration:
+	 * {@code <topic>-retry-<n>} for retries and {@code <topic><dead letter suffix>} for the DLT.
+	 */
+	String tierOf(String topic) {
+		if (topic.endsWith(deadLetterSuffix)) {
+			return "dlt";
+		}
+		int retry = topic.lastIndexOf(RETRY_SUFFIX);
+		if (retry > 0) {
+			String index = topic.substring(retry + RETRY_SUFFIX.length());
+			if (index.isEmpty()) {
+				return "retry";
+			}
+			if (index.charAt(0) == '-' && index.length() > 1 && index.substring(1).chars().allMatch(Character::isDigit)) {
+				return "retry" + index;
+			}
+		}
+		return "main";
+	}
+
+	@Override
+	public ConsumerRecord<Object, Object> intercept(ConsumerRecord<Object, Object> record, Consumer<Object, Object> consumer) {
+		recordLag(record);
+		return record;
+	}
+
+	@Override
+	public void success(ConsumerRecord<Object, Object> record, Consumer<Object, Object> consumer) {
+		successCounters.computeIfAbsent(record.topic(), topic -> counter(topic, "success")).increment();
+	}
+
+	@Override
+	public void failure(ConsumerRecord<Object, Object> record, Exception exception, Consumer<Object, Object> consumer) {
+		failureCounters.computeIfAbsent(record.topic(), topic -> counter(topic, "failure")).increment();
+	}
+
+	@Override
+	public ConsumerRecords<Object, Object> intercept(ConsumerRecords<Object, Object> records, Consumer<Object, Object> consumer) {
+		records.forEach(this::recordLag);
+		return records;
+	}
+
+	@Override
+	public void success(ConsumerRecords<Object, Object> records, Consumer<Object, Object> consumer) {
+		records.partitions().forEach(partition -> successCounters.computeIfAbsent(partition.topic(), topic -> counter(topic, "success"))
+				.increment(records.records(partition).size()));
+	}
+
+	@Override
+	public void failure(ConsumerRecords<Object, Object> records, Exception exception, Consumer<Object, Object> consumer) {
+		records.partitions().forEach(partition -> failureCounters.computeIfAbsent(partition.topic(), topic -> counter(topic, "failure"))
+				.increment(records.records(partition).size()));
+	}
+
+	private void recordLag(ConsumerRecord<?, ?> record) {
+		long lagMs = System.currentTimeMillis() - record.timestamp();
+		if (record.timestamp() > 0 && lagMs >= 0) {
+			lagTimers.computeIfAbsent(record.topic(), this::lagTimer).record(lagMs, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private Timer lagTimer(String topic) {
+		return Timer.builder("finstream.kafka.listener.lag")
+				.description("Time from record timestamp to listener receipt")
+				.tag("topic", topic)
+				.publishPercentileHistogram()
+				.register(registry);
+	}
+
+	private Counter counter(String topic, String outcome) {
+		return Counter.builder("finstream.kafka.listener.records")
+				.description("Records handled by Kafka listeners")
+				.tag("topic", topic)
+				.tag("outcome", outcome)
+				.tag("tier", tierOf(topic))
+				.register(registry);
+	}
+
+}
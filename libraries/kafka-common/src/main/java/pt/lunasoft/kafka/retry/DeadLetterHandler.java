@@ -0,0 +1,59 @@
+package pt.lunasoft.kafka.retry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Terminal step of the non-blocking retry chain. Records that exhausted every retry tier land here
+ * after being written to the dead letter topic; the handler only logs where they came from and why
+ * they failed and counts them in {@code finstream.kafka.dead-letter.records}, so replay stays a
+ * deliberate operator action.
+ */
+@Slf4j
+public class DeadLetterHandler {
+
+	public static final String METHOD_NAME = "handle";
+
+	private final MeterRegistry registry;
+
+	public DeadLetterHandler(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	public void handle(ConsumerRecord<?, ?> record) {
+		String originalTopic = originalTopic(record);
+		String exception = header(record, KafkaHeaders.DLT_EXCEPTION_CAUSE_FQCN, header(record, KafkaHeaders.DLT_EXCEPTION_FQCN, "unknown"));
+
+		log.error("Dead letter from {} at {}-{}@{} (key {}): {} - {}", originalTopic, record.topic(), record.partition(), record.offset(),
+				record.key(), exception, header(record, KafkaHeaders.DLT_EXCEPTION_MESSAGE, ""));
+
+		if (registry != null) {
+			Counter.builder("finstream.kafka.dead-letter.records")
+					.description("Records that exhausted all retry tiers")
+					.tag("topic", originalTopic)
+					.tag("exception", exception)
+					.register(registry)
+					.increment();
+		}
+	}
+
+	// Every hop through a retry tier may append its own original-topic header; the first one is the source
+	private static String originalTopic(ConsumerRecord<?, ?> record) {
+		Iterator<Header> headers = record.headers().headers(KafkaHeaders.DLT_ORIGINAL_TOPIC).iterator();
+		return headers.hasNext() ? new String(headers.next().value(), StandardCharsets.UTF_8) : record.topic();
+	}
+
+	private static String header(ConsumerRecord<?, ?> record, String name, String defaultValue) {
+		Header header = record.headers().lastHeader(name);
+		return header == null ? defaultValue : new String(header.value(), StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,64 @@
+package pt.lunasoft.kafka.serialization;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.avro.Schema;
+import org.apache.avro.message.BinaryMessageDecoder;
+import org.apache.avro.message.SchemaStore;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Reads Avro single-object encoded messages into model objects. Messages written with the compiled
+ * schema decode directly; any other writer schema is looked up by fingerprint in the configured
+ * {@link FileSchemaStore} and resolved against the compiled reader schema.
+ *
+ * @param <T> model type returned to the consumer
+ * @param <R> generated Avro record read from the wire
+ */
+public class AvroDeserializer<T, R extends SpecificRecord> implements Deserializer<T> {
+
+	private final Schema schema;
+	private final Function<R, T> fromRecord;
+	private final BinaryMessageDecoder<R> decoder;
+	private volatile SchemaStore schemaStore;
+
+	public AvroDeserializer(Schema schema, Function<R, T> fromRecord) {
+		this.schema = schema;
+		this.fromRecord = fromRecord;
+		// The store is read on every unknown fingerprint, so it can be supplied later by configure()
+		this.decoder = new BinaryMessageDecoder<>(SpecificData.getForSchema(schema), schema,
+				fingerprint -> schemaStore == null ? null : schemaStore.findByFingerprint(fingerprint));
+	}
+
+	public AvroDeserializer(Schema schema, Function<R, T> fromRecord, SchemaStore schemaStore) {
+		this(schema, fromRecord);
+		this.schemaStore = schemaStore;
+	}
+
+	@Override
+	public void configure(Map<String, ?> configs, boolean isKey) {
+		Object schemaDir = configs.get(AvroSerializer.SCHEMA_DIR_CONFIG);
+		if (schemaDir != null) {
+			schemaStore = FileSchemaStore.forDirectory(Path.of(schemaDir.toString()));
+		}
+	}
+
+	@Override
+	public T deserialize(String topic, byte[] data) {
+		if (data == null) {
+			return null;
+		}
+		try {
+			return fromRecord.apply(decoder.decode(data));
+		} catch (IOException | RuntimeException ex) {
+			throw new SerializationException("Cannot deserialize " + schema.getName() + " from topic " + topic, ex);
+		}
+	}
+
+}
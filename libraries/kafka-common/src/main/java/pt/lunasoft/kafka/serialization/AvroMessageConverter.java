@@ -0,0 +1,41 @@
+package pt.lunasoft.kafka.serialization;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.converter.ByteArrayJsonMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pt.lunasoft.models.FraudAlert;
+import pt.lunasoft.models.Transaction;
+
+/**
+ * Converts raw record values to the listener parameter type: Avro for the common-models events,
+ * JSON for anything else.
+ */
+public class AvroMessageConverter extends ByteArrayJsonMessageConverter {
+
+	private final Map<Type, Deserializer<?>> deserializers;
+
+	public AvroMessageConverter(ObjectMapper objectMapper, Map<String, ?> configs) {
+		super(objectMapper);
+		TransactionAvroDeserializer transactionDeserializer = new TransactionAvroDeserializer();
+		transactionDeserializer.configure(configs, false);
+		FraudAlertAvroDeserializer fraudAlertDeserializer = new FraudAlertAvroDeserializer();
+		fraudAlertDeserializer.configure(configs, false);
+		this.deserializers = Map.of(Transaction.class, transactionDeserializer, FraudAlert.class, fraudAlertDeserializer);
+	}
+
+	@Override
+	protected Object extractAndConvertValue(ConsumerRecord<?, ?> record, Type type) {
+		Deserializer<?> deserializer = deserializers.get(type);
+		if (deserializer != null && record.value() instanceof byte[] bytes) {
+			return deserializer.deserialize(record.topic(), bytes);
+		}
+		return super.extractAndConvertValue(record, type);
+	}
+
+}
@@ -0,0 +1,174 @@
+package pt.lunasoft.kafka.serialization;
+
+import java.math.RoundingMode;
+import java.util.List;
+
+import pt.lunasoft.kafka.avro.AvroAlertStatus;
+import pt.lunasoft.kafka.avro.AvroDeviceInfo;
+import pt.lunasoft.kafka.avro.AvroFraudAlert;
+import pt.lunasoft.kafka.avro.AvroFraudSeverity;
+import pt.lunasoft.kafka.avro.AvroLocation;
+import pt.lunasoft.kafka.avro.AvroTransaction;
+import pt.lunasoft.kafka.avro.AvroTransactionStatus;
+import pt.lunasoft.kafka.avro.AvroTransactionType;
+import pt.lunasoft.models.DeviceInfo;
+import pt.lunasoft.models.FraudAlert;
+import pt.lunasoft.models.Location;
+import pt.lunasoft.models.Transaction;
+import pt.lunasoft.models.enums.AlertStatus;
+import pt.lunasoft.models.enums.FraudSeverity;
+import pt.lunasoft.models.enums.TransactionStatus;
+import pt.lunasoft.models.enums.TransactionType;
+
+/**
+ * Converts between the common-models classes used by the services and the generated Avro records
+ * that go on the wire. Enum constants are mapped by name; {@code UNKNOWN}, which the reader gets for
+ * a symbol only a newer writer knows, reads as an unset status or severity and rejects the record
+ * for the transaction type the services cannot do without.
+ */
+public final class AvroModelMapper {
+
+	// Matches the decimal scale in AvroTransaction.avsc and the AMOUNT column
+	private static final int AMOUNT_SCALE = 4;
+	// Default symbol of every enum in the schemas
+	private static final String UNKNOWN = "UNKNOWN";
+
+	private AvroModelMapper() {
+	}
+
+	public static AvroTransaction toAvro(Transaction transaction) {
+		return AvroTransaction.newBuilder()
+				.setId(transaction.getId())
+				.setAccountId(transaction.getAccountId())
+				.setAmount(transaction.getAmount().setScale(AMOUNT_SCALE, RoundingMode.HALF_UP))
+				.setCurrency(transaction.getCurrency())
+				.setType(AvroTransactionType.valueOf(transaction.getType().name()))
+				.setMerchant(transaction.getMerchant())
+				.setMerchantCategory(transaction.getMerchantCategory())
+				.setTimestamp(transaction.getTimestamp())
+				.setStatus(transaction.getStatus() == null ? null : AvroTransactionStatus.valueOf(transaction.getStatus().name()))
+				.setDescription(transaction.getDescription())
+				.setLocation(toAvro(transaction.getLocation()))
+				.setDeviceInfo(toAvro(transaction.getDeviceInfo()))
+				.setCreatedAt(transaction.getCreatedAt())
+				.setUpdatedAt(transaction.getUpdatedAt())
+				.build();
+	}
+
+	public static Transaction fromAvro(AvroTransaction record) {
+		return Transaction.builder()
+				.id(record.getId())
+				.accountId(record.getAccountId())
+				.amount(record.getAmount())
+				.currency(record.getCurrency())
+				.type(fromAvro(record.getType()))
+				.merchant(record.getMerchant())
+				.merchantCategory(record.getMerchantCategory())
+				.timestamp(record.getTimestamp())
+				.status(fromAvro(record.getStatus(), TransactionStatus.class))
+				.description(record.getDescription())
+				.location(fromAvro(record.getLocation()))
+				.deviceInfo(fromAvro(record.getDeviceInfo()))
+				.createdAt(record.getCreatedAt())
+				.updatedAt(record.getUpdatedAt())
+				.build();
+	}
+
+	public static AvroFraudAlert toAvro(FraudAlert alert) {
+		return AvroFraudAlert.newBuilder()
+				.setId(alert.getId())
+				.setTransactionId(alert.getTransactionId())
+				.setAccountId(alert.getAccountId())
+				.setSeverity(alert.getSeverity() == null ? null : AvroFraudSeverity.valueOf(alert.getSeverity().name()))
+				.setRiskScore(alert.getRiskScore())
+				.setTriggeredRules(alert.getTriggeredRules() == null ? List.of() : alert.getTriggeredRules())
+				.setDescription(alert.getDescription())
+				.setStatus(alert.getStatus() == null ? null : AvroAlertStatus.valueOf(alert.getStatus().name()))
+				.setDetectedAt(alert.getDetectedAt())
+				.setResolvedAt(alert.getResolvedAt())
+				.setResolvedBy(alert.getResolvedBy())
+				.setResolution(alert.getResolution())
+				.build();
+	}
+
+	public static FraudAlert fromAvro(AvroFraudAlert record) {
+		return FraudAlert.builder()
+				.id(record.getId())
+				.transactionId(record.getTransactionId())
+				.accountId(record.getAccountId())
+				.severity(fromAvro(record.getSeverity(), FraudSeverity.class))
+				.riskScore(record.getRiskScore())
+				.triggeredRules(record.getTriggeredRules())
+				.description(record.getDescription())
+				.status(fromAvro(record.getStatus(), AlertStatus.class))
+				.detectedAt(record.getDetectedAt())
+				.resolvedAt(record.getResolvedAt())
+				.resolvedBy(record.getResolvedBy())
+				.resolution(record.getResolution())
+				.build();
+	}
+
+	private static TransactionType fromAvro(AvroTransactionType type) {
+		if (type == AvroTransactionType.UNKNOWN) {
+			throw new IllegalArgumentException("Transaction type written by a newer schema is not known to this reader");
+		}
+		return TransactionType.valueOf(type.name());
+	}
+
+	private static <E extends Enum<E>> E fromAvro(Enum<?> symbol, Class<E> type) {
+		return symbol == null || symbol.name().equals(UNKNOWN) ? null : Enum.valueOf(type, symbol.name());
+	}
+
+	private static AvroLocation toAvro(Location location) {
+		if (location == null) {
+			return null;
+		}
+		return AvroLocation.newBuilder()
+				.setLatitude(location.getLatitude())
+				.setLongitude(location.getLongitude())
+				.setCity(location.getCity())
+				.setCountry(location.getCountry())
+				.setIpAddress(location.getIpAddress())
+				.build();
+	}
+
+	private static Location fromAvro(AvroLocation record) {
+		if (record == null) {
+			return null;
+		}
+		return Location.builder()
+				.latitude(record.getLatitude())
+				.longitude(record.getLongitude())
+				.city(record.getCity())
+				.country(record.getCountry())
+				.ipAddress(record.getIpAddress())
+				.build();
+	}
+
+	private static AvroDeviceInfo toAvro(DeviceInfo deviceInfo) {
+		if (deviceInfo == null) {
+			return null;
+		}
+		return AvroDeviceInfo.newBuilder()
+				.setDeviceId(deviceInfo.getDeviceId())
+				.setDeviceType(deviceInfo.getDeviceType())
+				.setOperatingSystem(deviceInfo.getOperatingSystem())
+				.setBrowser(deviceInfo.getBrowser())
+				.setUserAgent(deviceInfo.getUserAgent())
+				.build();
+	}
+
+	private static DeviceInfo fromAvro(AvroDeviceInfo record) {
+		if (record == null) {
+			return null;
+		}
+		return DeviceInfo.builder()
+				.deviceId(record.getDeviceId())
+				.deviceType(record.getDeviceType())
+				.operatingSystem(record.getOperatingSystem())
+				.browser(record.getBrowser())
+				.userAgent(record.getUserAgent())
+				.build();
+	}
+
+}
@@ -0,0 +1,26 @@
+package pt.lunasoft.kafka.serialization;
+
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+
+import pt.lunasoft.models.FraudAlert;
+import pt.lunasoft.models.Transaction;
+
+/**
+ * Kafka Streams serdes for the common-models events. Pass {@value AvroSerializer#SCHEMA_DIR_CONFIG}
+ * through the streams configuration to enable the file-based schema store.
+ */
+public final class AvroSerdes {
+
+	private AvroSerdes() {
+	}
+
+	public static Serde<Transaction> transaction() {
+		return Serdes.serdeFrom(new TransactionAvroSerializer(), new TransactionAvroDeserializer());
+	}
+
+	public static Serde<FraudAlert> fraudAlert() {
+		return Serdes.serdeFrom(new FraudAlertAvroSerializer(), new FraudAlertAvroDeserializer());
+	}
+
+}
@@ -0,0 +1,66 @@
+package pt.lunasoft.kafka.serialization;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.avro.Schema;
+import org.apache.avro.message.BinaryMessageEncoder;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Writes a model object as an Avro single-object encoded message: a two byte marker, the 8 byte
+ * schema fingerprint and the binary record. When {@value #SCHEMA_DIR_CONFIG} is configured the writer
+ * schema is registered in the {@link FileSchemaStore} so consumers on an older or newer schema can
+ * resolve it.
+ *
+ * @param <T> model type handed to the producer
+ * @param <R> generated Avro record written on the wire
+ */
+public class AvroSerializer<T, R extends SpecificRecord> implements Serializer<T> {
+
+	public static final String SCHEMA_DIR_CONFIG = "finstream.avro.schema-dir";
+
+	private final Schema schema;
+	private final Function<T, R> toRecord;
+	private final BinaryMessageEncoder<R> encoder;
+
+	public AvroSerializer(Schema schema, Function<T, R> toRecord) {
+		this.schema = schema;
+		this.toRecord = toRecord;
+		this.encoder = new BinaryMessageEncoder<>(SpecificData.getForSchema(schema), schema);
+	}
+
+	public AvroSerializer(Schema schema, Function<T, R> toRecord, FileSchemaStore schemaStore) {
+		this(schema, toRecord);
+		schemaStore.register(schema);
+	}
+
+	@Override
+	public void configure(Map<String, ?> configs, boolean isKey) {
+		Object schemaDir = configs.get(SCHEMA_DIR_CONFIG);
+		if (schemaDir != null) {
+			FileSchemaStore.forDirectory(Path.of(schemaDir.toString())).register(schema);
+		}
+	}
+
+	@Override
+	public byte[] serialize(String topic, T data) {
+		if (data == null) {
+			return null;
+		}
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+			encoder.encode(toRecord.apply(data), out);
+			return out.toByteArray();
+		} catch (IOException | RuntimeException ex) {
+			throw new SerializationException("Cannot serialize " + schema.getName() + " for topic " + topic, ex);
+		}
+	}
+
+}
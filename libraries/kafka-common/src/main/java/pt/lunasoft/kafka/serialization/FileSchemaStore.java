@@ -0,0 +1,111 @@
+package pt.lunasoft.kafka.serialization;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaFormatter;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.message.SchemaStore;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local stand-in for a schema registry. Writer schemas are kept as {@code <fingerprint>.avsc} files
+ * in a shared directory, keyed by the CRC-64-AVRO parsing fingerprint that Avro single-object
+ * encoding puts in front of every message. Producers register the schema they write with; consumers
+ * look an unknown fingerprint up here and resolve it against their own reader schema.
+ */
+@Slf4j
+public class FileSchemaStore implements SchemaStore {
+
+	private static final Map<Path, FileSchemaStore> STORES = new ConcurrentHashMap<>();
+
+	private final Path directory;
+	private final Map<Long, Schema> schemas = new ConcurrentHashMap<>();
+
+	FileSchemaStore(Path directory) {
+		this.directory = directory;
+		try {
+			Files.createDirectories(directory);
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Cannot create schema directory " + directory, ex);
+		}
+		scan();
+	}
+
+	/**
+	 * One store per directory and JVM, so serializers created by different clients share the cache.
+	 */
+	public static FileSchemaStore forDirectory(Path directory) {
+		return STORES.computeIfAbsent(directory.toAbsolutePath().normalize(), FileSchemaStore::new);
+	}
+
+	public long register(Schema schema) {
+		long fingerprint = SchemaNormalization.parsingFingerprint64(schema);
+		if (schemas.putIfAbsent(fingerprint, schema) == null) {
+			Path file = fileFor(fingerprint);
+			if (Files.notExists(file)) {
+				write(file, schema);
+				log.info("Registered schema {} as {}", schema.getFullName(), file.getFileName());
+			}
+		}
+		return fingerprint;
+	}
+
+	@Override
+	public Schema findByFingerprint(long fingerprint) {
+		Schema schema = schemas.get(fingerprint);
+		if (schema == null) {
+			// Registered by another process since we last looked
+			Path file = fileFor(fingerprint);
+			if (Files.exists(file)) {
+				schema = read(file);
+				schemas.put(fingerprint, schema);
+			}
+		}
+		return schema;
+	}
+
+	private void scan() {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.avsc")) {
+			for (Path file : files) {
+				Schema schema = read(file);
+				schemas.put(SchemaNormalization.parsingFingerprint64(schema), schema);
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Cannot list schema directory " + directory, ex);
+		}
+	}
+
+	private Path fileFor(long fingerprint) {
+		return directory.resolve(String.format("%016x.avsc", fingerprint));
+	}
+
+	private static Schema read(Path file) {
+		try {
+			return new Schema.Parser().parse(file.toFile());
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Cannot read schema " + file, ex);
+		}
+	}
+
+	// Write to a temporary file and move it in place so readers never see a partial schema
+	private static void write(Path file, Schema schema) {
+		try {
+			Path tmp = Files.createTempFile(file.getParent(), "schema", ".tmp");
+			Files.writeString(tmp, SchemaFormatter.format("json/pretty", schema), StandardCharsets.UTF_8);
+			Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Cannot write schema " + file, ex);
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+package pt.lunasoft.kafka.serialization;
+
+import java.util.Map;
+
+import org.apache.kafka.common.serialization.Serde;
+import org.springframework.kafka.support.serializer.JsonSerde;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pt.lunasoft.models.FraudAlert;
+import pt.lunasoft.models.Transaction;
+
+/**
+ * Kafka Streams serdes matching the configured {@link SerializationFormat}, so a topology reads
+ * exactly what the producers write.
+ */
+public class FinstreamSerdes {
+
+	private final SerializationFormat format;
+	private final ObjectMapper objectMapper;
+	private final Map<String, ?> configs;
+
+	public FinstreamSerdes(SerializationFormat format, ObjectMapper objectMapper, Map<String, ?> configs) {
+		this.format = format;
+		this.objectMapper = objectMapper;
+		this.configs = configs;
+	}
+
+	public Serde<Transaction> transaction() {
+		return format == SerializationFormat.AVRO ? configured(AvroSerdes.transaction()) : json(Transaction.class);
+	}
+
+	public Serde<FraudAlert> fraudAlert() {
+		return format == SerializationFormat.AVRO ? configured(AvroSerdes.fraudAlert()) : json(FraudAlert.class);
+	}
+
+	/**
+	 * JSON serde for service-internal types such as aggregates, without type headers.
+	 */
+	public <T> Serde<T> json(Class<T> type) {
+		JsonSerde<T> serde = new JsonSerde<>(type, objectMapper);
+		serde.noTypeInfo().ignoreTypeHeaders();
+		return serde;
+	}
+
+	private <T> Serde<T> configured(Serde<T> serde) {
+		serde.configure(configs, false);
+		return serde;
+	}
+
+}
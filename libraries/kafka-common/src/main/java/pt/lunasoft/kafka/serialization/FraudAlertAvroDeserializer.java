@@ -0,0 +1,15 @@
+package pt.lunasoft.kafka.serialization;
+
+import pt.lunasoft.kafka.avro.AvroFraudAlert;
+import pt.lunasoft.models.FraudAlert;
+
+/**
+ * Kafka-instantiable Avro deserializer for {@link FraudAlert}, e.g. {@code value.deserializer}.
+ */
+public class FraudAlertAvroDeserializer extends AvroDeserializer<FraudAlert, AvroFraudAlert> {
+
+	public FraudAlertAvroDeserializer() {
+		super(AvroFraudAlert.getClassSchema(), AvroModelMapper::fromAvro);
+	}
+
+}
@@ -0,0 +1,15 @@
+package pt.lunasoft.kafka.serialization;
+
+import pt.lunasoft.kafka.avro.AvroFraudAlert;
+import pt.lunasoft.models.FraudAlert;
+
+/**
+ * Kafka-instantiable Avro serializer for {@link FraudAlert}, e.g. {@code value.serializer}.
+ */
+public class FraudAlertAvroSerializer extends AvroSerializer<FraudAlert, AvroFraudAlert> {
+
+	public FraudAlertAvroSerializer() {
+		super(AvroFraudAlert.getClassSchema(), AvroModelMapper::toAvro);
+	}
+
+}
@@ -0,0 +1,9 @@
+package pt.lunasoft.kafka.serialization;
+
+/**
+ * Wire format for the common-models events. Switch consumers to a format before producers.
+ */
+public enum SerializationFormat {
+	JSON,
+	AVRO
+}
@@ -0,0 +1,15 @@
+package pt.lunasoft.kafka.serialization;
+
+import pt.lunasoft.kafka.avro.AvroTransaction;
+import pt.lunasoft.models.Transaction;
+
+/**
+ * Kafka-instantiable Avro deserializer for {@link Transaction}, e.g. {@code value.deserializer}.
+ */
+public class TransactionAvroDeserializer extends AvroDeserializer<Transaction, AvroTransaction> {
+
+	public TransactionAvroDeserializer() {
+		super(AvroTransaction.getClassSchema(), AvroModelMapper::fromAvro);
+	}
+
+}
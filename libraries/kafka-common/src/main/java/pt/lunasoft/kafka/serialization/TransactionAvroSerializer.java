@@ -0,0 +1,15 @@
+package pt.lunasoft.kafka.serialization;
+
+import pt.lunasoft.kafka.avro.AvroTransaction;
+import pt.lunasoft.models.Transaction;
+
+/**
+ * Kafka-instantiable Avro serializer for {@link Transaction}, e.g. {@code value.serializer}.
+ */
+public class TransactionAvroSerializer extends AvroSerializer<Transaction, AvroTransaction> {
+
+	public TransactionAvroSerializer() {
+		super(AvroTransaction.getClassSchema(), AvroModelMapper::toAvro);
+	}
+
+}
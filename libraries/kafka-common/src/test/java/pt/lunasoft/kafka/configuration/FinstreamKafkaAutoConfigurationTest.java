@@ -0,0 +1,110 @@
+package pt.lunasoft.kafka.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties.AckMode;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.retrytopic.DestinationTopic;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.support.converter.RecordMessageConverter;
+
+import pt.lunasoft.kafka.retry.DeadLetterHandler;
+import pt.lunasoft.kafka.serialization.AvroMessageConverter;
+import pt.lunasoft.kafka.serialization.TransactionAvroDeserializer;
+import pt.lunasoft.models.Transaction;
+import pt.lunasoft.models.enums.TransactionType;
+
+class FinstreamKafkaAutoConfigurationTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(FinstreamKafkaAutoConfiguration.class, KafkaAutoConfiguration.class));
+
+	@Test
+	void shouldApplyThroughputProducerProfile() {
+		contextRunner.withPropertyValues("finstream.kafka.producer.linger-ms=50", "finstream.kafka.producer.compression-type=lz4")
+				.run(context -> {
+					Map<String, Object> configs = context.getBean(DefaultKafkaProducerFactory.class).getConfigurationProperties();
+
+					assertThat(configs).containsEntry("linger.ms", 50)
+							.containsEntry("compression.type", "lz4")
+							.containsEntry("batch.size", 65536)
+							.containsEntry("enable.idempotence", true);
+				});
+	}
+
+	@Test
+	void shouldProvideRecordAndBatchListenerFactories() {
+		contextRunner.withPropertyValues("finstream.kafka.consumer.ack-mode=manual").run(context -> {
+			ConcurrentKafkaListenerContainerFactory<?, ?> single = context.getBean("kafkaListenerContainerFactory", ConcurrentKafkaListenerContainerFactory.class);
+			ConcurrentKafkaListenerContainerFactory<?, ?> batch = context.getBean("batchKafkaListenerContainerFactory", ConcurrentKafkaListenerContainerFactory.class);
+
+			assertThat(single.isBatchListener()).isNotEqualTo(Boolean.TRUE);
+			assertThat(batch.isBatchListener()).isTrue();
+			assertThat(single.getContainerProperties().getAckMode()).isEqualTo(AckMode.MANUAL);
+			assertThat(context).hasSingleBean(DefaultErrorHandler.class);
+		});
+	}
+
+	@Test
+	void shouldConfigureExponentialRetryTiersEndingInDeadLetterTopic() {
+		contextRunner.withPropertyValues("finstream.kafka.retry.enabled=true", "finstream.kafka.retry.topics=transactions.incoming",
+				"finstream.kafka.retry.max-delay-ms=10000").run(context -> {
+					RetryTopicConfiguration configuration = context.getBean(RetryTopicConfiguration.class);
+
+					// main, retry-0, retry-1, retry-2, DLT
+					assertThat(configuration.getDestinationTopicProperties())
+							.extracting(DestinationTopic.Properties::suffix)
+							.containsExactly("", "-retry-0", "-retry-1", "-retry-2", ".DLT");
+					assertThat(configuration.getDestinationTopicProperties())
+							.extracting(DestinationTopic.Properties::delay)
+							.containsExactly(0L, 1000L, 4000L, 10000L, 0L);
+					assertThat(context).hasSingleBean(DeadLetterHandler.class);
+				});
+	}
+
+	@Test
+	void shouldNotConfigureRetryTopicsByDefault() {
+		contextRunner.run(context -> assertThat(context).doesNotHaveBean(RetryTopicConfiguration.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void shouldPassRawBytesThroughAndWriteAvroEvents() {
+		contextRunner.withPropertyValues("finstream.kafka.serialization.format=avro").run(context -> {
+			Serializer<Object> serializer = (Serializer<Object>) context.getBean(DefaultKafkaProducerFactory.class).getValueSerializerSupplier().get();
+			Transaction transaction = Transaction.builder()
+					.accountId("ACC00001")
+					.amount(new BigDecimal("10.00"))
+					.currency("EUR")
+					.type(TransactionType.PURCHASE)
+					.merchant("Merchant")
+					.timestamp(Instant.parse("2026-01-01T00:00:00Z"))
+					.build();
+
+			byte[] raw = { 1, 2, 3 };
+			byte[] avro = serializer.serialize("t", transaction);
+
+			assertThat(serializer.serialize("t", raw)).isEqualTo(raw);
+			assertThat(new TransactionAvroDeserializer().deserialize("t", avro).getAccountId()).isEqualTo("ACC00001");
+			assertThat(context.getBean(RecordMessageConverter.class)).isInstanceOf(AvroMessageConverter.class);
+
+			Object converted = context.getBean(RecordMessageConverter.class)
+					.toMessage(new ConsumerRecord<>("t", 0, 0L, "ACC00001", avro), null, null, Transaction.class)
+					.getPayload();
+			assertThat(converted).isInstanceOf(Transaction.class);
+		});
+	}
+
+}
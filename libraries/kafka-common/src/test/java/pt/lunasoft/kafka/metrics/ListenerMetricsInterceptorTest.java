@@ -0,0 +1,40 @@
+package pt.lunasoft.kafka.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ListenerMetricsInterceptorTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final ListenerMetricsInterceptor interceptor = new ListenerMetricsInterceptor(registry, ".DLT");
+
+	@Test
+	void shouldDeriveTierFromTopicName() {
+		assertThat(interceptor.tierOf("transactions.incoming")).isEqualTo("main");
+		assertThat(interceptor.tierOf("transactions.incoming-retry-0")).isEqualTo("retry-0");
+		assertThat(interceptor.tierOf("transactions.incoming-retry-2")).isEqualTo("retry-2");
+		assertThat(interceptor.tierOf("transactions.incoming-retry")).isEqualTo("retry");
+		assertThat(interceptor.tierOf("transactions.incoming.DLT")).isEqualTo("dlt");
+		assertThat(interceptor.tierOf("retry-topics")).isEqualTo("main");
+	}
+
+	@Test
+	void shouldCountOutcomesPerTier() {
+		// Given
+		ConsumerRecord<Object, Object> main = new ConsumerRecord<>("fraud.alerts", 0, 0L, "k", "v");
+		ConsumerRecord<Object, Object> retry = new ConsumerRecord<>("fraud.alerts-retry-1", 0, 0L, "k", "v");
+
+		// When
+		interceptor.failure(main, new IllegalStateException(), null);
+		interceptor.success(retry, null);
+
+		// Then
+		assertThat(registry.get("finstream.kafka.listener.records").tags("tier", "main", "outcome", "failure").counter().count()).isEqualTo(1);
+		assertThat(registry.get("finstream.kafka.listener.records").tags("tier", "retry-1", "outcome", "success").counter().count()).isEqualTo(1);
+	}
+
+}
@@ -0,0 +1,221 @@
+package pt.lunasoft.kafka.serialization;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.message.BinaryMessageEncoder;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import pt.lunasoft.kafka.avro.AvroTransaction;
+import pt.lunasoft.models.DeviceInfo;
+import pt.lunasoft.models.FraudAlert;
+import pt.lunasoft.models.Location;
+import pt.lunasoft.models.Transaction;
+import pt.lunasoft.models.enums.AlertStatus;
+import pt.lunasoft.models.enums.FraudSeverity;
+import pt.lunasoft.models.enums.TransactionStatus;
+import pt.lunasoft.models.enums.TransactionType;
+
+class AvroSerializationTest {
+
+	@TempDir
+	Path schemaDir;
+
+	@Test
+	void shouldRoundTripTransaction() {
+		// Given
+		Transaction transaction = transaction();
+		TransactionAvroSerializer serializer = new TransactionAvroSerializer();
+		TransactionAvroDeserializer deserializer = new TransactionAvroDeserializer();
+
+		// When
+		Transaction read = deserializer.deserialize("transactions.incoming", serializer.serialize("transactions.incoming", transaction));
+
+		// Then
+		assertThat(read).usingRecursiveComparison().ignoringFields("amount").isEqualTo(transaction);
+		assertThat(read.getAmount()).isEqualByComparingTo(transaction.getAmount());
+	}
+
+	@Test
+	void shouldRoundTripFraudAlert() {
+		// Given
+		FraudAlert alert = FraudAlert.builder()
+				.id(UUID.randomUUID())
+				.transactionId(UUID.randomUUID())
+				.accountId("ACC00001")
+				.severity(FraudSeverity.HIGH)
+				.riskScore(0.82)
+				.triggeredRules(List.of("HIGH_AMOUNT", "GEO_VELOCITY"))
+				.status(AlertStatus.OPEN)
+				.detectedAt(Instant.parse("2026-01-01T10:00:00.123456Z"))
+				.build();
+
+		// When
+		FraudAlert read = AvroSerdes.fraudAlert().deserializer().deserialize("fraud.alerts",
+				AvroSerdes.fraudAlert().serializer().serialize("fraud.alerts", alert));
+
+		// Then
+		assertThat(read).usingRecursiveComparison().isEqualTo(alert);
+	}
+
+	@Test
+	void shouldBeSmallerThanJson() throws Exception {
+		// Given
+		Transaction transaction = transaction();
+		ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+		// When
+		byte[] avro = new TransactionAvroSerializer().serialize("t", transaction);
+		byte[] json = objectMapper.writeValueAsBytes(transaction);
+
+		// Then
+		assertThat(avro.length).isLessThan(json.length / 2);
+	}
+
+	@Test
+	void shouldResolveOlderWriterSchemaFromFileStore() {
+		// Given - a producer still on a schema without description, location, device or audit fields
+		Schema amount = new Schema.Parser().parse("{\"type\":\"bytes\",\"logicalType\":\"decimal\",\"precision\":19,\"scale\":4}");
+		Schema timestamp = new Schema.Parser().parse("{\"type\":\"long\",\"logicalType\":\"timestamp-micros\"}");
+		Schema oldSchema = SchemaBuilder.record("AvroTransaction").namespace("pt.lunasoft.kafka.avro").fields()
+				.name("accountId").type().stringType().noDefault()
+				.name("amount").type(amount).noDefault()
+				.name("currency").type().stringType().noDefault()
+				.name("type").type().enumeration("AvroTransactionType").symbols("PURCHASE", "WITHDRAWAL").noDefault()
+				.name("merchant").type().stringType().noDefault()
+				.name("timestamp").type(timestamp).noDefault()
+				.endRecord();
+		FileSchemaStore.forDirectory(schemaDir).register(oldSchema);
+
+		GenericRecord old = new GenericData.Record(oldSchema);
+		old.put("accountId", "ACC00002");
+		old.put("amount", ByteBuffer.wrap(new BigDecimal("12.5000").unscaledValue().toByteArray()));
+		old.put("currency", "EUR");
+		old.put("type", new GenericData.EnumSymbol(oldSchema.getField("type").schema(), "WITHDRAWAL"));
+		old.put("merchant", "Old Merchant");
+		old.put("timestamp", 1_767_261_600_000_000L);
+		byte[] payload = encode(oldSchema, old);
+
+		TransactionAvroDeserializer deserializer = new TransactionAvroDeserializer();
+		deserializer.configure(Map.of(AvroSerializer.SCHEMA_DIR_CONFIG, schemaDir.toString()), false);
+
+		// When
+		Transaction read = deserializer.deserialize("transactions.incoming", payload);
+
+		// Then
+		assertThat(read.getAccountId()).isEqualTo("ACC00002");
+		assertThat(read.getAmount()).isEqualByComparingTo("12.5");
+		assertThat(read.getType()).isEqualTo(TransactionType.WITHDRAWAL);
+		assertThat(read.getTimestamp()).isEqualTo(Instant.parse("2026-01-01T10:00:00Z"));
+		assertThat(read.getDescription()).isNull();
+		assertThat(read.getLocation()).isNull();
+	}
+
+	@Test
+	void shouldReadSymbolsFromNewerWriterAsUnknown() {
+		// Given - a producer on a schema with a status this reader does not have yet
+		Schema newSchema = new Schema.Parser().parse(AvroTransaction.getClassSchema().toString()
+				.replace("\"FAILED\",\"UNKNOWN\"", "\"FAILED\",\"REVERSED\",\"UNKNOWN\""));
+		FileSchemaStore.forDirectory(schemaDir).register(newSchema);
+		byte[] payload = encode(newSchema, newerRecord(newSchema, "PURCHASE", "REVERSED"));
+
+		TransactionAvroDeserializer deserializer = new TransactionAvroDeserializer();
+		deserializer.configure(Map.of(AvroSerializer.SCHEMA_DIR_CONFIG, schemaDir.toString()), false);
+
+		// When
+		Transaction read = deserializer.deserialize("transactions.incoming", payload);
+
+		// Then
+		assertThat(read.getType()).isEqualTo(TransactionType.PURCHASE);
+		assertThat(read.getStatus()).isNull();
+	}
+
+	@Test
+	void shouldRejectTransactionTypeFromNewerWriter() {
+		// Given
+		Schema newSchema = new Schema.Parser().parse(AvroTransaction.getClassSchema().toString()
+				.replace("\"PAYMENT\",\"UNKNOWN\"", "\"PAYMENT\",\"CRYPTO\",\"UNKNOWN\""));
+		FileSchemaStore.forDirectory(schemaDir).register(newSchema);
+		byte[] payload = encode(newSchema, newerRecord(newSchema, "CRYPTO", "PENDING"));
+
+		TransactionAvroDeserializer deserializer = new TransactionAvroDeserializer();
+		deserializer.configure(Map.of(AvroSerializer.SCHEMA_DIR_CONFIG, schemaDir.toString()), false);
+
+		// When / Then
+		assertThatThrownBy(() -> deserializer.deserialize("transactions.incoming", payload))
+				.isInstanceOf(SerializationException.class);
+	}
+
+	@Test
+	void shouldFailOnUnknownWriterSchema() {
+		// Given
+		Schema unknown = SchemaBuilder.record("AvroTransaction").namespace("pt.lunasoft.kafka.avro").fields()
+				.name("accountId").type().stringType().noDefault()
+				.endRecord();
+		GenericRecord record = new GenericData.Record(unknown);
+		record.put("accountId", "ACC00003");
+		byte[] payload = encode(unknown, record);
+
+		// When / Then
+		assertThatThrownBy(() -> new TransactionAvroDeserializer().deserialize("transactions.incoming", payload))
+				.isInstanceOf(SerializationException.class);
+	}
+
+	private static byte[] encode(Schema schema, GenericRecord record) {
+		try {
+			return new BinaryMessageEncoder<GenericRecord>(GenericData.get(), schema).encode(record).array();
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private static GenericRecord newerRecord(Schema schema, String type, String status) {
+		Schema statusSchema = schema.getField("status").schema().getTypes().get(1);
+		GenericRecord record = new GenericData.Record(schema);
+		record.put("accountId", "ACC00004");
+		record.put("amount", ByteBuffer.wrap(new BigDecimal("20.0000").unscaledValue().toByteArray()));
+		record.put("currency", "EUR");
+		record.put("type", new GenericData.EnumSymbol(schema.getField("type").schema(), type));
+		record.put("merchant", "New Merchant");
+		record.put("timestamp", 1_767_261_600_000_000L);
+		record.put("status", new GenericData.EnumSymbol(statusSchema, status));
+		return record;
+	}
+
+	private static Transaction transaction() {
+		return Transaction.builder()
+				.id(UUID.randomUUID())
+				.accountId("ACC00001")
+				.amount(new BigDecimal("149.9900"))
+				.currency("EUR")
+				.type(TransactionType.PURCHASE)
+				.merchant("Coffee Roasters")
+				.merchantCategory("FOOD")
+				.timestamp(Instant.parse("2026-01-01T10:00:00.123Z"))
+				.status(TransactionStatus.PENDING)
+				.location(Location.builder().latitude(38.72).longitude(-9.14).city("Lisbon").country("PT").ipAddress("10.0.0.1").build())
+				.deviceInfo(DeviceInfo.builder().deviceId("device-1").deviceType("mobile").operatingSystem("iOS").build())
+				.createdAt(Instant.parse("2026-01-01T10:00:00.456789Z"))
+				.build();
+	}
+
+}
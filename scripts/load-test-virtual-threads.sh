@@ -0,0 +1,91 @@
+#!/bin/bash
+
+# Compares transaction-ingestion on platform threads against virtual threads.
+#
+# Start the service once with VIRTUAL_THREADS_ENABLED=false and run:
+#   ./scripts/load-test-virtual-threads.sh http://localhost:8080 platform
+# then restart it with VIRTUAL_THREADS_ENABLED=true and run:
+#   ./scripts/load-test-virtual-threads.sh http://localhost:8080 virtual
+#
+# Each run drives POST /api/v1/transactions with `hey` at increasing concurrency, reads p99 from
+# hey's latency distribution and samples http.server.requests.active from the actuator to record
+# the highest number of requests the pod had in flight. Results accumulate in RESULTS_FILE and the
+# comparison table is printed after every run.
+
+API_URL="${1:-http://localhost:8080}"
+LABEL="${2:-platform}"
+DURATION="${DURATION:-30s}"
+CONCURRENCY_LEVELS="${CONCURRENCY_LEVELS:-50 200 800 2000}"
+RESULTS_FILE="${RESULTS_FILE:-load-test-results.csv}"
+
+if ! command -v hey > /dev/null; then
+    echo "hey is required: go install github.com/rakyll/hey@latest"
+    exit 1
+fi
+
+BODY=$(mktemp)
+trap 'rm -f "$BODY"' EXIT
+cat > "$BODY" <<JSON
+{
+    "accountId": "ACC00042",
+    "amount": 125.50,
+    "currency": "USD",
+    "type": "PURCHASE",
+    "merchant": "Load Test Merchant",
+    "merchantCategory": "RETAIL",
+    "timestamp": "$(date -u +%Y-%m-%dT%H:%M:%S.%3NZ)",
+    "location": {
+        "city": "New York",
+        "country": "US",
+        "ipAddress": "192.168.1.10"
+    },
+    "deviceInfo": {
+        "deviceId": "device-load",
+        "deviceType": "mobile",
+        "operatingSystem": "iOS"
+    }
+}
+JSON
+
+active_requests() {
+    curl -s "$API_URL/actuator/metrics/http.server.requests.active" \
+        | grep -o '"statistic":"ACTIVE_TASKS","value":[0-9.]*' \
+        | grep -o '[0-9.]*$' \
+        | cut -d. -f1
+}
+
+[ -f "$RESULTS_FILE" ] || echo "mode,concurrency,requests_per_sec,p99_ms,max_in_flight,non_2xx" > "$RESULTS_FILE"
+
+for CONCURRENCY in $CONCURRENCY_LEVELS; do
+    echo "[$LABEL] concurrency $CONCURRENCY for $DURATION..."
+
+    MAX_FILE=$(mktemp)
+    echo 0 > "$MAX_FILE"
+    (
+        while true; do
+            CURRENT=$(active_requests)
+            if [ -n "$CURRENT" ] && [ "$CURRENT" -gt "$(cat "$MAX_FILE")" ]; then
+                echo "$CURRENT" > "$MAX_FILE"
+            fi
+            sleep 0.2
+        done
+    ) &
+    SAMPLER=$!
+
+    OUTPUT=$(hey -z "$DURATION" -c "$CONCURRENCY" -m POST -T "application/json" -D "$BODY" \
+        "$API_URL/api/v1/transactions")
+
+    kill "$SAMPLER" 2> /dev/null
+    wait "$SAMPLER" 2> /dev/null
+    MAX_IN_FLIGHT=$(cat "$MAX_FILE")
+    rm -f "$MAX_FILE"
+
+    RPS=$(echo "$OUTPUT" | awk '/Requests\/sec/ {print $2}')
+    P99_MS=$(echo "$OUTPUT" | awk '/ 99% in / {printf "%.1f", $3 * 1000}')
+    NON_2XX=$(echo "$OUTPUT" | awk '/^\s*\[[0-9]+\]/ {gsub(/[\[\]]/, "", $1); if ($1 !~ /^2/) total += $2} END {print total + 0}')
+
+    echo "$LABEL,$CONCURRENCY,$RPS,$P99_MS,$MAX_IN_FLIGHT,$NON_2XX" >> "$RESULTS_FILE"
+done
+
+echo
+column -s, -t < "$RESULTS_FILE"
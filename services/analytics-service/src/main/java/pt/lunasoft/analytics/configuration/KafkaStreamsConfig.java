@@ -4,8 +4,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import pt.lunasoft.analytics.model.TransactionStats;
+import pt.lunasoft.kafka.serialization.FinstreamSerdes;
 import pt.lunasoft.models.Transaction;
 
+import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.StreamsConfig;
 
@@ -29,6 +31,10 @@ public class KafkaStreamsConfig {
     @Value("${spring.kafka.streams.application-id}")
     private String applicationId;
 
+    // host:port other instances use to reach this one's window stores
+    @Value("${app.analytics.interactive-queries.host:localhost}:${server.port:8082}")
+    private String applicationServer;
+
     @Bean(name = "defaultKafkaStreamsConfig")
     public KafkaStreamsConfiguration kStreamsConfig() {
         Map<String, Object> props = new HashMap<>();
@@ -40,6 +46,7 @@ public class KafkaStreamsConfig {
         props.put(StreamsConfig.STATESTORE_CACHE_MAX_BYTES_CONFIG, 10 * 1024 * 1024L);
         props.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, 3);
         props.put(StreamsConfig.PROCESSING_GUARANTEE_CONFIG, StreamsConfig.EXACTLY_ONCE_V2);
+        props.put(StreamsConfig.APPLICATION_SERVER_CONFIG, applicationServer);
         
         return new KafkaStreamsConfiguration(props);
     }
@@ -51,14 +58,15 @@ public class KafkaStreamsConfig {
         return mapper;
     }
 
+    // Same wire format as the producers (finstream.kafka.serialization.format)
     @Bean
-    public JsonSerde<Transaction> transactionSerde() {
-        return new JsonSerde<>(Transaction.class, objectMapper());
+    public Serde<Transaction> transactionSerde(FinstreamSerdes finstreamSerdes) {
+        return finstreamSerdes.transaction();
     }
 
     @Bean
-    public JsonSerde<TransactionStats> transactionStatsSerde() {
-        return new JsonSerde<>(TransactionStats.class, objectMapper());
+    public Serde<TransactionStats> transactionStatsSerde(FinstreamSerdes finstreamSerdes) {
+        return finstreamSerdes.json(TransactionStats.class);
     }
     
 }
\ No newline at end of file
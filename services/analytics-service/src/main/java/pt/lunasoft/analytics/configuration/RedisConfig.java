@@ -0,0 +1,46 @@
+package pt.lunasoft.analytics.configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pt.lunasoft.analytics.model.AccountMetrics;
+
+@Configuration
+public class RedisConfig {
+
+	/**
+	 * Per-account metrics snapshots under {@code account:metrics:<accountId>}, stored as JSON.
+	 */
+	@Bean
+	public ReactiveRedisTemplate<String, AccountMetrics> accountMetricsRedisTemplate(ReactiveRedisConnectionFactory connectionFactory,
+			ObjectMapper objectMapper) {
+		Jackson2JsonRedisSerializer<AccountMetrics> serializer = new Jackson2JsonRedisSerializer<>(objectMapper, AccountMetrics.class);
+		RedisSerializationContext<String, AccountMetrics> context = RedisSerializationContext
+				.<String, AccountMetrics>newSerializationContext(new StringRedisSerializer())
+				.value(serializer)
+				.build();
+		return new ReactiveRedisTemplate<>(connectionFactory, context);
+	}
+
+	/**
+	 * Per-account sketches behind the metrics estimates under {@code account:sketches:<accountId>},
+	 * stored as raw bytes so they stay out of the metrics JSON.
+	 */
+	@Bean
+	public ReactiveRedisTemplate<String, byte[]> accountSketchesRedisTemplate(ReactiveRedisConnectionFactory connectionFactory) {
+		RedisSerializationContext<String, byte[]> context = RedisSerializationContext
+				.<String, byte[]>newSerializationContext(new StringRedisSerializer())
+				.value(RedisSerializer.byteArray())
+				.build();
+		return new ReactiveRedisTemplate<>(connectionFactory, context);
+	}
+
+}
@@ -65,6 +65,13 @@ public class AnalyticsController {
         return Mono.just(analyticsQueryService.getTransactionsByCategory(Duration.ofHours(hours)));
     }
 
+    @GetMapping("/distribution/amount")
+    @Operation(summary = "Get transaction amount percentiles across all instances")
+    public Mono<Map<String, Double>> getAmountPercentiles(
+            @RequestParam(defaultValue = "1") int hours) {
+        return Mono.just(analyticsQueryService.getAmountPercentiles(Duration.ofHours(hours)));
+    }
+
     @GetMapping("/average/amount")
     @Operation(summary = "Get average transaction amount over time")
     public Mono<List<TimeSeriesDataPoint>> getAverageAmount(
@@ -0,0 +1,60 @@
+package pt.lunasoft.analytics.controller;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import pt.lunasoft.analytics.model.TransactionStats;
+import pt.lunasoft.analytics.service.WindowStoreQueryService;
+import pt.lunasoft.analytics.streams.TransactionAnalyticsTopology;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/v1/analytics/windows")
+@RequiredArgsConstructor
+@Tag(name = "Window stores", description = "Windowed aggregates served from Kafka Streams state")
+public class WindowStoreController {
+
+	private static final Duration DEFAULT_RANGE = Duration.ofHours(1);
+
+	private final WindowStoreQueryService windowStoreQueryService;
+
+	@GetMapping("/accounts/{accountId}")
+	@Operation(summary = "Get windowed stats for an account")
+	public Mono<List<TransactionStats>> getAccountWindows(@PathVariable String accountId,
+			@RequestParam(required = false) Instant from,
+			@RequestParam(required = false) Instant to) {
+		return getWindows(TransactionAnalyticsTopology.ACCOUNT_STATS_STORE, accountId, from, to, false);
+	}
+
+	@GetMapping("/{store}/{key}")
+	@Operation(summary = "Get windowed stats for a key of account-stats, category-stats or global-stats")
+	public Mono<List<TransactionStats>> getWindows(@PathVariable String store, @PathVariable String key,
+			@RequestParam(required = false) Instant from,
+			@RequestParam(required = false) Instant to,
+			@RequestParam(defaultValue = "false") boolean local) {
+		Instant end = to != null ? to : Instant.now();
+		Instant start = from != null ? from : end.minus(DEFAULT_RANGE);
+		return windowStoreQueryService.fetch(store, key, start, end, local);
+	}
+
+	// Keeps the exception's headers, such as Retry-After, which the default error handler drops
+	@ExceptionHandler(ResponseStatusException.class)
+	public ResponseEntity<ProblemDetail> handleStatus(ResponseStatusException ex) {
+		return ResponseEntity.status(ex.getStatusCode()).headers(ex.getHeaders()).body(ex.getBody());
+	}
+
+}
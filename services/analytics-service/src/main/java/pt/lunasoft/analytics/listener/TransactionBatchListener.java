@@ -0,0 +1,36 @@
+package pt.lunasoft.analytics.listener;
+
+import java.util.List;
+
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import pt.lunasoft.analytics.service.MetricsAggregationService;
+import pt.lunasoft.models.Transaction;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionBatchListener {
+
+    private final MetricsAggregationService metricsAggregationService;
+
+    /**
+     * Each poll (up to finstream.kafka.consumer.max-poll-records) is aggregated as one micro-batch,
+     * so Redis and InfluxDB are written once per batch rather than once per transaction.
+     */
+    @KafkaListener(
+        topics = "${app.kafka.topics.transactions-incoming}",
+        groupId = "${spring.kafka.consumer.group-id}",
+        containerFactory = "batchKafkaListenerContainerFactory",
+        autoStartup = "${app.analytics.aggregation.enabled:true}"
+    )
+    public void consumeTransactions(@Payload List<Transaction> transactions) {
+        log.debug("Aggregating batch of {} transactions", transactions.size());
+        metricsAggregationService.processBatch(transactions);
+    }
+
+}
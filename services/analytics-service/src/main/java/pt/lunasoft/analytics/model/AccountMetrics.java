@@ -20,6 +20,10 @@ public class AccountMetrics {
     private BigDecimal totalSpending;
     private BigDecimal averageTransactionAmount;
     private Integer uniqueMerchants;
+    private Integer uniqueDevices;
+    private Double p50Amount;
+    private Double p95Amount;
+    private Double p99Amount;
     private Map<String, Long> transactionsByType;
     private Map<String, BigDecimal> spendingByCategory;
     private Long fraudAlertsCount;
@@ -19,5 +19,7 @@ public class TimeSeriesDataPoint {
     private BigDecimal value;
     private Instant timestamp;
     private Map<String, String> tags;
+    // Multi-field points (rollups); when set, value is ignored on write
+    private Map<String, Double> fields;
 	
 }
\ No newline at end of file
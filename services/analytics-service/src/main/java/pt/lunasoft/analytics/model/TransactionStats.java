@@ -20,6 +20,11 @@ public class TransactionStats {
     private BigDecimal averageAmount;
     private BigDecimal minAmount;
     private BigDecimal maxAmount;
+    // Estimated from the window's sketches
+    private BigDecimal p50Amount;
+    private BigDecimal p95Amount;
+    private BigDecimal p99Amount;
+    private Long uniqueMerchants;
     private Instant windowStart;
     private Instant windowEnd;
     private String merchantCategory;
@@ -0,0 +1,12 @@
+package pt.lunasoft.analytics.rollup;
+
+/**
+ * Per-account window of the downsampled account detail path.
+ */
+public record AccountRollupKey(String accountId, long windowStart, long sizeMs) {
+
+	public long windowEnd() {
+		return windowStart + sizeMs;
+	}
+
+}
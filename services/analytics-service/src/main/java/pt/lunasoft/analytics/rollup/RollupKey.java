@@ -0,0 +1,13 @@
+package pt.lunasoft.analytics.rollup;
+
+/**
+ * One rollup series and window. Only low-cardinality dimensions belong here; account detail is
+ * kept apart in {@link AccountRollupKey}.
+ */
+public record RollupKey(RollupResolution resolution, long windowStart, String type, String currency, String merchantCategory) {
+
+	public long windowEnd() {
+		return windowStart + resolution.sizeMs();
+	}
+
+}
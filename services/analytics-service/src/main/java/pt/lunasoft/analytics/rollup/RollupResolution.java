@@ -0,0 +1,42 @@
+package pt.lunasoft.analytics.rollup;
+
+import java.time.Duration;
+
+/**
+ * Window sizes kept in process, each written to its own InfluxDB measurement. Only the minute and
+ * five-minute rollups carry the percentile sketch's bucket counts; per second they would multiply
+ * the fields written many times over for windows too short to be worth merging.
+ */
+public enum RollupResolution {
+
+	SECOND(Duration.ofSeconds(1), "transaction_1s", false),
+	MINUTE(Duration.ofMinutes(1), "transaction_1m", true),
+	FIVE_MINUTES(Duration.ofMinutes(5), "transaction_5m", true);
+
+	private final long sizeMs;
+	private final String measurement;
+	private final boolean sketchBuckets;
+
+	RollupResolution(Duration size, String measurement, boolean sketchBuckets) {
+		this.sizeMs = size.toMillis();
+		this.measurement = measurement;
+		this.sketchBuckets = sketchBuckets;
+	}
+
+	public long sizeMs() {
+		return sizeMs;
+	}
+
+	public String measurement() {
+		return measurement;
+	}
+
+	public boolean sketchBuckets() {
+		return sketchBuckets;
+	}
+
+	public long windowStart(long epochMs) {
+		return epochMs - Math.floorMod(epochMs, sizeMs);
+	}
+
+}
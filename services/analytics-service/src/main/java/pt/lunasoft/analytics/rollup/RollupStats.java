@@ -0,0 +1,114 @@
+package pt.lunasoft.analytics.rollup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import pt.lunasoft.analytics.sketch.QuantileSketch;
+
+/**
+ * Running count, sum, min and max of the amounts in one window, plus an optional percentile sketch.
+ * Not thread-safe; callers mutate it under the owning map's per-key lock.
+ * <p>
+ * The p50, p95 and p99 fields are finished numbers for one instance and one window and cannot be
+ * combined with others. For that the sketch itself can be written as one count field per bucket,
+ * {@value #BUCKET_FIELD_PREFIX}{@code <index>} plus {@value #ZERO_BUCKET_FIELD}: summing each field
+ * across instances and windows and passing the sums to {@link #sketchFromBuckets} gives the merged
+ * percentiles.
+ */
+public class RollupStats {
+
+	public static final String BUCKET_FIELD_PREFIX = "bucket_";
+	public static final String ZERO_BUCKET_FIELD = BUCKET_FIELD_PREFIX + "zero";
+
+	private static final double SKETCH_ACCURACY = 0.01;
+
+	private final QuantileSketch sketch;
+	private long count;
+	private double sum;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	private RollupStats(QuantileSketch sketch) {
+		this.sketch = sketch;
+	}
+
+	public static RollupStats withPercentiles() {
+		return new RollupStats(new QuantileSketch(SKETCH_ACCURACY));
+	}
+
+	public static RollupStats basic() {
+		return new RollupStats(null);
+	}
+
+	public void add(double amount) {
+		count++;
+		sum += amount;
+		min = Math.min(min, amount);
+		max = Math.max(max, amount);
+		if (sketch != null) {
+			sketch.add(amount);
+		}
+	}
+
+	public long count() {
+		return count;
+	}
+
+	public double sum() {
+		return sum;
+	}
+
+	public double min() {
+		return min;
+	}
+
+	public double max() {
+		return max;
+	}
+
+	public double quantile(double quantile) {
+		return sketch == null ? Double.NaN : sketch.quantile(quantile);
+	}
+
+	public Map<String, Double> toFields() {
+		return toFields(false);
+	}
+
+	/**
+	 * @param sketchBuckets also write the sketch's bucket counts, when there is a sketch
+	 */
+	public Map<String, Double> toFields(boolean sketchBuckets) {
+		Map<String, Double> fields = new LinkedHashMap<>();
+		fields.put("count", (double) count);
+		fields.put("sum", sum);
+		fields.put("min", min);
+		fields.put("max", max);
+		if (sketch != null) {
+			fields.put("p50", sketch.quantile(0.50));
+			fields.put("p95", sketch.quantile(0.95));
+			fields.put("p99", sketch.quantile(0.99));
+			if (sketchBuckets) {
+				fields.put(ZERO_BUCKET_FIELD, (double) sketch.zeroCount());
+				sketch.buckets().forEach((index, bucketCount) -> fields.put(BUCKET_FIELD_PREFIX + index, (double) bucketCount));
+			}
+		}
+		return fields;
+	}
+
+	/**
+	 * Rebuilds a sketch from bucket count fields, e.g. summed over instances and windows.
+	 * @param bucketFields counts by field name; names without the bucket prefix are ignored
+	 */
+	public static QuantileSketch sketchFromBuckets(Map<String, ? extends Number> bucketFields) {
+		QuantileSketch merged = new QuantileSketch(SKETCH_ACCURACY);
+		bucketFields.forEach((field, bucketCount) -> {
+			if (field.equals(ZERO_BUCKET_FIELD)) {
+				merged.addZeros(bucketCount.longValue());
+			} else if (field.startsWith(BUCKET_FIELD_PREFIX)) {
+				merged.addBucket(Integer.parseInt(field.substring(BUCKET_FIELD_PREFIX.length())), bucketCount.longValue());
+			}
+		});
+		return merged;
+	}
+
+}
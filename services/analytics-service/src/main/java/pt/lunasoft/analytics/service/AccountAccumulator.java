@@ -0,0 +1,182 @@
+package pt.lunasoft.analytics.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import pt.lunasoft.analytics.model.AccountMetrics;
+import pt.lunasoft.analytics.sketch.HyperLogLog;
+import pt.lunasoft.analytics.sketch.QuantileSketch;
+import pt.lunasoft.models.Transaction;
+import pt.lunasoft.models.enums.TransactionType;
+
+/**
+ * Live metrics of one account, safe to update from any number of consumer threads. Counters and
+ * sums are {@link LongAdder}s (amounts in units of 10^-{@value #SCALE}), transaction types are
+ * an array indexed by ordinal, and categories past {@value #MAX_CATEGORIES} are counted as
+ * {@value #OTHER_CATEGORY}, so the footprint per account is fixed. The sketches are not
+ * thread-safe and are only touched while holding the accumulator's monitor.
+ * <p>
+ * Readers never see this object: {@link #snapshot()} copies it into a fresh {@link AccountMetrics},
+ * which carries the estimates but not the sketches; {@link #sketches()} serializes those for
+ * storage apart from the metrics.
+ */
+final class AccountAccumulator {
+
+	static final int SCALE = 4;
+	static final int MAX_CATEGORIES = 64;
+	static final String OTHER_CATEGORY = "other";
+	private static final int MONEY_SCALE = 2;
+	private static final TransactionType[] TYPES = TransactionType.values();
+
+	private final String accountId;
+	private final LongAdder transactions = new LongAdder();
+	private final LongAdder spendingUnits = new LongAdder();
+	private final LongAdder[] transactionsByType = new LongAdder[TYPES.length];
+	private final Map<String, LongAdder> spendingByCategory = new ConcurrentHashMap<>();
+	private final long fraudAlertsCount;
+	private final Double fraudRate;
+	private volatile Instant lastUpdated;
+
+	private final HyperLogLog merchantSketch;
+	private final HyperLogLog deviceSketch;
+	private final QuantileSketch amountSketch;
+
+	AccountAccumulator(String accountId, int distinctPrecision, double quantileAccuracy) {
+		this(accountId, new HyperLogLog(distinctPrecision), new HyperLogLog(distinctPrecision), new QuantileSketch(quantileAccuracy), 0, 0.0);
+	}
+
+	private AccountAccumulator(String accountId, HyperLogLog merchantSketch, HyperLogLog deviceSketch, QuantileSketch amountSketch,
+			long fraudAlertsCount, Double fraudRate) {
+		this.accountId = accountId;
+		this.merchantSketch = merchantSketch;
+		this.deviceSketch = deviceSketch;
+		this.amountSketch = amountSketch;
+		this.fraudAlertsCount = fraudAlertsCount;
+		this.fraudRate = fraudRate;
+		for (int i = 0; i < TYPES.length; i++) {
+			transactionsByType[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Resumes from a snapshot read back from Redis.
+	 * @param sketches output of {@link #sketches()}; null or empty starts the sketches empty
+	 */
+	static AccountAccumulator restore(AccountMetrics metrics, byte[] sketches, int distinctPrecision, double quantileAccuracy) {
+		boolean stored = sketches != null && sketches.length > 0;
+		ByteBuffer buffer = stored ? ByteBuffer.wrap(sketches) : null;
+		AccountAccumulator accumulator = new AccountAccumulator(metrics.getAccountId(),
+				stored ? HyperLogLog.fromBytes(slice(buffer)) : new HyperLogLog(distinctPrecision),
+				stored ? HyperLogLog.fromBytes(slice(buffer)) : new HyperLogLog(distinctPrecision),
+				stored ? QuantileSketch.fromBytes(slice(buffer)) : new QuantileSketch(quantileAccuracy),
+				metrics.getFraudAlertsCount() != null ? metrics.getFraudAlertsCount() : 0,
+				metrics.getFraudRate() != null ? metrics.getFraudRate() : 0.0);
+		accumulator.transactions.add(metrics.getTotalTransactions() != null ? metrics.getTotalTransactions() : 0);
+		if (metrics.getTotalSpending() != null) {
+			accumulator.spendingUnits.add(toUnits(metrics.getTotalSpending()));
+		}
+		if (metrics.getTransactionsByType() != null) {
+			metrics.getTransactionsByType().forEach((type, count) -> accumulator.transactionsByType[TransactionType.valueOf(type).ordinal()].add(count));
+		}
+		if (metrics.getSpendingByCategory() != null) {
+			metrics.getSpendingByCategory().forEach((category, amount) -> accumulator.category(category).add(toUnits(amount)));
+		}
+		accumulator.lastUpdated = metrics.getLastUpdated();
+		return accumulator;
+	}
+
+	void add(Transaction transaction, Instant now) {
+		long units = toUnits(transaction.getAmount());
+		transactions.increment();
+		spendingUnits.add(units);
+		transactionsByType[transaction.getType().ordinal()].increment();
+		if (transaction.getMerchantCategory() != null) {
+			category(transaction.getMerchantCategory()).add(units);
+		}
+		synchronized (this) {
+			merchantSketch.add(transaction.getMerchant());
+			deviceSketch.add(transaction.getDeviceInfo() != null ? transaction.getDeviceInfo().getDeviceId() : null);
+			amountSketch.add(transaction.getAmount().doubleValue());
+		}
+		lastUpdated = now;
+	}
+
+	private LongAdder category(String category) {
+		LongAdder adder = spendingByCategory.get(category);
+		if (adder != null) {
+			return adder;
+		}
+		// The cap is soft under races by at most the number of writers, which is still bounded
+		String key = spendingByCategory.size() < MAX_CATEGORIES ? category : OTHER_CATEGORY;
+		return spendingByCategory.computeIfAbsent(key, k -> new LongAdder());
+	}
+
+	/**
+	 * Point-in-time copy with the derived values filled in. Counters are read one by one, so a
+	 * snapshot taken during an update may count a transaction in some fields and not yet in others.
+	 */
+	AccountMetrics snapshot() {
+		long count = transactions.sum();
+		BigDecimal spending = BigDecimal.valueOf(spendingUnits.sum(), SCALE);
+
+		Map<String, Long> byType = new HashMap<>();
+		for (TransactionType type : TYPES) {
+			long typeCount = transactionsByType[type.ordinal()].sum();
+			if (typeCount > 0) {
+				byType.put(type.toString(), typeCount);
+			}
+		}
+		Map<String, BigDecimal> byCategory = new HashMap<>();
+		spendingByCategory.forEach((category, units) -> byCategory.put(category, BigDecimal.valueOf(units.sum(), SCALE)));
+
+		AccountMetrics.AccountMetricsBuilder builder = AccountMetrics.builder()
+				.accountId(accountId)
+				.totalTransactions(count)
+				.totalSpending(spending)
+				.averageTransactionAmount(count > 0 ? spending.divide(BigDecimal.valueOf(count), MONEY_SCALE, RoundingMode.HALF_UP) : null)
+				.transactionsByType(byType)
+				.spendingByCategory(byCategory)
+				.fraudAlertsCount(fraudAlertsCount)
+				.fraudRate(fraudRate)
+				.lastUpdated(lastUpdated);
+		synchronized (this) {
+			builder.uniqueMerchants((int) merchantSketch.estimate())
+					.uniqueDevices((int) deviceSketch.estimate())
+					.p50Amount(amountSketch.count() > 0 ? amountSketch.quantile(0.50) : null)
+					.p95Amount(amountSketch.count() > 0 ? amountSketch.quantile(0.95) : null)
+					.p99Amount(amountSketch.count() > 0 ? amountSketch.quantile(0.99) : null);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * The merchant, device and amount sketches, each length-prefixed, as read by {@link #restore}.
+	 */
+	synchronized byte[] sketches() {
+		byte[] merchants = merchantSketch.toBytes();
+		byte[] devices = deviceSketch.toBytes();
+		byte[] amounts = amountSketch.toBytes();
+		return ByteBuffer.allocate(3 * Integer.BYTES + merchants.length + devices.length + amounts.length)
+				.putInt(merchants.length).put(merchants)
+				.putInt(devices.length).put(devices)
+				.putInt(amounts.length).put(amounts)
+				.array();
+	}
+
+	private static byte[] slice(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	private static long toUnits(BigDecimal amount) {
+		return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+	}
+
+}
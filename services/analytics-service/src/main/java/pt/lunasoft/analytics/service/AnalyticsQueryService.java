@@ -1,6 +1,8 @@
 package pt.lunasoft.analytics.service;
 
+import java.math.BigDecimal;
 import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -10,7 +12,16 @@ import org.springframework.stereotype.Service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import pt.lunasoft.analytics.model.TimeSeriesDataPoint;
+import pt.lunasoft.analytics.rollup.RollupStats;
+import pt.lunasoft.analytics.sketch.QuantileSketch;
 
+/**
+ * Dashboard queries over the rollup measurements written by {@link RollupService}; each query reads
+ * at most one precomputed point per tag set and window instead of every transaction. Every instance
+ * writes its own series under the {@code instance} tag, so each query groups that tag away and sums
+ * count and sum across it. The per-instance percentile fields cannot be combined that way;
+ * percentiles are merged from the sketch bucket counts instead.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -22,7 +33,8 @@ public class AnalyticsQueryService {
 		String flux = String.format(
 				"from(bucket: \"analytics\") " +
 						"|> range(start: -%s) " +
-						"|> filter(fn: (r) => r._measurement == \"transaction\") " +
+						"|> filter(fn: (r) => r._measurement == \"transaction_1m\" and r._field == \"sum\") " +
+						"|> group() " +
 						"|> aggregateWindow(every: 1m, fn: sum) " +
 						"|> yield(name: \"volume\")",
 						formatDuration(duration)
@@ -34,8 +46,9 @@ public class AnalyticsQueryService {
 		String flux = String.format(
 				"from(bucket: \"analytics\") " +
 						"|> range(start: -%s) " +
-						"|> filter(fn: (r) => r._measurement == \"transaction\") " +
-						"|> aggregateWindow(every: 1m, fn: count) " +
+						"|> filter(fn: (r) => r._measurement == \"transaction_1m\" and r._field == \"count\") " +
+						"|> group() " +
+						"|> aggregateWindow(every: 1m, fn: sum) " +
 						"|> yield(name: \"count\")",
 						formatDuration(duration)
 				);
@@ -47,9 +60,9 @@ public class AnalyticsQueryService {
 		String flux = String.format(
 				"from(bucket: \"analytics\") " +
 						"|> range(start: -%s) " +
-						"|> filter(fn: (r) => r._measurement == \"transaction\") " +
+						"|> filter(fn: (r) => r._measurement == \"transaction_1m\" and r._field == \"count\") " +
 						"|> group(columns: [\"merchant_category\"]) " +
-						"|> count() " +
+						"|> sum() " +
 						"|> yield(name: \"by_category\")",
 						formatDuration(duration)
 				);
@@ -59,17 +72,22 @@ public class AnalyticsQueryService {
 		return results.stream()
 				.collect(Collectors.groupingBy(
 						dp -> dp.getTags().getOrDefault("merchant_category", "unknown"),
-						Collectors.counting()
+						Collectors.summingLong(dp -> dp.getValue().longValue())
 						));
 	}
 
+	/**
+	 * @param groupBy one of the rollup tags: type, currency or merchant_category
+	 */
 	public List<TimeSeriesDataPoint> getAverageTransactionAmount(Duration duration, String groupBy) {
 		String flux = String.format(
 				"from(bucket: \"analytics\") " +
 						"|> range(start: -%s) " +
-						"|> filter(fn: (r) => r._measurement == \"transaction\") " +
-						"|> group(columns: [\"%s\"]) " +
-						"|> aggregateWindow(every: 5m, fn: mean) " +
+						"|> filter(fn: (r) => r._measurement == \"transaction_5m\" and (r._field == \"sum\" or r._field == \"count\")) " +
+						"|> group(columns: [\"%s\", \"_field\"]) " +
+						"|> aggregateWindow(every: 5m, fn: sum) " +
+						"|> pivot(rowKey: [\"_time\"], columnKey: [\"_field\"], valueColumn: \"_value\") " +
+						"|> map(fn: (r) => ({r with _value: if r.count > 0.0 then r.sum / r.count else 0.0})) " +
 						"|> yield(name: \"average\")",
 						formatDuration(duration), groupBy
 				);
@@ -77,6 +95,34 @@ public class AnalyticsQueryService {
 		return influxDBService.query(flux);
 	}
 
+	/**
+	 * Amount percentiles over every instance and 1m window in the range, merged from the sketch
+	 * bucket counts of the rollups.
+	 * @return p50, p95 and p99; 0 when nothing was written in the range
+	 */
+	public Map<String, Double> getAmountPercentiles(Duration duration) {
+		String flux = String.format(
+				"from(bucket: \"analytics\") " +
+						"|> range(start: -%s) " +
+						"|> filter(fn: (r) => r._measurement == \"transaction_1m\" and r._field =~ /^%s/) " +
+						"|> group(columns: [\"_field\"]) " +
+						"|> sum() " +
+						"|> map(fn: (r) => ({r with bucket: r._field})) " +
+						"|> yield(name: \"buckets\")",
+						formatDuration(duration), RollupStats.BUCKET_FIELD_PREFIX
+				);
+
+		Map<String, BigDecimal> bucketCounts = influxDBService.query(flux).stream()
+				.filter(dp -> dp.getTags().containsKey("bucket"))
+				.collect(Collectors.toMap(dp -> dp.getTags().get("bucket"), TimeSeriesDataPoint::getValue, BigDecimal::add));
+		QuantileSketch sketch = RollupStats.sketchFromBuckets(bucketCounts);
+		Map<String, Double> percentiles = new LinkedHashMap<>();
+		percentiles.put("p50", sketch.quantile(0.50));
+		percentiles.put("p95", sketch.quantile(0.95));
+		percentiles.put("p99", sketch.quantile(0.99));
+		return percentiles;
+	}
+
 	private String formatDuration(Duration duration) {
 		long hours = duration.toHours();
 		if (hours > 0) {
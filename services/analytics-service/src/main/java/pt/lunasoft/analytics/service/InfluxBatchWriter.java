@@ -0,0 +1,379 @@
+package pt.lunasoft.analytics.service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Asynchronous line-protocol writer in front of InfluxDB. Callers only enqueue into a bounded
+ * buffer and never wait on the network; a single flusher thread coalesces lines into batches,
+ * sent when {@code batchSize} is reached or {@code flushIntervalMs} has passed, and retries failed
+ * writes with exponential backoff and jitter.
+ * <p>
+ * When the buffer is full, or a batch exhausts its retries, lines are either dropped or appended
+ * to a spill file (bounded by {@code spillMaxBytes}). The spill file, including one left behind by
+ * a previous process, is replayed one batch at a time, taking turns with live batches; a replayed
+ * batch that fails is kept and tried again on the next turn.
+ * Meters:
+ * <ul>
+ * <li>{@code analytics.influx.writer.queue.depth}: lines waiting in the buffer</li>
+ * <li>{@code analytics.influx.writer.written}: lines accepted by InfluxDB</li>
+ * <li>{@code analytics.influx.writer.dropped}: lines lost, tagged by reason (overflow, write-failure)</li>
+ * <li>{@code analytics.influx.writer.spilled}: lines written to the spill file</li>
+ * <li>{@code analytics.influx.writer.flush}: time per batch write, retries included</li>
+ * </ul>
+ */
+@Slf4j
+public class InfluxBatchWriter implements AutoCloseable {
+
+	public enum Overflow {
+		DROP,
+		SPILL
+	}
+
+	/**
+	 * Destination for a batch of newline-separated line-protocol records.
+	 */
+	@FunctionalInterface
+	public interface LineProtocolSink {
+		void write(String lines) throws Exception;
+	}
+
+	public record Settings(int bufferCapacity, int batchSize, long flushIntervalMs, int maxRetries, long retryBaseDelayMs,
+			Overflow overflow, Path spillDir, long spillMaxBytes) {
+	}
+
+	private static final String SPILL_FILE = "influx-spill.lp";
+	private static final String REPLAY_FILE = "influx-spill.replay";
+
+	private final LineProtocolSink sink;
+	private final Settings settings;
+	private final BlockingQueue<String> buffer;
+	private final Thread flusher;
+	private volatile boolean running = true;
+
+	private final Counter written;
+	private final Counter droppedOverflow;
+	private final Counter droppedWriteFailure;
+	private final Counter spilled;
+	private final Timer flushTimer;
+
+	private final Object spillLock = new Object();
+	private OutputStream spillOut;
+	private long spillBytes;
+	private volatile boolean spillPending;
+
+	// Replay state, only touched by the flusher thread
+	private BufferedReader replayReader;
+	private final List<String> replayBatch = new ArrayList<>();
+	private boolean replayExhausted;
+
+	public InfluxBatchWriter(LineProtocolSink sink, Settings settings, MeterRegistry registry) {
+		this.sink = sink;
+		this.settings = settings;
+		this.buffer = new ArrayBlockingQueue<>(settings.bufferCapacity());
+
+		Gauge.builder("analytics.influx.writer.queue.depth", buffer, BlockingQueue::size)
+				.description("Line-protocol records waiting to be written")
+				.register(registry);
+		this.written = Counter.builder("analytics.influx.writer.written").register(registry);
+		this.droppedOverflow = Counter.builder("analytics.influx.writer.dropped").tag("reason", "overflow").register(registry);
+		this.droppedWriteFailure = Counter.builder("analytics.influx.writer.dropped").tag("reason", "write-failure").register(registry);
+		this.spilled = Counter.builder("analytics.influx.writer.spilled").register(registry);
+		this.flushTimer = Timer.builder("analytics.influx.writer.flush").register(registry);
+		this.spillPending = settings.overflow() == Overflow.SPILL && spillLeftOnDisk();
+
+		this.flusher = new Thread(this::run, "influx-writer");
+		this.flusher.setDaemon(true);
+		this.flusher.start();
+	}
+
+	/**
+	 * Enqueues one record without blocking.
+	 * @return false if the buffer was full and the record was dropped or spilled
+	 */
+	public boolean offer(String line) {
+		return offerAll(List.of(line)) == 1;
+	}
+
+	/**
+	 * Enqueues records in order without blocking until the buffer is full. The records that did not
+	 * fit are dropped or spilled together, so a caller pays for one spill file flush per call rather
+	 * than one per record.
+	 * @return how many records were enqueued
+	 */
+	public int offerAll(List<String> lines) {
+		int accepted = 0;
+		while (accepted < lines.size() && buffer.offer(lines.get(accepted))) {
+			accepted++;
+		}
+		if (accepted < lines.size()) {
+			overflow(lines.subList(accepted, lines.size()), droppedOverflow);
+		}
+		return accepted;
+	}
+
+	public int queueDepth() {
+		return buffer.size();
+	}
+
+	private void run() {
+		List<String> batch = new ArrayList<>(settings.batchSize());
+		while (running || !buffer.isEmpty()) {
+			try {
+				String first = buffer.poll(settings.flushIntervalMs(), TimeUnit.MILLISECONDS);
+				if (first == null) {
+					replayChunk();
+					continue;
+				}
+				batch.add(first);
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.flushIntervalMs());
+				while (batch.size() < settings.batchSize()) {
+					buffer.drainTo(batch, settings.batchSize() - batch.size());
+					long remaining = deadline - System.nanoTime();
+					if (batch.size() >= settings.batchSize() || remaining <= 0) {
+						break;
+					}
+					String next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+				// One spilled batch after every live one, so a backlog drains under steady load
+				// without live data ever waiting on more than a single batch
+				if (flush(batch)) {
+					replayChunk();
+				}
+			} catch (InterruptedException ex) {
+				// close() interrupts only to cut a backoff short; the loop drains what is left
+				Thread.interrupted();
+				if (!batch.isEmpty()) {
+					overflow(batch, droppedWriteFailure);
+				}
+			} finally {
+				batch.clear();
+			}
+		}
+		closeReplay();
+	}
+
+	/**
+	 * @return true if the batch was written, false if it was dropped or spilled
+	 */
+	private boolean flush(List<String> batch) throws InterruptedException {
+		String body = String.join("\n", batch);
+		long start = System.nanoTime();
+		try {
+			for (int attempt = 0;; attempt++) {
+				try {
+					sink.write(body);
+					written.increment(batch.size());
+					return true;
+				} catch (Exception ex) {
+					if (attempt >= settings.maxRetries() || !running) {
+						log.warn("Giving up on {} InfluxDB records after {} attempts", batch.size(), attempt + 1, ex);
+						overflow(batch, droppedWriteFailure);
+						return false;
+					}
+					long backoff = settings.retryBaseDelayMs() << Math.min(attempt, 10);
+					Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff + 1));
+				}
+			}
+		} finally {
+			flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private void overflow(Collection<String> lines, Counter dropped) {
+		int spilledLines = settings.overflow() == Overflow.SPILL ? spill(lines) : 0;
+		spilled.increment(spilledLines);
+		dropped.increment(lines.size() - spilledLines);
+	}
+
+	/**
+	 * Appends lines until {@code spillMaxBytes} of UTF-8 is reached, flushing once per call so a
+	 * crash loses at most the batch being spilled.
+	 * @return how many of the lines were spilled, in order from the first
+	 */
+	private int spill(Collection<String> lines) {
+		int count = 0;
+		synchronized (spillLock) {
+			try {
+				if (spillOut == null) {
+					Files.createDirectories(settings.spillDir());
+					Path file = settings.spillDir().resolve(SPILL_FILE);
+					spillBytes = Files.exists(file) ? Files.size(file) : 0;
+					spillOut = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+				}
+				for (String line : lines) {
+					byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+					if (spillBytes + bytes.length + 1 > settings.spillMaxBytes()) {
+						break;
+					}
+					spillOut.write(bytes);
+					spillOut.write('\n');
+					spillBytes += bytes.length + 1;
+					count++;
+				}
+				spillOut.flush();
+			} catch (IOException ex) {
+				log.error("Cannot spill InfluxDB records to {}", settings.spillDir(), ex);
+			}
+		}
+		if (count > 0) {
+			spillPending = true;
+		}
+		return count;
+	}
+
+	private boolean spillLeftOnDisk() {
+		try {
+			Path spill = settings.spillDir().resolve(SPILL_FILE);
+			return Files.exists(settings.spillDir().resolve(REPLAY_FILE)) || (Files.exists(spill) && Files.size(spill) > 0);
+		} catch (IOException ex) {
+			log.warn("Cannot inspect InfluxDB spill directory {}", settings.spillDir(), ex);
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the next batch of spilled lines, with a single attempt: a failed batch stays pending
+	 * and is tried again on the next turn instead of holding the flusher in backoff.
+	 */
+	private void replayChunk() {
+		if (replayBatch.isEmpty()) {
+			if (replayReader == null && !openReplay()) {
+				return;
+			}
+			try {
+				String line = null;
+				while (replayBatch.size() < settings.batchSize() && (line = replayReader.readLine()) != null) {
+					replayBatch.add(line);
+				}
+				replayExhausted = line == null;
+			} catch (IOException ex) {
+				log.error("Cannot replay InfluxDB spill file", ex);
+				replayExhausted = true;
+			}
+		}
+		if (!replayBatch.isEmpty()) {
+			long start = System.nanoTime();
+			try {
+				sink.write(String.join("\n", replayBatch));
+				written.increment(replayBatch.size());
+				replayBatch.clear();
+			} catch (Exception ex) {
+				log.debug("Replay of {} spilled InfluxDB records failed, retrying on the next turn", replayBatch.size(), ex);
+				return;
+			} finally {
+				flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			}
+		}
+		if (replayExhausted) {
+			finishReplay();
+		}
+	}
+
+	/**
+	 * Resumes a replay file left by a previous process, or rotates the spill file into one. Lines
+	 * of a replay interrupted by a restart are written again; InfluxDB overwrites identical points.
+	 */
+	private boolean openReplay() {
+		if (settings.overflow() != Overflow.SPILL || !spillPending) {
+			return false;
+		}
+		Path replay = settings.spillDir().resolve(REPLAY_FILE);
+		try {
+			if (!Files.exists(replay)) {
+				synchronized (spillLock) {
+					if (spillOut != null) {
+						spillOut.close();
+						spillOut = null;
+					}
+					spillBytes = 0;
+					spillPending = false;
+					Path spill = settings.spillDir().resolve(SPILL_FILE);
+					if (!Files.exists(spill)) {
+						return false;
+					}
+					Files.move(spill, replay, StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+			replayReader = Files.newBufferedReader(replay, StandardCharsets.UTF_8);
+			return true;
+		} catch (IOException ex) {
+			log.error("Cannot rotate InfluxDB spill file", ex);
+			return false;
+		}
+	}
+
+	private void finishReplay() {
+		closeReplay();
+		replayExhausted = false;
+		Path replay = settings.spillDir().resolve(REPLAY_FILE);
+		try {
+			Files.deleteIfExists(replay);
+		} catch (IOException ex) {
+			log.warn("Cannot delete replayed spill file {}", replay, ex);
+		}
+	}
+
+	private void closeReplay() {
+		if (replayReader != null) {
+			try {
+				replayReader.close();
+			} catch (IOException ex) {
+				log.warn("Cannot close InfluxDB replay file", ex);
+			}
+			replayReader = null;
+		}
+	}
+
+	/**
+	 * Stops accepting retries, drains the buffer and waits for the flusher up to {@code timeoutMs}.
+	 */
+	public void close(long timeoutMs) {
+		running = false;
+		flusher.interrupt();
+		try {
+			flusher.join(timeoutMs);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (spillLock) {
+			if (spillOut != null) {
+				try {
+					spillOut.close();
+				} catch (IOException ex) {
+					log.warn("Cannot close InfluxDB spill file", ex);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		close(10_000);
+	}
+
+}
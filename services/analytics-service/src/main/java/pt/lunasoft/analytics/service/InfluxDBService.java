@@ -1,5 +1,6 @@
 package pt.lunasoft.analytics.service;
 
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -17,17 +18,26 @@ import com.influxdb.client.domain.WritePrecision;
 import com.influxdb.client.write.Point;
 import com.influxdb.query.FluxTable;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import pt.lunasoft.analytics.model.TimeSeriesDataPoint;
 
+/**
+ * Writes go through an {@link InfluxBatchWriter}: callers only enqueue line protocol and return,
+ * while batching, retries and overload handling happen on the writer thread.
+ */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class InfluxDBService {
 
+	private final MeterRegistry meterRegistry;
+
 	@Value("${influxdb.url}")
 	private String url;
 
@@ -40,35 +50,60 @@ public class InfluxDBService {
 	@Value("${influxdb.bucket}")
 	private String bucket;
 
+	@Value("${influxdb.writer.buffer-capacity:100000}")
+	private int bufferCapacity;
+
+	@Value("${influxdb.writer.batch-size:5000}")
+	private int batchSize;
+
+	@Value("${influxdb.writer.flush-interval-ms:1000}")
+	private long flushIntervalMs;
+
+	@Value("${influxdb.writer.max-retries:5}")
+	private int maxRetries;
+
+	@Value("${influxdb.writer.retry-base-delay-ms:200}")
+	private long retryBaseDelayMs;
+
+	@Value("${influxdb.writer.overflow:drop}")
+	private String overflow;
+
+	@Value("${influxdb.writer.spill-dir:/tmp/finstream-influx-spill}")
+	private String spillDir;
+
+	@Value("${influxdb.writer.spill-max-bytes:268435456}")
+	private long spillMaxBytes;
+
 	private InfluxDBClient influxDBClient;
-	private WriteApiBlocking writeApi;
+	private InfluxBatchWriter writer;
 
 	@PostConstruct
 	public void init() {
 		influxDBClient = InfluxDBClientFactory.create(url, token.toCharArray(), organization, bucket);
-		writeApi = influxDBClient.getWriteApiBlocking();
+		WriteApiBlocking writeApi = influxDBClient.getWriteApiBlocking();
+		InfluxBatchWriter.Settings settings = new InfluxBatchWriter.Settings(bufferCapacity, batchSize, flushIntervalMs,
+				maxRetries, retryBaseDelayMs, InfluxBatchWriter.Overflow.valueOf(overflow.toUpperCase()), Path.of(spillDir), spillMaxBytes);
+		writer = new InfluxBatchWriter(lines -> writeApi.writeRecord(WritePrecision.MS, lines), settings, meterRegistry);
 		log.info("InfluxDB client initialized for bucket: {}", bucket);
 	}
 
 	@PreDestroy
 	public void cleanup() {
+		if (writer != null) {
+			writer.close();
+		}
 		if (influxDBClient != null) {
 			influxDBClient.close();
 		}
 	}
 
+	/**
+	 * Enqueues the point without waiting for InfluxDB; see {@link InfluxBatchWriter} for what
+	 * happens under overload.
+	 */
 	public void writeDataPoint(TimeSeriesDataPoint dataPoint) {
 		try {
-			Point point = Point.measurement(dataPoint.getMetric())
-					.time(dataPoint.getTimestamp(), WritePrecision.MS)
-					.addField("value", dataPoint.getValue().doubleValue());
-
-			if (dataPoint.getTags() != null) {
-				dataPoint.getTags().forEach(point::addTag);
-			}
-
-			writeApi.writePoint(point);
-			log.debug("Written data point: {}", dataPoint.getMetric());
+			writer.offer(toPoint(dataPoint).toLineProtocol());
 		} catch (Exception e) {
 			log.error("Error writing to InfluxDB", e);
 		}
@@ -76,27 +111,36 @@ public class InfluxDBService {
 
 	public void writeBatch(List<TimeSeriesDataPoint> dataPoints) {
 		try {
-			List<Point> points = dataPoints.stream()
-					.map(dp -> {
-						Point point = Point.measurement(dp.getMetric())
-								.time(dp.getTimestamp(), WritePrecision.MS)
-								.addField("value", dp.getValue().doubleValue());
-
-						if (dp.getTags() != null) {
-							dp.getTags().forEach(point::addTag);
-						}
-
-						return point;
-					})
-					.toList();
-
-			writeApi.writePoints(points);
-			log.debug("Written {} data points", points.size());
+			List<String> lines = new ArrayList<>(dataPoints.size());
+			for (TimeSeriesDataPoint dataPoint : dataPoints) {
+				lines.add(toPoint(dataPoint).toLineProtocol());
+			}
+			int rejected = lines.size() - writer.offerAll(lines);
+			if (rejected > 0) {
+				log.debug("InfluxDB write buffer full, {} of {} data points dropped or spilled", rejected, dataPoints.size());
+			}
 		} catch (Exception e) {
 			log.error("Error writing batch to InfluxDB", e);
 		}
 	}
 
+	private static Point toPoint(TimeSeriesDataPoint dataPoint) {
+		Point point = Point.measurement(dataPoint.getMetric())
+				.time(dataPoint.getTimestamp(), WritePrecision.MS);
+
+		if (dataPoint.getFields() != null) {
+			dataPoint.getFields().forEach(point::addField);
+		} else {
+			point.addField("value", dataPoint.getValue().doubleValue());
+		}
+
+		if (dataPoint.getTags() != null) {
+			dataPoint.getTags().forEach(point::addTag);
+		}
+
+		return point;
+	}
+
 	public List<TimeSeriesDataPoint> query(String flux) {
 		try {
 			List<FluxTable> tables = influxDBClient.getQueryApi().query(flux, organization);
@@ -1,127 +1,255 @@
 package pt.lunasoft.analytics.service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import jakarta.annotation.PreDestroy;
+
 import lombok.extern.slf4j.Slf4j;
 
 import pt.lunasoft.analytics.model.AccountMetrics;
 import pt.lunasoft.analytics.model.RealTimeMetrics;
-import pt.lunasoft.analytics.model.TimeSeriesDataPoint;
+import pt.lunasoft.analytics.sketch.TopK;
 import pt.lunasoft.models.Transaction;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class MetricsAggregationService {
 
-    private final InfluxDBService influxDBService;
+    private static final int TOP_K_CAPACITY = 64;
+    private static final int TOP_K_REPORTED = 10;
+    private static final int DISTINCT_PRECISION = 10;
+    private static final double QUANTILE_ACCURACY = 0.01;
+    private static final Duration REDIS_READ_TIMEOUT = Duration.ofSeconds(2);
+    private static final Duration FLUSH_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration METRICS_TTL = Duration.ofHours(24);
+
+    private final RollupService rollupService;
     private final ReactiveRedisTemplate<String, AccountMetrics> redisTemplate;
+    private final ReactiveRedisTemplate<String, byte[]> sketchRedisTemplate;
 
-    private final Map<String, AccountMetrics> accountMetricsCache = new ConcurrentHashMap<>();
+    // Bounded: least recently used accounts are dropped, and reloaded from Redis when next seen
+    private final Cache<String, AccountAccumulator> accountMetricsCache;
+    // Accounts changed since their last Redis write
+    private final Set<String> dirtyAccounts = ConcurrentHashMap.newKeySet();
+    // Dirty accounts the cache evicted, written by the next flush
+    private final Map<String, AccountAccumulator> evictedUnflushed = new ConcurrentHashMap<>();
+    private final int flushPipelineDepth;
     private final AtomicLong globalTransactionCount = new AtomicLong(0);
     private final AtomicLong globalFraudCount = new AtomicLong(0);
 
-    public void processTransaction(Transaction transaction) {
-        // Update account metrics
-        updateAccountMetrics(transaction);
+    // Heavy hitters over all traffic; guarded by their own monitors, taken once per batch
+    private final TopK topMerchants = new TopK(TOP_K_CAPACITY);
+    private final TopK topCountries = new TopK(TOP_K_CAPACITY);
 
-        // Write to time series database
-        writeTimeSeriesData(transaction);
+    public MetricsAggregationService(RollupService rollupService, ReactiveRedisTemplate<String, AccountMetrics> redisTemplate,
+            ReactiveRedisTemplate<String, byte[]> sketchRedisTemplate,
+            @Value("${app.analytics.account-cache.max-size:100000}") long maxAccounts,
+            @Value("${app.analytics.account-cache.expire-after-access:PT1H}") Duration expireAfterAccess,
+            @Value("${app.analytics.account-cache.flush-pipeline-depth:256}") int flushPipelineDepth) {
+        this.rollupService = rollupService;
+        this.redisTemplate = redisTemplate;
+        this.sketchRedisTemplate = sketchRedisTemplate;
+        this.flushPipelineDepth = flushPipelineDepth;
+        this.accountMetricsCache = Caffeine.newBuilder()
+                .maximumSize(maxAccounts)
+                .expireAfterAccess(expireAfterAccess)
+                .evictionListener((String accountId, AccountAccumulator accumulator, RemovalCause cause) -> {
+                    if (accumulator != null && dirtyAccounts.remove(accountId)) {
+                        evictedUnflushed.put(accountId, accumulator);
+                    }
+                })
+                .build();
+    }
 
-        // Update global counters
-        globalTransactionCount.incrementAndGet();
+    public void processTransaction(Transaction transaction) {
+        processBatch(List.of(transaction));
     }
 
-    private void updateAccountMetrics(Transaction transaction) {
-        String accountId = transaction.getAccountId();
-        
-        AccountMetrics metrics = accountMetricsCache.computeIfAbsent(
-                accountId, 
-                k -> AccountMetrics.builder()
-                        .accountId(accountId)
-                        .totalTransactions(0L)
-                        .totalSpending(BigDecimal.ZERO)
-                        .uniqueMerchants(0)
-                        .transactionsByType(new HashMap<>())
-                        .spendingByCategory(new HashMap<>())
-                        .fraudAlertsCount(0L)
-                        .fraudRate(0.0)
-                        .build()
-        );
-
-        // Update metrics
-        metrics.setTotalTransactions(metrics.getTotalTransactions() + 1);
-        metrics.setTotalSpending(metrics.getTotalSpending().add(transaction.getAmount()));
-        metrics.setAverageTransactionAmount(metrics.getTotalSpending().divide(new BigDecimal(metrics.getTotalTransactions()), 2, RoundingMode.HALF_UP));
-
-        // Update transaction type count
-        String type = transaction.getType().toString();
-        metrics.getTransactionsByType().merge(type, 1L, Long::sum);
-
-        // Update spending by category
-        if (transaction.getMerchantCategory() != null) {
-            metrics.getSpendingByCategory().merge(
-                    transaction.getMerchantCategory(), 
-                    transaction.getAmount(), 
-                    BigDecimal::add
-            );
+    /**
+     * Folds a micro-batch into the in-memory state and marks the accounts it touched as dirty; Redis
+     * is written by {@link #flushDirty()}, not here. Nothing is written to InfluxDB per transaction;
+     * {@link RollupService} writes the windowed rollups. Safe to call from several consumer threads
+     * at once.
+     */
+    public void processBatch(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
         }
 
-        metrics.setLastUpdated(Instant.now());
+        restoreEvicted(transactions);
+
+        Instant now = Instant.now();
+        for (Transaction transaction : transactions) {
+            accountMetricsCache.get(transaction.getAccountId(), accountId -> new AccountAccumulator(accountId, DISTINCT_PRECISION, QUANTILE_ACCURACY))
+                    .add(transaction, now);
+            // Marked after the update, so a flush that has already cleared the mark picks it up next time
+            dirtyAccounts.add(transaction.getAccountId());
+            rollupService.add(transaction);
+        }
 
-        // Persist to Redis asynchronously
-        persistToRedis(accountId, metrics).subscribe();
+        synchronized (topMerchants) {
+            transactions.forEach(transaction -> topMerchants.add(transaction.getMerchant()));
+        }
+        synchronized (topCountries) {
+            transactions.forEach(transaction -> topCountries.add(transaction.getLocation() != null ? transaction.getLocation().getCountry() : null));
+        }
+
+        // Update global counters
+        globalTransactionCount.addAndGet(transactions.size());
     }
 
-    private void writeTimeSeriesData(Transaction transaction) {
-        TimeSeriesDataPoint dataPoint = TimeSeriesDataPoint.builder()
-                .metric("transaction")
-                .value(transaction.getAmount())
-                .timestamp(transaction.getTimestamp())
-                .tags(Map.of(
-                        "account_id", transaction.getAccountId(),
-                        "type", transaction.getType().toString(),
-                        "currency", transaction.getCurrency(),
-                        "merchant_category", transaction.getMerchantCategory() != null ? transaction.getMerchantCategory() : "unknown"))
-                .build();
+    // One MGET per batch for accounts not in memory, so an evicted account resumes rather than restarts from zero
+    private void restoreEvicted(List<Transaction> transactions) {
+        List<String> missing = transactions.stream()
+                .map(Transaction::getAccountId)
+                .distinct()
+                .filter(accountId -> accountMetricsCache.getIfPresent(accountId) == null)
+                .filter(accountId -> !resumeUnflushed(accountId))
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Tuple2<List<AccountMetrics>, List<byte[]>> stored;
+        try {
+            stored = Mono.zip(
+                    redisTemplate.opsForValue().multiGet(missing.stream().map(MetricsAggregationService::redisKey).toList()),
+                    sketchRedisTemplate.opsForValue().multiGet(missing.stream().map(MetricsAggregationService::sketchKey).toList()))
+                    .block(REDIS_READ_TIMEOUT);
+        } catch (Exception e) {
+            log.warn("Failed to restore metrics from Redis for {} accounts, starting them empty", missing.size(), e);
+            return;
+        }
+        for (int i = 0; stored != null && i < missing.size(); i++) {
+            AccountMetrics metrics = stored.getT1().get(i);
+            byte[] sketches = stored.getT2().get(i);
+            if (metrics != null) {
+                accountMetricsCache.get(missing.get(i), accountId -> AccountAccumulator.restore(metrics, sketches, DISTINCT_PRECISION, QUANTILE_ACCURACY));
+            }
+        }
+    }
 
-        influxDBService.writeDataPoint(dataPoint);
+    // An account evicted before its last changes were flushed resumes from those, not from Redis
+    private boolean resumeUnflushed(String accountId) {
+        AccountAccumulator unflushed = evictedUnflushed.remove(accountId);
+        if (unflushed == null) {
+            return false;
+        }
+        accountMetricsCache.get(accountId, id -> unflushed);
+        dirtyAccounts.add(accountId);
+        return true;
     }
 
+    /**
+     * A copy of the account's metrics; later updates do not show through it.
+     */
     public Mono<AccountMetrics> getAccountMetrics(String accountId) {
         // Try cache first
-        AccountMetrics cached = accountMetricsCache.get(accountId);
+        AccountAccumulator cached = accountMetricsCache.getIfPresent(accountId);
         if (cached != null) {
-            return Mono.just(cached);
+            return Mono.fromSupplier(cached::snapshot);
         }
 
-        // Fallback to Redis
-        return redisTemplate.opsForValue()
-                .get("account:metrics:" + accountId)
-                .doOnNext(metrics -> accountMetricsCache.put(accountId, metrics));
+        // Fallback to Redis; an accumulator created meanwhile by the consumer wins over the restored one
+        return Mono.zip(
+                        redisTemplate.opsForValue().get(redisKey(accountId)),
+                        sketchRedisTemplate.opsForValue().get(sketchKey(accountId)).defaultIfEmpty(new byte[0]))
+                .map(stored -> accountMetricsCache
+                        .get(accountId, id -> AccountAccumulator.restore(stored.getT1(), stored.getT2(), DISTINCT_PRECISION, QUANTILE_ACCURACY))
+                        .snapshot());
     }
 
-    private Mono<Boolean> persistToRedis(String accountId, AccountMetrics metrics) {
-        return redisTemplate.opsForValue()
-                .set("account:metrics:" + accountId, metrics, Duration.ofHours(24))
-                .doOnSuccess(success -> log.debug("Persisted metrics for account: {}", accountId))
-                .onErrorResume(error -> {
-                    log.error("Failed to persist metrics to Redis", error);
-                    return Mono.just(false);
-                });
+    /**
+     * Writes one snapshot per account changed since the last flush, however many transactions it
+     * saw, so Redis load follows the number of active accounts rather than the transaction rate.
+     * The metrics JSON and the account's sketches go to separate keys.
+     * The writes share one connection with up to {@code flush-pipeline-depth} in flight, which
+     * Lettuce pipelines. Runs on a fixed delay and waits for its writes, so a change reaches Redis
+     * within {@code flush-interval-ms} plus one flush; accounts whose write failed are retried on
+     * the next flush. Waits up to 30 seconds, so it needs a scheduler thread of its own
+     * ({@code spring.task.scheduling.pool.size}) to not delay the rollup flush.
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.account-cache.flush-interval-ms:1000}")
+    public void flushDirty() {
+        Map<String, AccountSnapshot> snapshots = new HashMap<>();
+        for (String accountId : evictedUnflushed.keySet()) {
+            AccountAccumulator evicted = evictedUnflushed.remove(accountId);
+            if (evicted != null) {
+                snapshots.put(accountId, new AccountSnapshot(evicted.snapshot(), evicted.sketches()));
+            }
+        }
+        for (String accountId : dirtyAccounts) {
+            // Cleared before the snapshot, so an update racing with it marks the account again
+            dirtyAccounts.remove(accountId);
+            AccountAccumulator accumulator = accountMetricsCache.getIfPresent(accountId);
+            if (accumulator != null) {
+                snapshots.put(accountId, new AccountSnapshot(accumulator.snapshot(), accumulator.sketches()));
+            }
+        }
+        if (snapshots.isEmpty()) {
+            return;
+        }
+
+        try {
+            persistToRedis(snapshots).block(FLUSH_TIMEOUT);
+        } catch (Exception e) {
+            log.error("Failed to persist metrics for {} accounts to Redis", snapshots.size(), e);
+            dirtyAccounts.addAll(snapshots.keySet());
+        }
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        flushDirty();
+    }
+
+    private Mono<Void> persistToRedis(Map<String, AccountSnapshot> metricsByAccount) {
+        return Flux.fromIterable(metricsByAccount.entrySet())
+                .flatMap(entry -> Mono.when(
+                                redisTemplate.opsForValue().set(redisKey(entry.getKey()), entry.getValue().metrics(), METRICS_TTL),
+                                sketchRedisTemplate.opsForValue().set(sketchKey(entry.getKey()), entry.getValue().sketches(), METRICS_TTL))
+                        .onErrorResume(error -> {
+                            log.error("Failed to persist metrics to Redis for account: {}", entry.getKey(), error);
+                            dirtyAccounts.add(entry.getKey());
+                            return Mono.empty();
+                        }), flushPipelineDepth)
+                .then()
+                .doOnSuccess(done -> log.debug("Persisted metrics for {} accounts", metricsByAccount.size()));
+    }
+
+    int dirtyAccounts() {
+        return dirtyAccounts.size() + evictedUnflushed.size();
+    }
+
+    private static String redisKey(String accountId) {
+        return "account:metrics:" + accountId;
+    }
+
+    private static String sketchKey(String accountId) {
+        return "account:sketches:" + accountId;
+    }
+
+    private record AccountSnapshot(AccountMetrics metrics, byte[] sketches) {
     }
 
     public RealTimeMetrics getGlobalMetrics() {
@@ -129,10 +257,18 @@ public class MetricsAggregationService {
                 .totalTransactions(globalTransactionCount.get())
                 .fraudAlertsCount(globalFraudCount.get())
                 .fraudRate(calculateFraudRate())
+                .topMerchants(top(topMerchants))
+                .transactionsByCountry(top(topCountries))
                 .timestamp(Instant.now())
                 .build();
     }
 
+    private static Map<String, Long> top(TopK sketch) {
+        synchronized (sketch) {
+            return sketch.top(TOP_K_REPORTED);
+        }
+    }
+
     private Double calculateFraudRate() {
         long total = globalTransactionCount.get();
         long fraud = globalFraudCount.get();
@@ -0,0 +1,189 @@
+package pt.lunasoft.analytics.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import pt.lunasoft.analytics.model.TimeSeriesDataPoint;
+import pt.lunasoft.analytics.rollup.AccountRollupKey;
+import pt.lunasoft.analytics.rollup.RollupKey;
+import pt.lunasoft.analytics.rollup.RollupResolution;
+import pt.lunasoft.analytics.rollup.RollupStats;
+import pt.lunasoft.models.Transaction;
+
+/**
+ * Pre-aggregates transactions into event-time windows so InfluxDB only receives rollups:
+ * <ul>
+ * <li>{@code transaction_1s}, {@code transaction_1m}, {@code transaction_5m}: count, sum, min, max
+ * and p50/p95/p99, tagged by type, currency and merchant category only; the 1m and 5m points also
+ * carry the bucket counts of the percentile sketch (see {@link RollupStats})</li>
+ * <li>{@code account_transaction_1m}: count, sum, min and max per account, only when
+ * {@code app.analytics.rollup.account-detail.enabled} is set, since it adds a series per active
+ * account</li>
+ * </ul>
+ * Every point carries an {@code instance} tag, since each instance only sees its own partitions
+ * and two instances writing the same series and timestamp would overwrite each other; queries sum
+ * across it. The p50/p95/p99 fields only hold for one instance and window; percentiles across
+ * either are merged from the bucket counts.
+ * <p>
+ * Windows close on event time: a window is written once the latest event time seen is
+ * {@code app.analytics.rollup.grace-ms} past its end, so consumer lag delays rollups instead of
+ * dropping them. With no events for {@code app.analytics.rollup.idle-timeout-ms} the watermark
+ * follows the wall clock instead. Transactions for a window already written are counted as
+ * {@code analytics.rollup.late} and left out, since a second point with the same series and
+ * timestamp would overwrite the first.
+ */
+@Service
+@Slf4j
+public class RollupService {
+
+	static final String ACCOUNT_MEASUREMENT = "account_transaction_1m";
+	private static final long ACCOUNT_WINDOW_MS = RollupResolution.MINUTE.sizeMs();
+
+	private final InfluxDBService influxDBService;
+	private final long graceMs;
+	private final long idleTimeoutMs;
+	private final boolean accountDetail;
+	private final String instanceId;
+
+	private final Map<RollupKey, RollupStats> rollups = new ConcurrentHashMap<>();
+	private final Map<AccountRollupKey, RollupStats> accountRollups = new ConcurrentHashMap<>();
+	// Windows ending at or before this instant have been written
+	private volatile long watermark = Long.MIN_VALUE;
+	// Latest event time seen, capped at the wall clock so a skewed client cannot close windows early
+	private final AtomicLong maxEventTime = new AtomicLong(Long.MIN_VALUE);
+	private volatile long lastEventAt = System.currentTimeMillis();
+
+	private final Counter lateCounter;
+	private final Counter pointsCounter;
+
+	public RollupService(InfluxDBService influxDBService, MeterRegistry meterRegistry,
+			@Value("${app.analytics.rollup.grace-ms:2000}") long graceMs,
+			@Value("${app.analytics.rollup.idle-timeout-ms:30000}") long idleTimeoutMs,
+			@Value("${app.analytics.rollup.account-detail.enabled:false}") boolean accountDetail,
+			@Value("${app.analytics.rollup.instance-id:${HOSTNAME:}}") String instanceId) {
+		this.influxDBService = influxDBService;
+		this.graceMs = graceMs;
+		this.idleTimeoutMs = idleTimeoutMs;
+		this.accountDetail = accountDetail;
+		this.instanceId = instanceId.isBlank() ? UUID.randomUUID().toString() : instanceId;
+		this.lateCounter = Counter.builder("analytics.rollup.late").description("Transactions that arrived after their window was written").register(meterRegistry);
+		this.pointsCounter = Counter.builder("analytics.rollup.points").description("Rollup points handed to the InfluxDB writer").register(meterRegistry);
+	}
+
+	public void add(Transaction transaction) {
+		long now = System.currentTimeMillis();
+		long eventTime = transaction.getTimestamp() != null ? transaction.getTimestamp().toEpochMilli() : now;
+		maxEventTime.accumulateAndGet(Math.min(eventTime, now), Math::max);
+		lastEventAt = now;
+		double amount = transaction.getAmount().doubleValue();
+		String type = transaction.getType().toString();
+		String category = transaction.getMerchantCategory() != null ? transaction.getMerchantCategory() : "unknown";
+
+		for (RollupResolution resolution : RollupResolution.values()) {
+			RollupKey key = new RollupKey(resolution, resolution.windowStart(eventTime), type, transaction.getCurrency(), category);
+			rollups.compute(key, (k, stats) -> accumulate(k.windowEnd(), stats, amount, true));
+		}
+		if (accountDetail) {
+			AccountRollupKey key = new AccountRollupKey(transaction.getAccountId(), eventTime - Math.floorMod(eventTime, ACCOUNT_WINDOW_MS), ACCOUNT_WINDOW_MS);
+			accountRollups.compute(key, (k, stats) -> accumulate(k.windowEnd(), stats, amount, false));
+		}
+	}
+
+	// Runs under the map's lock for the key, so the watermark check cannot race with flush() removing it
+	private RollupStats accumulate(long windowEnd, RollupStats stats, double amount, boolean percentiles) {
+		if (windowEnd <= watermark) {
+			lateCounter.increment();
+			return stats;
+		}
+		RollupStats current = stats != null ? stats : (percentiles ? RollupStats.withPercentiles() : RollupStats.basic());
+		current.add(amount);
+		return current;
+	}
+
+	@Scheduled(fixedDelayString = "${app.analytics.rollup.flush-interval-ms:1000}")
+	public void flush() {
+		flush(Instant.now());
+	}
+
+	/**
+	 * Writes and forgets every window that ended more than the grace period before the latest event
+	 * time, or before {@code now} once no event arrived for the idle timeout.
+	 */
+	public void flush(Instant now) {
+		long eventTime = now.toEpochMilli() - lastEventAt >= idleTimeoutMs ? now.toEpochMilli() : maxEventTime.get();
+		if (eventTime == Long.MIN_VALUE) {
+			return;
+		}
+		// Never moves back, or windows already written would be accepted and written again
+		long cutoff = Math.max(watermark, eventTime - graceMs);
+		watermark = cutoff;
+		writeWindowsEndingBy(cutoff);
+	}
+
+	/**
+	 * Writes every open window on shutdown; the partitions move to another instance, which starts
+	 * its own windows under its own {@code instance} tag.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		watermark = Long.MAX_VALUE;
+		writeWindowsEndingBy(Long.MAX_VALUE);
+	}
+
+	private void writeWindowsEndingBy(long cutoff) {
+		List<TimeSeriesDataPoint> points = new ArrayList<>();
+		for (RollupKey key : rollups.keySet()) {
+			if (key.windowEnd() <= cutoff) {
+				RollupStats stats = rollups.remove(key);
+				if (stats != null) {
+					points.add(toDataPoint(key.resolution().measurement(), key.windowStart(), stats.toFields(key.resolution().sketchBuckets()), Map.of(
+							"type", key.type(),
+							"currency", key.currency(),
+							"merchant_category", key.merchantCategory(),
+							"instance", instanceId)));
+				}
+			}
+		}
+		for (AccountRollupKey key : accountRollups.keySet()) {
+			if (key.windowEnd() <= cutoff) {
+				RollupStats stats = accountRollups.remove(key);
+				if (stats != null) {
+					points.add(toDataPoint(ACCOUNT_MEASUREMENT, key.windowStart(), stats.toFields(), Map.of("account_id", key.accountId(), "instance", instanceId)));
+				}
+			}
+		}
+
+		if (!points.isEmpty()) {
+			influxDBService.writeBatch(points);
+			pointsCounter.increment(points.size());
+			log.debug("Flushed {} rollup points", points.size());
+		}
+	}
+
+	public int openWindows() {
+		return rollups.size() + accountRollups.size();
+	}
+
+	private static TimeSeriesDataPoint toDataPoint(String measurement, long windowStart, Map<String, Double> fields, Map<String, String> tags) {
+		return TimeSeriesDataPoint.builder()
+				.metric(measurement)
+				.timestamp(Instant.ofEpochMilli(windowStart))
+				.fields(fields)
+				.tags(tags)
+				.build();
+	}
+
+}
@@ -0,0 +1,189 @@
+package pt.lunasoft.analytics.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyWindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import pt.lunasoft.analytics.model.TransactionStats;
+import pt.lunasoft.analytics.streams.StatsAggregate;
+import pt.lunasoft.analytics.streams.TransactionAnalyticsTopology;
+import pt.lunasoft.analytics.streams.WindowSketches;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reads the windowed aggregates straight from the Kafka Streams state stores. A key lives on the
+ * instance that owns its partition: local keys are served from memory, other keys are forwarded
+ * to the owner advertised in the streams metadata ({@code application.server}).
+ * <p>
+ * While ownership is unknown (rebalancing) or the stores are not ready the answer is 503 with a
+ * {@code Retry-After} header. A forwarded query that fails on the owner is 502, one that does not
+ * answer within {@code app.analytics.interactive-queries.forward-timeout-ms} is 504.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WindowStoreQueryService {
+
+	static final String PATH = "/api/v1/analytics/windows/{store}/{key}";
+
+	private final StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+	private final WebClient.Builder webClientBuilder;
+
+	@Value("${app.analytics.interactive-queries.host:localhost}")
+	private String host;
+
+	@Value("${server.port:8082}")
+	private int port;
+
+	@Value("${app.analytics.window.size-minutes}")
+	private int windowSizeMinutes;
+
+	@Value("${app.analytics.interactive-queries.forward-timeout-ms:2000}")
+	private long forwardTimeoutMs;
+
+	@Value("${app.analytics.interactive-queries.retry-after-seconds:5}")
+	private long retryAfterSeconds;
+
+	/**
+	 * @param localOnly answer from this instance's stores without consulting the metadata; set on
+	 * forwarded requests so a stale ownership view cannot bounce a request between instances
+	 */
+	public Mono<List<TransactionStats>> fetch(String store, String key, Instant from, Instant to, boolean localOnly) {
+		Duration windowSize = windowSize(store);
+		KafkaStreams streams = streamsBuilderFactoryBean.getKafkaStreams();
+		if (streams == null || !streams.state().isRunningOrRebalancing()) {
+			return Mono.error(retryLater("Kafka Streams is not running", null));
+		}
+
+		if (!localOnly) {
+			KeyQueryMetadata metadata = streams.queryMetadataForKey(store, key, Serdes.String().serializer());
+			HostInfo owner = metadata.activeHost();
+			if (owner.equals(HostInfo.unavailable())) {
+				return Mono.error(retryLater("Owner of " + store + " key " + key + " is not known yet", null));
+			}
+			if (!isLocal(owner)) {
+				return fetchRemote(owner, store, key, from, to);
+			}
+		}
+
+		return Mono.fromCallable(() -> {
+			ReadOnlyWindowStore<String, StatsAggregate> windowStore = streams.store(
+					StoreQueryParameters.fromNameAndType(store, QueryableStoreTypes.windowStore()));
+			ReadOnlyWindowStore<String, WindowSketches> sketchStore = streams.store(
+					StoreQueryParameters.fromNameAndType(TransactionAnalyticsTopology.SKETCH_STORES.get(store), QueryableStoreTypes.windowStore()));
+			return readWindows(windowStore, sketchStore, store, key, from, to, windowSize);
+		}).onErrorMap(InvalidStateStoreException.class, ex -> retryLater("Store " + store + " is not queryable yet", ex));
+	}
+
+	/**
+	 * Each window's estimates come from the sketch store, one point lookup per window; a window
+	 * whose sketches have not been merged yet has none.
+	 */
+	static List<TransactionStats> readWindows(ReadOnlyWindowStore<String, StatsAggregate> store, ReadOnlyWindowStore<String, WindowSketches> sketchStore,
+			String storeName, String key, Instant from, Instant to, Duration windowSize) {
+		List<TransactionStats> windows = new ArrayList<>();
+		try (WindowStoreIterator<StatsAggregate> iterator = store.fetch(key, from, to)) {
+			iterator.forEachRemaining(entry -> {
+				TransactionStats stats = entry.value.toStats();
+				WindowSketches sketches = sketchStore.fetch(key, entry.key);
+				if (sketches != null) {
+					sketches.fill(stats);
+				}
+				stats.setWindowStart(Instant.ofEpochMilli(entry.key));
+				stats.setWindowEnd(stats.getWindowStart().plus(windowSize));
+				if (TransactionAnalyticsTopology.ACCOUNT_STATS_STORE.equals(storeName)) {
+					stats.setAccountId(key);
+				} else if (TransactionAnalyticsTopology.CATEGORY_STATS_STORE.equals(storeName)) {
+					stats.setMerchantCategory(key);
+				}
+				windows.add(stats);
+			});
+		}
+		return windows;
+	}
+
+	private Mono<List<TransactionStats>> fetchRemote(HostInfo owner, String store, String key, Instant from, Instant to) {
+		log.debug("Forwarding {} query for key {} to {}:{}", store, key, owner.host(), owner.port());
+		return webClientBuilder.build()
+				.get()
+				.uri(uri -> uri.scheme("http").host(owner.host()).port(owner.port()).path(PATH)
+						.queryParam("from", from)
+						.queryParam("to", to)
+						.queryParam("local", true)
+						.build(Map.of("store", store, "key", key)))
+				.retrieve()
+				.bodyToFlux(TransactionStats.class)
+				.collectList()
+				.timeout(Duration.ofMillis(forwardTimeoutMs))
+				.onErrorMap(TimeoutException.class, ex -> new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+						"No answer from " + owner.host() + ":" + owner.port() + " within " + forwardTimeoutMs + " ms", ex))
+				.onErrorMap(WebClientException.class, ex -> isUnavailable(ex)
+						? retryLater("Owner " + owner.host() + ":" + owner.port() + " is not ready", ex)
+						: new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Query forwarded to " + owner.host() + ":" + owner.port() + " failed", ex));
+	}
+
+	// The owner answering 503 is rebalancing too, which the caller should retry like a local 503
+	private static boolean isUnavailable(WebClientException ex) {
+		return ex instanceof WebClientResponseException response && response.getStatusCode().value() == HttpStatus.SERVICE_UNAVAILABLE.value();
+	}
+
+	private ResponseStatusException retryLater(String reason, Throwable cause) {
+		return new RetryLaterException(reason, cause, retryAfterSeconds);
+	}
+
+	private boolean isLocal(HostInfo hostInfo) {
+		return hostInfo.host().equals(host) && hostInfo.port() == port;
+	}
+
+	private Duration windowSize(String store) {
+		return switch (store) {
+			case TransactionAnalyticsTopology.ACCOUNT_STATS_STORE, TransactionAnalyticsTopology.CATEGORY_STATS_STORE -> Duration.ofMinutes(windowSizeMinutes);
+			case TransactionAnalyticsTopology.GLOBAL_STATS_STORE -> Duration.ofMinutes(1);
+			default -> throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown window store: " + store);
+		};
+	}
+
+	/**
+	 * 503 with a {@code Retry-After} header; a plain {@link ResponseStatusException} carries no headers.
+	 */
+	static final class RetryLaterException extends ResponseStatusException {
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		RetryLaterException(String reason, Throwable cause, long retryAfterSeconds) {
+			super(HttpStatus.SERVICE_UNAVAILABLE, reason, cause);
+			headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return headers;
+		}
+
+	}
+
+}
@@ -0,0 +1,130 @@
+package pt.lunasoft.analytics.sketch;
+
+import java.nio.ByteBuffer;
+
+/**
+ * HyperLogLog distinct counter: 2^precision one-byte registers, a standard error of about
+ * {@code 1.04 / sqrt(2^precision)} (3.3% at precision 10, 1.6% at 12) whatever the number of
+ * distinct values. Merging takes the register-wise maximum, so it is exact with respect to
+ * counting the union.
+ * <p>
+ * Serializes sparse (index and value of each set register) while that is smaller than the dense
+ * register array, so a sketch that saw few values stays a few bytes in state stores and Redis.
+ */
+public class HyperLogLog {
+
+	private static final byte DENSE = 0;
+	private static final byte SPARSE = 1;
+
+	private final int precision;
+	private final byte[] registers;
+
+	public HyperLogLog(int precision) {
+		if (precision < 4 || precision > 16) {
+			throw new IllegalArgumentException("Precision must be between 4 and 16");
+		}
+		this.precision = precision;
+		this.registers = new byte[1 << precision];
+	}
+
+	public void add(String value) {
+		if (value == null) {
+			return;
+		}
+		long hash = hash(value);
+		int index = (int) (hash >>> (64 - precision));
+		int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+		if (rank > registers[index]) {
+			registers[index] = (byte) rank;
+		}
+	}
+
+	public HyperLogLog merge(HyperLogLog other) {
+		if (precision != other.precision) {
+			throw new IllegalArgumentException("Cannot merge sketches with different precision");
+		}
+		for (int i = 0; i < registers.length; i++) {
+			if (other.registers[i] > registers[i]) {
+				registers[i] = other.registers[i];
+			}
+		}
+		return this;
+	}
+
+	public long estimate() {
+		int m = registers.length;
+		double sum = 0;
+		int zeros = 0;
+		for (byte register : registers) {
+			sum += 1.0 / (1L << register);
+			if (register == 0) {
+				zeros++;
+			}
+		}
+		double alpha = switch (m) {
+			case 16 -> 0.673;
+			case 32 -> 0.697;
+			case 64 -> 0.709;
+			default -> 0.7213 / (1 + 1.079 / m);
+		};
+		double estimate = alpha * m * m / sum;
+		// Small range correction: linear counting while registers are still mostly empty
+		if (estimate <= 2.5 * m && zeros > 0) {
+			estimate = m * Math.log((double) m / zeros);
+		}
+		return Math.round(estimate);
+	}
+
+	public byte[] toBytes() {
+		int set = 0;
+		for (byte register : registers) {
+			if (register != 0) {
+				set++;
+			}
+		}
+		int sparseSize = 2 + Short.BYTES + set * 3;
+		if (sparseSize < 2 + registers.length) {
+			ByteBuffer buffer = ByteBuffer.allocate(sparseSize).put((byte) precision).put(SPARSE).putShort((short) set);
+			for (int i = 0; i < registers.length; i++) {
+				if (registers[i] != 0) {
+					buffer.putShort((short) i).put(registers[i]);
+				}
+			}
+			return buffer.array();
+		}
+		return ByteBuffer.allocate(2 + registers.length).put((byte) precision).put(DENSE).put(registers).array();
+	}
+
+	public static HyperLogLog fromBytes(byte[] bytes) {
+		return read(ByteBuffer.wrap(bytes));
+	}
+
+	static HyperLogLog read(ByteBuffer buffer) {
+		HyperLogLog sketch = new HyperLogLog(buffer.get());
+		if (buffer.get() == SPARSE) {
+			int set = Short.toUnsignedInt(buffer.getShort());
+			for (int i = 0; i < set; i++) {
+				sketch.registers[Short.toUnsignedInt(buffer.getShort())] = buffer.get();
+			}
+		} else {
+			buffer.get(sketch.registers);
+		}
+		return sketch;
+	}
+
+	// FNV-1a over the UTF-16 chars, then the MurmurHash3 finalizer to spread the bits
+	static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+}
@@ -0,0 +1,151 @@
+package pt.lunasoft.analytics.sketch;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Log-bucketed quantile sketch with bounded relative error (the DDSketch scheme): each positive
+ * value lands in bucket {@code ceil(log_gamma(v))}, so any quantile is answered within
+ * {@code relativeAccuracy} of the true value. Memory grows with the spread of the data, not with
+ * the number of values, and is capped at {@value #MAX_BUCKETS} buckets by folding the lowest ones
+ * together, which only costs accuracy on the smallest values.
+ * <p>
+ * Sketches with the same accuracy merge exactly. Serializes to a compact binary form for state
+ * stores and Redis, and exposes its bucket counts for stores that keep them as plain counters.
+ */
+public class QuantileSketch {
+
+	static final int MAX_BUCKETS = 2048;
+
+	private final double relativeAccuracy;
+	private final double gamma;
+	private final double logGamma;
+	private final Map<Integer, Long> buckets = new HashMap<>();
+	private long zeroCount;
+	private long count;
+
+	public QuantileSketch(double relativeAccuracy) {
+		this.relativeAccuracy = relativeAccuracy;
+		this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+		this.logGamma = Math.log(gamma);
+	}
+
+	public void add(double value) {
+		count++;
+		if (value <= 0) {
+			zeroCount++;
+			return;
+		}
+		buckets.merge((int) Math.ceil(Math.log(value) / logGamma), 1L, Long::sum);
+		if (buckets.size() > MAX_BUCKETS) {
+			collapseLowest();
+		}
+	}
+
+	public QuantileSketch merge(QuantileSketch other) {
+		if (Double.compare(relativeAccuracy, other.relativeAccuracy) != 0) {
+			throw new IllegalArgumentException("Cannot merge sketches with different accuracy");
+		}
+		count += other.count;
+		zeroCount += other.zeroCount;
+		other.buckets.forEach((index, bucketCount) -> buckets.merge(index, bucketCount, Long::sum));
+		while (buckets.size() > MAX_BUCKETS) {
+			collapseLowest();
+		}
+		return this;
+	}
+
+	public long count() {
+		return count;
+	}
+
+	public long zeroCount() {
+		return zeroCount;
+	}
+
+	/**
+	 * @return count per bucket index, values at or below zero excluded
+	 */
+	public Map<Integer, Long> buckets() {
+		return Collections.unmodifiableMap(buckets);
+	}
+
+	/**
+	 * Adds counts read back from an external copy of {@link #buckets()} and {@link #zeroCount()},
+	 * written by a sketch with the same accuracy.
+	 */
+	public void addBucket(int index, long bucketCount) {
+		count += bucketCount;
+		buckets.merge(index, bucketCount, Long::sum);
+		if (buckets.size() > MAX_BUCKETS) {
+			collapseLowest();
+		}
+	}
+
+	public void addZeros(long zeros) {
+		count += zeros;
+		zeroCount += zeros;
+	}
+
+	/**
+	 * @param quantile between 0 and 1
+	 * @return the estimated value, or 0 when the sketch is empty
+	 */
+	public double quantile(double quantile) {
+		if (count == 0) {
+			return 0.0;
+		}
+		long rank = (long) (quantile * (count - 1));
+		long seen = zeroCount;
+		if (seen > rank) {
+			return 0.0;
+		}
+		int[] indexes = buckets.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+		for (int index : indexes) {
+			seen += buckets.get(index);
+			if (seen > rank) {
+				return value(index);
+			}
+		}
+		return value(indexes[indexes.length - 1]);
+	}
+
+	private double value(int index) {
+		return 2 * Math.pow(gamma, index) / (gamma + 1);
+	}
+
+	private void collapseLowest() {
+		Iterator<Map.Entry<Integer, Long>> lowest = new TreeMap<>(buckets).entrySet().iterator();
+		Map.Entry<Integer, Long> first = lowest.next();
+		Map.Entry<Integer, Long> second = lowest.next();
+		buckets.remove(first.getKey());
+		buckets.merge(second.getKey(), first.getValue(), Long::sum);
+	}
+
+	public byte[] toBytes() {
+		ByteBuffer buffer = ByteBuffer.allocate(Double.BYTES + 2 * Long.BYTES + Integer.BYTES + buckets.size() * (Integer.BYTES + Long.BYTES));
+		buffer.putDouble(relativeAccuracy).putLong(zeroCount).putLong(count).putInt(buckets.size());
+		buckets.forEach((index, bucketCount) -> buffer.putInt(index).putLong(bucketCount));
+		return buffer.array();
+	}
+
+	public static QuantileSketch fromBytes(byte[] bytes) {
+		return read(ByteBuffer.wrap(bytes));
+	}
+
+	static QuantileSketch read(ByteBuffer buffer) {
+		QuantileSketch sketch = new QuantileSketch(buffer.getDouble());
+		sketch.zeroCount = buffer.getLong();
+		sketch.count = buffer.getLong();
+		int size = buffer.getInt();
+		for (int i = 0; i < size; i++) {
+			sketch.buckets.put(buffer.getInt(), buffer.getLong());
+		}
+		return sketch;
+	}
+
+}
@@ -0,0 +1,119 @@
+package pt.lunasoft.analytics.sketch;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy hitters: at most {@code capacity} counters. An unseen item takes over the
+ * smallest counter and inherits its count as error, so any item more frequent than
+ * {@code total / capacity} is guaranteed to be tracked and counts are never under-estimated.
+ * Merging adds the counters of both sides and keeps the largest {@code capacity}.
+ */
+public class TopK {
+
+	private final int capacity;
+	private final Map<String, long[]> counters;
+
+	public TopK(int capacity) {
+		this.capacity = capacity;
+		this.counters = new HashMap<>(capacity * 2);
+	}
+
+	public void add(String item) {
+		if (item == null) {
+			return;
+		}
+		long[] counter = counters.get(item);
+		if (counter != null) {
+			counter[0]++;
+			return;
+		}
+		if (counters.size() < capacity) {
+			counters.put(item, new long[] { 1, 0 });
+			return;
+		}
+		String minItem = null;
+		long min = Long.MAX_VALUE;
+		for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+			if (entry.getValue()[0] < min) {
+				min = entry.getValue()[0];
+				minItem = entry.getKey();
+			}
+		}
+		counters.remove(minItem);
+		counters.put(item, new long[] { min + 1, min });
+	}
+
+	public TopK merge(TopK other) {
+		other.counters.forEach((item, counter) -> {
+			long[] existing = counters.get(item);
+			if (existing != null) {
+				existing[0] += counter[0];
+				existing[1] += counter[1];
+			} else {
+				counters.put(item, new long[] { counter[0], counter[1] });
+			}
+		});
+		if (counters.size() > capacity) {
+			List<Map.Entry<String, long[]>> entries = sorted();
+			counters.clear();
+			entries.subList(0, capacity).forEach(entry -> counters.put(entry.getKey(), entry.getValue()));
+		}
+		return this;
+	}
+
+	/**
+	 * @return up to {@code limit} items with their estimated counts, most frequent first
+	 */
+	public Map<String, Long> top(int limit) {
+		Map<String, Long> top = new LinkedHashMap<>();
+		for (Map.Entry<String, long[]> entry : sorted()) {
+			if (top.size() == limit) {
+				break;
+			}
+			top.put(entry.getKey(), entry.getValue()[0]);
+		}
+		return top;
+	}
+
+	private List<Map.Entry<String, long[]>> sorted() {
+		List<Map.Entry<String, long[]>> entries = new ArrayList<>(counters.entrySet());
+		entries.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+		return entries;
+	}
+
+	public byte[] toBytes() {
+		List<Map.Entry<String, long[]>> entries = new ArrayList<>(counters.entrySet());
+		List<byte[]> items = new ArrayList<>(entries.size());
+		int size = 2 * Integer.BYTES;
+		for (Map.Entry<String, long[]> entry : entries) {
+			byte[] encoded = entry.getKey().getBytes(StandardCharsets.UTF_8);
+			items.add(encoded);
+			size += Integer.BYTES + encoded.length + 2 * Long.BYTES;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(size).putInt(capacity).putInt(entries.size());
+		for (int i = 0; i < entries.size(); i++) {
+			long[] counter = entries.get(i).getValue();
+			buffer.putInt(items.get(i).length).put(items.get(i)).putLong(counter[0]).putLong(counter[1]);
+		}
+		return buffer.array();
+	}
+
+	public static TopK fromBytes(byte[] bytes) {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		TopK sketch = new TopK(buffer.getInt());
+		int size = buffer.getInt();
+		for (int i = 0; i < size; i++) {
+			byte[] encoded = new byte[buffer.getInt()];
+			buffer.get(encoded);
+			sketch.counters.put(new String(encoded, StandardCharsets.UTF_8), new long[] { buffer.getLong(), buffer.getLong() });
+		}
+		return sketch;
+	}
+
+}
@@ -0,0 +1,125 @@
+package pt.lunasoft.analytics.streams;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.ProcessorSupplier;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+
+import pt.lunasoft.models.Transaction;
+
+/**
+ * First phase of a two-phase windowed aggregation. Each task folds its own partition's
+ * transactions into one partial per (key, window), a {@link StatsAggregate} or the
+ * {@link WindowSketches} beside it, with the key taken from the
+ * transaction by {@code keyExtractor}, and forwards the partials every {@code flushInterval} of
+ * wall-clock time. Only these partials are repartitioned for the merge phase, instead of every
+ * transaction, so a hot key such as "global" receives a handful of records per task and interval
+ * however high the input rate.
+ * <p>
+ * Partials live in a changelogged store until forwarded, so under exactly-once a committed offset
+ * is never ahead of an unsent partial. Forwarded records carry the window start as timestamp.
+ */
+public class PartialStatsProcessor<A> implements Processor<String, Transaction, String, A> {
+
+	public static final String GLOBAL_KEY = "global";
+
+	private final String storeName;
+	private final long windowMs;
+	private final Duration flushInterval;
+	private final Function<Transaction, String> keyExtractor;
+	private final Supplier<A> initializer;
+	private final BiFunction<A, Transaction, A> adder;
+
+	private ProcessorContext<String, A> context;
+	private KeyValueStore<String, A> partials;
+
+	PartialStatsProcessor(String storeName, Duration window, Duration flushInterval, Function<Transaction, String> keyExtractor,
+			Supplier<A> initializer, BiFunction<A, Transaction, A> adder) {
+		this.storeName = storeName;
+		this.windowMs = window.toMillis();
+		this.flushInterval = flushInterval;
+		this.keyExtractor = keyExtractor;
+		this.initializer = initializer;
+		this.adder = adder;
+	}
+
+	/**
+	 * @param keyExtractor aggregation key of a transaction, or null to leave it out
+	 */
+	public static ProcessorSupplier<String, Transaction, String, StatsAggregate> supplier(String storeName, Duration window,
+			Duration flushInterval, Function<Transaction, String> keyExtractor) {
+		return supplier(storeName, window, flushInterval, keyExtractor, StatsAggregate::new,
+				(aggregate, transaction) -> aggregate.add(transaction.getAmount()), new StatsAggregateSerde());
+	}
+
+	/**
+	 * @param keyExtractor aggregation key of a transaction, or null to leave it out
+	 * @param serde serde of the partials in the store
+	 */
+	public static <A> ProcessorSupplier<String, Transaction, String, A> supplier(String storeName, Duration window,
+			Duration flushInterval, Function<Transaction, String> keyExtractor, Supplier<A> initializer,
+			BiFunction<A, Transaction, A> adder, Serde<A> serde) {
+		return new ProcessorSupplier<>() {
+			@Override
+			public Processor<String, Transaction, String, A> get() {
+				return new PartialStatsProcessor<>(storeName, window, flushInterval, keyExtractor, initializer, adder);
+			}
+
+			@Override
+			public Set<StoreBuilder<?>> stores() {
+				return Set.of(Stores.keyValueStoreBuilder(Stores.inMemoryKeyValueStore(storeName), Serdes.String(), serde)
+						.withCachingEnabled());
+			}
+		};
+	}
+
+	@Override
+	public void init(ProcessorContext<String, A> context) {
+		this.context = context;
+		this.partials = context.getStateStore(storeName);
+		context.schedule(flushInterval, PunctuationType.WALL_CLOCK_TIME, timestamp -> flush());
+	}
+
+	@Override
+	public void process(Record<String, Transaction> record) {
+		Transaction transaction = record.value();
+		String key = transaction != null ? keyExtractor.apply(transaction) : null;
+		if (key == null) {
+			return;
+		}
+		long timestamp = record.timestamp();
+		String partialKey = (timestamp - Math.floorMod(timestamp, windowMs)) + "|" + key;
+		A partial = partials.get(partialKey);
+		partials.put(partialKey, adder.apply(partial != null ? partial : initializer.get(), transaction));
+	}
+
+	private void flush() {
+		List<KeyValue<String, A>> pending = new ArrayList<>();
+		try (KeyValueIterator<String, A> iterator = partials.all()) {
+			iterator.forEachRemaining(pending::add);
+		}
+		for (KeyValue<String, A> entry : pending) {
+			int separator = entry.key.indexOf('|');
+			long windowStart = Long.parseLong(entry.key.substring(0, separator));
+			context.forward(new Record<>(entry.key.substring(separator + 1), entry.value, windowStart));
+			partials.delete(entry.key);
+		}
+	}
+
+}
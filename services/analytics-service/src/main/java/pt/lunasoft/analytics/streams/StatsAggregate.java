@@ -0,0 +1,89 @@
+package pt.lunasoft.analytics.streams;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+
+import pt.lunasoft.analytics.model.TransactionStats;
+
+/**
+ * Window aggregate kept in the Kafka Streams stores: count, sum, min and max as longs in units of
+ * 10^-{@value #SCALE} (the scale amounts are persisted with), so every update is plain arithmetic
+ * and every store value is exactly {@value #SIZE_BYTES} bytes. The average and the
+ * {@link TransactionStats} view are only built when a window is emitted or queried.
+ */
+public final class StatsAggregate {
+
+	public static final int SCALE = 4;
+	public static final int SIZE_BYTES = 4 * Long.BYTES;
+
+	private static final int AVERAGE_SCALE = 2;
+
+	private long count;
+	private long sum;
+	private long min = Long.MAX_VALUE;
+	private long max = Long.MIN_VALUE;
+
+	public StatsAggregate() {
+	}
+
+	private StatsAggregate(long count, long sum, long min, long max) {
+		this.count = count;
+		this.sum = sum;
+		this.min = min;
+		this.max = max;
+	}
+
+	public StatsAggregate add(BigDecimal amount) {
+		long units = toUnits(amount);
+		count++;
+		sum = Math.addExact(sum, units);
+		min = Math.min(min, units);
+		max = Math.max(max, units);
+		return this;
+	}
+
+	public StatsAggregate merge(StatsAggregate other) {
+		count += other.count;
+		sum = Math.addExact(sum, other.sum);
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		return this;
+	}
+
+	public long count() {
+		return count;
+	}
+
+	public BigDecimal sum() {
+		return BigDecimal.valueOf(sum, SCALE);
+	}
+
+	public TransactionStats toStats() {
+		boolean empty = count == 0;
+		return TransactionStats.builder()
+				.transactionCount(count)
+				.totalAmount(sum())
+				.averageAmount(empty ? null : BigDecimal.valueOf(sum, SCALE).divide(BigDecimal.valueOf(count), AVERAGE_SCALE, RoundingMode.HALF_UP))
+				.minAmount(empty ? null : BigDecimal.valueOf(min, SCALE))
+				.maxAmount(empty ? null : BigDecimal.valueOf(max, SCALE))
+				.build();
+	}
+
+	public byte[] toBytes() {
+		return ByteBuffer.allocate(SIZE_BYTES).putLong(count).putLong(sum).putLong(min).putLong(max).array();
+	}
+
+	public static StatsAggregate fromBytes(byte[] bytes) {
+		if (bytes.length != SIZE_BYTES) {
+			throw new IllegalArgumentException("Expected " + SIZE_BYTES + " bytes, got " + bytes.length);
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		return new StatsAggregate(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+	}
+
+	static long toUnits(BigDecimal amount) {
+		return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+	}
+
+}
@@ -0,0 +1,16 @@
+package pt.lunasoft.analytics.streams;
+
+import org.apache.kafka.common.serialization.Serdes;
+
+/**
+ * Fixed-size binary serde for {@link StatsAggregate}, used for the window stores, the partial
+ * stores and the partial repartition topics. Null stays null in both directions.
+ */
+public class StatsAggregateSerde extends Serdes.WrapperSerde<StatsAggregate> {
+
+	public StatsAggregateSerde() {
+		super((topic, aggregate) -> aggregate == null ? null : aggregate.toBytes(),
+				(topic, bytes) -> bytes == null ? null : StatsAggregate.fromBytes(bytes));
+	}
+
+}
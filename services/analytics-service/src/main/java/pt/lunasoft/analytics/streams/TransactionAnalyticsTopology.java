@@ -1,23 +1,34 @@
 package pt.lunasoft.analytics.streams;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Map;
+import java.util.function.Function;
 
+import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.Consumed;
 import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.KGroupedStream;
 import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.KTable;
 import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.Named;
 import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.kstream.SlidingWindows;
+import org.apache.kafka.streams.kstream.Suppressed;
+import org.apache.kafka.streams.kstream.Suppressed.BufferConfig;
+import org.apache.kafka.streams.kstream.TimeWindowedKStream;
 import org.apache.kafka.streams.kstream.TimeWindows;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.processor.api.ProcessorSupplier;
+import org.apache.kafka.streams.state.WindowStore;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
-import org.springframework.kafka.support.serializer.JsonSerde;
 import org.springframework.stereotype.Component;
 
 import lombok.RequiredArgsConstructor;
@@ -31,6 +42,25 @@ import pt.lunasoft.models.Transaction;
 @Slf4j
 public class TransactionAnalyticsTopology {
 
+	// Window stores served by WindowStoreQueryService
+	public static final String ACCOUNT_STATS_STORE = "account-stats";
+	public static final String CATEGORY_STATS_STORE = "category-stats";
+	public static final String GLOBAL_STATS_STORE = "global-stats";
+	// Percentile and distinct merchant sketches of the same windows, see WindowSketches
+	public static final String ACCOUNT_SKETCHES_STORE = "account-sketches";
+	public static final String CATEGORY_SKETCHES_STORE = "category-sketches";
+	public static final String GLOBAL_SKETCHES_STORE = "global-sketches";
+	public static final Map<String, String> SKETCH_STORES = Map.of(
+			ACCOUNT_STATS_STORE, ACCOUNT_SKETCHES_STORE,
+			CATEGORY_STATS_STORE, CATEGORY_SKETCHES_STORE,
+			GLOBAL_STATS_STORE, GLOBAL_SKETCHES_STORE);
+	static final String CATEGORY_PARTIALS_STORE = "category-partials";
+	static final String GLOBAL_PARTIALS_STORE = "global-partials";
+	static final String CATEGORY_SKETCH_PARTIALS_STORE = "category-sketch-partials";
+	static final String GLOBAL_SKETCH_PARTIALS_STORE = "global-sketch-partials";
+
+	private static final Duration GLOBAL_WINDOW = Duration.ofMinutes(1);
+
 	@Value("${app.kafka.topics.transactions-incoming}")
 	private String transactionsIncomingTopic;
 
@@ -43,8 +73,31 @@ public class TransactionAnalyticsTopology {
 	@Value("${app.analytics.window.grace-period-minutes}")
 	private int gracePeriodMinutes;
 
-	private final JsonSerde<Transaction> transactionSerde;
-	private final JsonSerde<TransactionStats> transactionStatsSerde;
+	@Value("${app.analytics.window.partial-flush-ms:1000}")
+	private long partialFlushMs;
+
+	// tumbling, hopping or sliding; applies to the per-account windows
+	@Value("${app.analytics.window.type:tumbling}")
+	private String windowType;
+
+	@Value("${app.analytics.window.advance-minutes:1}")
+	private int advanceMinutes;
+
+	// final or updates, see emit()
+	@Value("${app.analytics.window.emit-mode:final}")
+	private String emitMode;
+
+	// Per suppression buffer, i.e. per store and task
+	@Value("${app.analytics.window.suppress-buffer-max-bytes:16777216}")
+	private long suppressBufferMaxBytes;
+
+	@Value("${app.analytics.window.retention-hours:24}")
+	private int retentionHours;
+
+	private final Serde<Transaction> transactionSerde;
+	private final Serde<TransactionStats> transactionStatsSerde;
+	private final Serde<StatsAggregate> aggregateSerde = new StatsAggregateSerde();
+	private final Serde<WindowSketches> sketchesSerde = new WindowSketchesSerde();
 
 	@Bean
 	public KStream<String, Transaction> processTransactionStream(StreamsBuilder builder) {
@@ -54,27 +107,53 @@ public class TransactionAnalyticsTopology {
 						Consumed.with(Serdes.String(), transactionSerde))
 				.peek((key, value) -> log.debug("Processing transaction: {}", value.getId()));
 
-		// Aggregate by account - Tumbling Window
+		// Aggregate by account - tumbling, hopping or sliding windows
 		aggregateByAccount(transactionStream);
 
+		// Category and global stats in two phases: per-task partials, then a merge of the partials;
+		// the sketches take the same two phases on their own
+		Duration flushInterval = Duration.ofMillis(partialFlushMs);
+
 		// Aggregate by merchant category
-		aggregateByMerchantCategory(transactionStream);
+		aggregateByMerchantCategory(transactionStream.process(
+				PartialStatsProcessor.supplier(CATEGORY_PARTIALS_STORE, Duration.ofMinutes(windowSizeMinutes), flushInterval, Transaction::getMerchantCategory),
+				Named.as("category-partials-processor")),
+				transactionStream.process(
+						sketchPartials(CATEGORY_SKETCH_PARTIALS_STORE, Duration.ofMinutes(windowSizeMinutes), flushInterval, Transaction::getMerchantCategory),
+						Named.as("category-sketch-partials-processor")));
 
 		// Global statistics
-		calculateGlobalStats(transactionStream);
+		calculateGlobalStats(transactionStream.process(
+				PartialStatsProcessor.supplier(GLOBAL_PARTIALS_STORE, GLOBAL_WINDOW, flushInterval, transaction -> PartialStatsProcessor.GLOBAL_KEY),
+				Named.as("global-partials-processor")),
+				transactionStream.process(
+						sketchPartials(GLOBAL_SKETCH_PARTIALS_STORE, GLOBAL_WINDOW, flushInterval, transaction -> PartialStatsProcessor.GLOBAL_KEY),
+						Named.as("global-sketch-partials-processor")));
 
 		return transactionStream;
 	}
 
 	private void aggregateByAccount(KStream<String, Transaction> stream) {
-		TimeWindows tumblingWindow = TimeWindows.ofSizeWithNoGrace(Duration.ofMinutes(windowSizeMinutes));
+		KGroupedStream<String, Transaction> grouped = stream.groupByKey(Grouped.with(Serdes.String(), transactionSerde));
+		Duration size = Duration.ofMinutes(windowSizeMinutes);
+		Duration grace = Duration.ofMinutes(gracePeriodMinutes);
+
+		TimeWindowedKStream<String, Transaction> windowed = switch (windowType.toLowerCase()) {
+			case "tumbling" -> grouped.windowedBy(TimeWindows.ofSizeAndGrace(size, grace));
+			case "hopping" -> grouped.windowedBy(TimeWindows.ofSizeAndGrace(size, grace).advanceBy(Duration.ofMinutes(advanceMinutes)));
+			case "sliding" -> grouped.windowedBy(SlidingWindows.ofTimeDifferenceAndGrace(size, grace));
+			default -> throw new IllegalArgumentException("Unknown app.analytics.window.type: " + windowType);
+		};
+
+		// Built first, so the sketches already hold a transaction when its stats update is emitted
+		KTable<Windowed<String>, WindowSketches> sketches = windowed.aggregate(WindowSketches::new,
+				(key, transaction, aggregate) -> aggregate.add(transaction), sketchStore(ACCOUNT_SKETCHES_STORE, size.plus(grace)));
 
-		stream
-		.groupByKey(Grouped.with(Serdes.String(), transactionSerde))
-		.windowedBy(tumblingWindow)
-		.aggregate(this::initializeStats, this::aggregateTransaction, Materialized.with(Serdes.String(), transactionStatsSerde))
+		emit(windowed.aggregate(this::initializeStats, this::aggregateTransaction, windowStore(ACCOUNT_STATS_STORE, size.plus(grace))), ACCOUNT_STATS_STORE, size.plus(grace))
 		.toStream()
+		.leftJoin(sketches, TransactionAnalyticsTopology::toStats)
 		.map((windowedKey, stats) -> {
+			stats.setAccountId(windowedKey.key());
 			stats.setWindowStart(Instant.ofEpochMilli(windowedKey.window().start()));
 			stats.setWindowEnd(Instant.ofEpochMilli(windowedKey.window().end()));
 			return KeyValue.pair(windowedKey.key(), stats);
@@ -83,16 +162,19 @@ public class TransactionAnalyticsTopology {
 		.to(analyticsAggregatedTopic + ".by-account", Produced.with(Serdes.String(), transactionStatsSerde));
 	}
 
-	private void aggregateByMerchantCategory(KStream<String, Transaction> stream) {
-		TimeWindows tumblingWindow = TimeWindows.ofSizeWithNoGrace(Duration.ofMinutes(windowSizeMinutes));
+	// Partials reach the merge up to one flush interval after their window, hence the grace period
+	private void aggregateByMerchantCategory(KStream<String, StatsAggregate> partials, KStream<String, WindowSketches> sketchPartials) {
+		TimeWindows tumblingWindow = TimeWindows.ofSizeAndGrace(Duration.ofMinutes(windowSizeMinutes), Duration.ofMinutes(gracePeriodMinutes));
+		Duration sizeAndGrace = Duration.ofMinutes(windowSizeMinutes + gracePeriodMinutes);
+		KTable<Windowed<String>, WindowSketches> sketches = mergeSketches(sketchPartials, tumblingWindow, CATEGORY_SKETCHES_STORE, sizeAndGrace);
 
-		stream
-		.filter((key, transaction) -> transaction.getMerchantCategory() != null)
-		.selectKey((key, transaction) -> transaction.getMerchantCategory())
-		.groupByKey(Grouped.with(Serdes.String(), transactionSerde))
-		.windowedBy(tumblingWindow)
-		.aggregate(this::initializeStats, this::aggregateTransaction, Materialized.with(Serdes.String(), transactionStatsSerde))
+		emit(partials
+				.groupByKey(Grouped.with(Serdes.String(), aggregateSerde))
+				.windowedBy(tumblingWindow)
+				.aggregate(this::initializeStats, this::mergeStats, windowStore(CATEGORY_STATS_STORE, sizeAndGrace)),
+				CATEGORY_STATS_STORE, sizeAndGrace)
 		.toStream()
+		.leftJoin(sketches, TransactionAnalyticsTopology::toStats)
 		.map((windowedKey, stats) -> {
 			stats.setWindowStart(Instant.ofEpochMilli(windowedKey.window().start()));
 			stats.setWindowEnd(Instant.ofEpochMilli(windowedKey.window().end()));
@@ -103,51 +185,99 @@ public class TransactionAnalyticsTopology {
 		.to(analyticsAggregatedTopic + ".by-category", Produced.with(Serdes.String(), transactionStatsSerde));
 	}
 
-	private void calculateGlobalStats(KStream<String, Transaction> stream) {
-		stream
-		.selectKey((key, value) -> "global")
-		.groupByKey(Grouped.with(Serdes.String(), transactionSerde))
-		.windowedBy(TimeWindows.ofSizeWithNoGrace(Duration.ofMinutes(1)))
-		.aggregate(this::initializeStats, this::aggregateTransaction, Materialized.with(Serdes.String(), transactionStatsSerde))
+	private void calculateGlobalStats(KStream<String, StatsAggregate> partials, KStream<String, WindowSketches> sketchPartials) {
+		Duration grace = Duration.ofMinutes(gracePeriodMinutes);
+		TimeWindows globalWindow = TimeWindows.ofSizeAndGrace(GLOBAL_WINDOW, grace);
+		KTable<Windowed<String>, WindowSketches> sketches = mergeSketches(sketchPartials, globalWindow, GLOBAL_SKETCHES_STORE, GLOBAL_WINDOW.plus(grace));
+
+		emit(partials
+				.groupByKey(Grouped.with(Serdes.String(), aggregateSerde))
+				.windowedBy(globalWindow)
+				.aggregate(this::initializeStats, this::mergeStats, windowStore(GLOBAL_STATS_STORE, GLOBAL_WINDOW.plus(grace))),
+				GLOBAL_STATS_STORE, GLOBAL_WINDOW.plus(grace))
 		.toStream()
+		.leftJoin(sketches, TransactionAnalyticsTopology::toStats)
 		.map((windowedKey, stats) -> {
 			stats.setWindowStart(Instant.ofEpochMilli(windowedKey.window().start()));
 			stats.setWindowEnd(Instant.ofEpochMilli(windowedKey.window().end()));
-			return KeyValue.pair("global", stats);
+			return KeyValue.pair(PartialStatsProcessor.GLOBAL_KEY, stats);
 		})
-		.peek((key, value) -> log.info("Global stats: {} TPS", value.getTransactionCount() / windowSizeMinutes / 60.0))
+		.peek((key, value) -> log.info("Global stats: {} TPS", value.getTransactionCount() / (double) GLOBAL_WINDOW.toSeconds()))
 		.to(analyticsAggregatedTopic + ".global", Produced.with(Serdes.String(), transactionStatsSerde));
 	}
 
-	private TransactionStats initializeStats() {
-		return TransactionStats.builder()
-				.transactionCount(0L)
-				.totalAmount(BigDecimal.ZERO)
-				.minAmount(null)
-				.maxAmount(null)
-				.build();
+	/**
+	 * How windows reach the {@code analytics.aggregated.*} topics:
+	 * <ul>
+	 * <li>{@code updates}: a record for every change of the window, thinned only by the store cache
+	 * (commit interval, cache size), so up to one record per transaction per window</li>
+	 * <li>{@code final}: one record per window, once stream time passes its end plus the grace
+	 * period. Open windows wait in a suppression buffer of {@code suppress-buffer-max-bytes}; when
+	 * it fills up the oldest windows are emitted early, so consumers may then see a window more than
+	 * once, but the instance keeps running</li>
+	 * </ul>
+	 * {@code untilWindowCloses} only accepts a buffer that shuts down or grows without bound, so the
+	 * final mode holds each window for size plus grace from its first record instead, which is never
+	 * before the window closes. The window stores, and so the query API, always reflect the latest updates.
+	 * The suppression buffer only holds the fixed-size {@link StatsAggregate}; the window's sketches
+	 * are looked up in their own store as it is emitted.
+	 */
+	private KTable<Windowed<String>, StatsAggregate> emit(KTable<Windowed<String>, StatsAggregate> windows, String storeName, Duration sizeAndGrace) {
+		return switch (emitMode.toLowerCase()) {
+			case "updates" -> windows;
+			case "final" -> windows.suppress(Suppressed.untilTimeLimit(sizeAndGrace, BufferConfig.maxBytes(suppressBufferMaxBytes).emitEarlyWhenFull())
+					.withName(storeName + "-final"));
+			default -> throw new IllegalArgumentException("Unknown app.analytics.window.emit-mode: " + emitMode);
+		};
+	}
+
+	// Kept for retention-hours so the query API can read past windows, but never less than the window needs
+	private Materialized<String, StatsAggregate, WindowStore<Bytes, byte[]>> windowStore(String name, Duration minimumRetention) {
+		Duration retention = Duration.ofHours(retentionHours);
+		return Materialized.<String, StatsAggregate, WindowStore<Bytes, byte[]>>as(name)
+				.withKeySerde(Serdes.String())
+				.withValueSerde(aggregateSerde)
+				.withRetention(retention.compareTo(minimumRetention) >= 0 ? retention : minimumRetention);
 	}
 
-	private TransactionStats aggregateTransaction(String key, Transaction transaction, TransactionStats stats) {
-		BigDecimal amount = transaction.getAmount();
+	private ProcessorSupplier<String, Transaction, String, WindowSketches> sketchPartials(String storeName, Duration window,
+			Duration flushInterval, Function<Transaction, String> keyExtractor) {
+		return PartialStatsProcessor.supplier(storeName, window, flushInterval, keyExtractor, WindowSketches::new, WindowSketches::add, sketchesSerde);
+	}
 
-		stats.setAccountId(transaction.getAccountId());
-		stats.setTransactionCount(stats.getTransactionCount() + 1);
-		stats.setTotalAmount(stats.getTotalAmount().add(amount));
+	private KTable<Windowed<String>, WindowSketches> mergeSketches(KStream<String, WindowSketches> partials, TimeWindows windows,
+			String storeName, Duration minimumRetention) {
+		return partials
+				.groupByKey(Grouped.with(Serdes.String(), sketchesSerde))
+				.windowedBy(windows)
+				.aggregate(WindowSketches::new, (key, partial, aggregate) -> aggregate.merge(partial), sketchStore(storeName, minimumRetention));
+	}
 
-		// Update min/max
-		if (stats.getMinAmount() == null || amount.compareTo(stats.getMinAmount()) < 0) {
-			stats.setMinAmount(amount);
-		}
-		if (stats.getMaxAmount() == null || amount.compareTo(stats.getMaxAmount()) > 0) {
-			stats.setMaxAmount(amount);
-		}
+	private Materialized<String, WindowSketches, WindowStore<Bytes, byte[]>> sketchStore(String name, Duration minimumRetention) {
+		Duration retention = Duration.ofHours(retentionHours);
+		return Materialized.<String, WindowSketches, WindowStore<Bytes, byte[]>>as(name)
+				.withKeySerde(Serdes.String())
+				.withValueSerde(sketchesSerde)
+				.withRetention(retention.compareTo(minimumRetention) >= 0 ? retention : minimumRetention);
+	}
 
-		// Calculate average
-		BigDecimal count = new BigDecimal(stats.getTransactionCount());
-		stats.setAverageAmount(stats.getTotalAmount().divide(count, 2, RoundingMode.HALF_UP));
+	// Sketches that have not reached their store yet, e.g. a sketch partial still waiting for its flush, leave the estimates empty
+	private static TransactionStats toStats(StatsAggregate aggregate, WindowSketches sketches) {
+		TransactionStats stats = aggregate.toStats();
+		return sketches != null ? sketches.fill(stats) : stats;
+	}
+
+	// Package-private for the aggregation benchmark in tools/benchmarks
+	StatsAggregate initializeStats() {
+		return new StatsAggregate();
+	}
+
+	StatsAggregate aggregateTransaction(String key, Transaction transaction, StatsAggregate aggregate) {
+		return aggregate.add(transaction.getAmount());
+	}
 
-		return stats;
+	StatsAggregate mergeStats(String key, StatsAggregate partial, StatsAggregate aggregate) {
+		return aggregate.merge(partial);
 	}
 	
 }
\ No newline at end of file
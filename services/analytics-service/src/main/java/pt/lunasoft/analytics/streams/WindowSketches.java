@@ -0,0 +1,84 @@
+package pt.lunasoft.analytics.streams;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+
+import pt.lunasoft.analytics.model.TransactionStats;
+import pt.lunasoft.analytics.sketch.HyperLogLog;
+import pt.lunasoft.analytics.sketch.QuantileSketch;
+import pt.lunasoft.models.Transaction;
+
+/**
+ * Side aggregate of a window: an amount quantile sketch and a merchant HyperLogLog, kept in their
+ * own stores next to the {@link StatsAggregate} ones so the fixed-size core stays cheap to read,
+ * write and buffer. Both sketches are bounded (at most ~1 KB of merchant registers, a few bytes per
+ * amount order of magnitude) and merge exactly, so partials fold into windows like the core does.
+ */
+public final class WindowSketches {
+
+	private static final int MONEY_SCALE = 2;
+	private static final double QUANTILE_ACCURACY = 0.01;
+	private static final int MERCHANT_PRECISION = 10;
+
+	private final QuantileSketch amounts;
+	private final HyperLogLog merchants;
+
+	public WindowSketches() {
+		this(new QuantileSketch(QUANTILE_ACCURACY), new HyperLogLog(MERCHANT_PRECISION));
+	}
+
+	private WindowSketches(QuantileSketch amounts, HyperLogLog merchants) {
+		this.amounts = amounts;
+		this.merchants = merchants;
+	}
+
+	public WindowSketches add(Transaction transaction) {
+		amounts.add(transaction.getAmount().doubleValue());
+		merchants.add(transaction.getMerchant());
+		return this;
+	}
+
+	public WindowSketches merge(WindowSketches other) {
+		amounts.merge(other.amounts);
+		merchants.merge(other.merchants);
+		return this;
+	}
+
+	/**
+	 * Sets the percentiles and the distinct merchant count of {@code stats}.
+	 */
+	public TransactionStats fill(TransactionStats stats) {
+		boolean empty = amounts.count() == 0;
+		stats.setP50Amount(empty ? null : quantile(0.50));
+		stats.setP95Amount(empty ? null : quantile(0.95));
+		stats.setP99Amount(empty ? null : quantile(0.99));
+		stats.setUniqueMerchants(merchants.estimate());
+		return stats;
+	}
+
+	private BigDecimal quantile(double quantile) {
+		return BigDecimal.valueOf(amounts.quantile(quantile)).setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+	}
+
+	public byte[] toBytes() {
+		byte[] amountBytes = amounts.toBytes();
+		byte[] merchantBytes = merchants.toBytes();
+		return ByteBuffer.allocate(2 * Integer.BYTES + amountBytes.length + merchantBytes.length)
+				.putInt(amountBytes.length).put(amountBytes)
+				.putInt(merchantBytes.length).put(merchantBytes)
+				.array();
+	}
+
+	public static WindowSketches fromBytes(byte[] bytes) {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		return new WindowSketches(QuantileSketch.fromBytes(slice(buffer)), HyperLogLog.fromBytes(slice(buffer)));
+	}
+
+	private static byte[] slice(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+}
@@ -0,0 +1,16 @@
+package pt.lunasoft.analytics.streams;
+
+import org.apache.kafka.common.serialization.Serdes;
+
+/**
+ * Binary serde for {@link WindowSketches}, used for the sketch window stores, their partial
+ * stores and the sketch partial repartition topics. Null stays null in both directions.
+ */
+public class WindowSketchesSerde extends Serdes.WrapperSerde<WindowSketches> {
+
+	public WindowSketchesSerde() {
+		super((topic, sketches) -> sketches == null ? null : sketches.toBytes(),
+				(topic, bytes) -> bytes == null ? null : WindowSketches.fromBytes(bytes));
+	}
+
+}
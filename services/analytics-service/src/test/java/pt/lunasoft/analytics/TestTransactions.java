@@ -0,0 +1,45 @@
+package pt.lunasoft.analytics;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import pt.lunasoft.models.Transaction;
+import pt.lunasoft.models.enums.TransactionType;
+
+/**
+ * Transactions for the analytics tests: a EUR purchase at {@value #MERCHANT} in {@value #CATEGORY},
+ * with only the fields a test cares about passed in.
+ */
+public final class TestTransactions {
+
+	public static final String MERCHANT = "Merchant";
+	public static final String CATEGORY = "groceries";
+
+	private TestTransactions() {
+	}
+
+	public static Transaction purchase(String accountId, String amount) {
+		return purchase(accountId, new BigDecimal(amount), Instant.now());
+	}
+
+	public static Transaction purchase(String accountId, BigDecimal amount, Instant timestamp) {
+		return builder(accountId, amount).timestamp(timestamp).build();
+	}
+
+	/**
+	 * The same purchase, for tests that set more fields; the timestamp is now.
+	 */
+	public static Transaction.TransactionBuilder builder(String accountId, BigDecimal amount) {
+		return Transaction.builder()
+				.id(UUID.randomUUID())
+				.accountId(accountId)
+				.amount(amount)
+				.currency("EUR")
+				.type(TransactionType.PURCHASE)
+				.merchant(MERCHANT)
+				.merchantCategory(CATEGORY)
+				.timestamp(Instant.now());
+	}
+
+}
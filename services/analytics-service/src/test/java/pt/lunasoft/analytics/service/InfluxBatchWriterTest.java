@@ -0,0 +1,178 @@
+package pt.lunasoft.analytics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class InfluxBatchWriterTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@TempDir
+	Path spillDir;
+
+	@Test
+	void shouldCoalesceRecordsIntoSizeBoundedBatches() throws Exception {
+		// Given
+		BlockingQueue<String> batches = new LinkedBlockingQueue<>();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try (InfluxBatchWriter writer = new InfluxBatchWriter(lines -> {
+			// hold the first write so the rest of the records pile up in the buffer
+			started.countDown();
+			release.await();
+			batches.add(lines);
+		}, settings(100, 5, 60_000, InfluxBatchWriter.Overflow.DROP), registry)) {
+
+			// When
+			writer.offer("m v=0");
+			writer.offer("m v=1");
+			writer.offer("m v=2");
+			writer.offer("m v=3");
+			writer.offer("m v=4");
+			assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+			for (int i = 5; i < 10; i++) {
+				writer.offer("m v=" + i);
+			}
+			release.countDown();
+
+			// Then
+			assertThat(batches.poll(5, TimeUnit.SECONDS)).isEqualTo("m v=0\nm v=1\nm v=2\nm v=3\nm v=4");
+			assertThat(batches.poll(5, TimeUnit.SECONDS)).isEqualTo("m v=5\nm v=6\nm v=7\nm v=8\nm v=9");
+		}
+	}
+
+	@Test
+	void shouldDropInsteadOfBlockingWhenBufferIsFull() throws Exception {
+		// Given
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try (InfluxBatchWriter writer = new InfluxBatchWriter(lines -> {
+			started.countDown();
+			release.await();
+		}, settings(2, 1, 10, InfluxBatchWriter.Overflow.DROP), registry)) {
+			writer.offer("m v=0");
+			assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+			// When
+			int accepted = 0;
+			for (int i = 1; i <= 10; i++) {
+				if (writer.offer("m v=" + i)) {
+					accepted++;
+				}
+			}
+
+			// Then
+			assertThat(accepted).isEqualTo(2);
+			assertThat(writer.queueDepth()).isEqualTo(2);
+			assertThat(registry.get("analytics.influx.writer.dropped").tag("reason", "overflow").counter().count()).isEqualTo(8);
+			assertThat(registry.get("analytics.influx.writer.queue.depth").gauge().value()).isEqualTo(2);
+			release.countDown();
+		}
+	}
+
+	@Test
+	void shouldRetryFailedWritesAndReplaySpilledRecords() throws Exception {
+		// Given
+		AtomicInteger attempts = new AtomicInteger();
+		BlockingQueue<String> batches = new LinkedBlockingQueue<>();
+		try (InfluxBatchWriter writer = new InfluxBatchWriter(lines -> {
+			// first batch fails past its retries and is spilled, later writes succeed
+			if (attempts.incrementAndGet() <= 2) {
+				throw new IllegalStateException("influx down");
+			}
+			batches.add(lines);
+		}, settings(100, 10, 20, InfluxBatchWriter.Overflow.SPILL), registry)) {
+
+			// When
+			writer.offer("m v=1");
+
+			// Then
+			assertThat(batches.poll(5, TimeUnit.SECONDS)).isEqualTo("m v=1");
+			assertThat(attempts.get()).isEqualTo(3);
+			assertThat(registry.get("analytics.influx.writer.spilled").counter().count()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	void shouldReplaySpillFileLeftByPreviousProcessInBatches() throws Exception {
+		// Given
+		Files.writeString(spillDir.resolve("influx-spill.lp"), "m v=1\nm v=2\nm v=3\n");
+		BlockingQueue<String> batches = new LinkedBlockingQueue<>();
+
+		// When
+		try (InfluxBatchWriter writer = new InfluxBatchWriter(batches::add, settings(100, 2, 20, InfluxBatchWriter.Overflow.SPILL), registry)) {
+
+			// Then
+			assertThat(batches.poll(5, TimeUnit.SECONDS)).isEqualTo("m v=1\nm v=2");
+			assertThat(batches.poll(5, TimeUnit.SECONDS)).isEqualTo("m v=3");
+		}
+		assertThat(spillDir.resolve("influx-spill.replay")).doesNotExist();
+	}
+
+	@Test
+	void shouldCountSpilledAndDroppedLinesWhenSpillFillsUpMidBatch() throws Exception {
+		// Given - each spilled line takes 7 bytes with its newline, though it is only 5 chars
+		CountDownLatch release = new CountDownLatch(1);
+		InfluxBatchWriter.Settings settings = new InfluxBatchWriter.Settings(1, 1, 60_000, 0, 1,
+				InfluxBatchWriter.Overflow.SPILL, spillDir, 20);
+		try (InfluxBatchWriter writer = new InfluxBatchWriter(lines -> release.await(), settings, registry)) {
+			writer.offer("m v=0");
+			while (writer.queueDepth() > 0) {
+				Thread.sleep(1);
+			}
+			writer.offer("m v=1");
+
+			// When
+			for (int i = 0; i < 3; i++) {
+				writer.offer("m v=é");
+			}
+
+			// Then
+			assertThat(registry.get("analytics.influx.writer.spilled").counter().count()).isEqualTo(2);
+			assertThat(registry.get("analytics.influx.writer.dropped").tag("reason", "overflow").counter().count()).isEqualTo(1);
+			assertThat(Files.size(spillDir.resolve("influx-spill.lp"))).isEqualTo(14);
+			release.countDown();
+		}
+	}
+
+	@Test
+	void shouldSpillTheRecordsOfABatchThatDoNotFitTogether() throws Exception {
+		// Given
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try (InfluxBatchWriter writer = new InfluxBatchWriter(lines -> {
+			started.countDown();
+			release.await();
+		}, settings(2, 1, 60_000, InfluxBatchWriter.Overflow.SPILL), registry)) {
+			writer.offer("m v=0");
+			assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+			// When
+			int accepted = writer.offerAll(List.of("m v=1", "m v=2", "m v=3", "m v=4", "m v=5"));
+
+			// Then
+			assertThat(accepted).isEqualTo(2);
+			assertThat(Files.readString(spillDir.resolve("influx-spill.lp"))).isEqualTo("m v=3\nm v=4\nm v=5\n");
+			assertThat(registry.get("analytics.influx.writer.spilled").counter().count()).isEqualTo(3);
+			release.countDown();
+		}
+	}
+
+	private InfluxBatchWriter.Settings settings(int capacity, int batchSize, long flushIntervalMs, InfluxBatchWriter.Overflow overflow) {
+		return new InfluxBatchWriter.Settings(capacity, batchSize, flushIntervalMs, 1, 1, overflow, spillDir, 1024 * 1024);
+	}
+
+}
@@ -0,0 +1,208 @@
+package pt.lunasoft.analytics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static pt.lunasoft.analytics.TestTransactions.purchase;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pt.lunasoft.analytics.model.AccountMetrics;
+import pt.lunasoft.models.Transaction;
+import reactor.core.publisher.Mono;
+
+class MetricsAggregationServiceTest {
+
+	private final RollupService rollupService = mock(RollupService.class);
+
+	@SuppressWarnings("unchecked")
+	private final ReactiveRedisTemplate<String, AccountMetrics> redisTemplate = mock(ReactiveRedisTemplate.class);
+
+	@SuppressWarnings("unchecked")
+	private final ReactiveValueOperations<String, AccountMetrics> valueOperations = mock(ReactiveValueOperations.class);
+
+	@SuppressWarnings("unchecked")
+	private final ReactiveRedisTemplate<String, byte[]> sketchRedisTemplate = mock(ReactiveRedisTemplate.class);
+
+	@SuppressWarnings("unchecked")
+	private final ReactiveValueOperations<String, byte[]> sketchOperations = mock(ReactiveValueOperations.class);
+
+	@Test
+	void shouldWriteEachChangedAccountOncePerFlush() {
+		// Given
+		MetricsAggregationService service = service(100);
+
+		// When
+		service.processBatch(List.of(purchase("ACC1", "10.00"), purchase("ACC1", "30.00")));
+		service.processBatch(List.of(purchase("ACC2", "5.00")));
+		verify(valueOperations, never()).set(anyString(), any(AccountMetrics.class), any(Duration.class));
+		service.flushDirty();
+		service.flushDirty();
+
+		// Then
+		verify(rollupService, times(3)).add(any(Transaction.class));
+		verify(valueOperations, times(1)).set(eq("account:metrics:ACC1"), any(AccountMetrics.class), any(Duration.class));
+		verify(valueOperations, times(1)).set(eq("account:metrics:ACC2"), any(AccountMetrics.class), any(Duration.class));
+		assertThat(service.getGlobalMetrics().getTotalTransactions()).isEqualTo(3);
+		AccountMetrics acc1 = service.getAccountMetrics("ACC1").block();
+		assertThat(acc1.getTotalTransactions()).isEqualTo(2);
+		assertThat(acc1.getAverageTransactionAmount()).isEqualByComparingTo("20.00");
+		assertThat(acc1.getUniqueMerchants()).isEqualTo(1);
+		assertThat(service.getGlobalMetrics().getTopMerchants()).containsEntry("Merchant", 3L);
+	}
+
+	@Test
+	void shouldCountEveryTransactionUnderConcurrentBatches() throws Exception {
+		// Given
+		MetricsAggregationService service = service(100);
+		int threads = 8;
+		int batchesPerThread = 200;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+
+		// When
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int b = 0; b < batchesPerThread; b++) {
+					service.processBatch(List.of(purchase("HOT", "1.25"), purchase("HOT", "0.75")));
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(30, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		// Then
+		AccountMetrics hot = service.getAccountMetrics("HOT").block();
+		long expected = 2L * threads * batchesPerThread;
+		assertThat(hot.getTotalTransactions()).isEqualTo(expected);
+		assertThat(hot.getTotalSpending()).isEqualByComparingTo(BigDecimal.valueOf(expected));
+		assertThat(hot.getTransactionsByType()).containsEntry("PURCHASE", expected);
+		assertThat(hot.getSpendingByCategory().get("groceries")).isEqualByComparingTo(BigDecimal.valueOf(expected));
+	}
+
+	@Test
+	void shouldResumeEvictedAccountsFromRedis() {
+		// Given
+		MetricsAggregationService service = service(100);
+		AccountMetrics stored = AccountMetrics.builder()
+				.accountId("ACC9")
+				.totalTransactions(4L)
+				.totalSpending(new BigDecimal("40.00"))
+				.transactionsByType(Map.of("PURCHASE", 4L))
+				.build();
+		when(valueOperations.multiGet(List.of("account:metrics:ACC9"))).thenReturn(Mono.just(List.of(stored)));
+
+		// When
+		service.processBatch(List.of(purchase("ACC9", "10.00")));
+
+		// Then
+		AccountMetrics restored = service.getAccountMetrics("ACC9").block();
+		assertThat(restored.getTotalTransactions()).isEqualTo(5);
+		assertThat(restored.getTotalSpending()).isEqualByComparingTo("50.00");
+		assertThat(restored.getAverageTransactionAmount()).isEqualByComparingTo("10.00");
+		assertThat(restored.getTransactionsByType()).containsEntry("PURCHASE", 5L);
+	}
+
+	@Test
+	void shouldRetryFailedWritesOnNextFlush() {
+		// Given
+		MetricsAggregationService service = service(100);
+		when(valueOperations.set(eq("account:metrics:ACC1"), any(AccountMetrics.class), any(Duration.class)))
+				.thenReturn(Mono.error(new IllegalStateException("redis down")), Mono.just(true));
+		service.processBatch(List.of(purchase("ACC1", "10.00")));
+
+		// When
+		service.flushDirty();
+		int dirtyAfterFailure = service.dirtyAccounts();
+		service.flushDirty();
+
+		// Then
+		assertThat(dirtyAfterFailure).isEqualTo(1);
+		assertThat(service.dirtyAccounts()).isZero();
+		verify(valueOperations, times(2)).set(eq("account:metrics:ACC1"), any(AccountMetrics.class), any(Duration.class));
+	}
+
+	@Test
+	void shouldKeepChangesOfEvictedAccountsUntilFlushed() {
+		// Given one account fits in memory
+		MetricsAggregationService service = service(1);
+		service.processBatch(List.of(purchase("ACC1", "10.00")));
+
+		// When
+		for (int i = 0; i < 50; i++) {
+			service.processBatch(List.of(purchase("ACC" + (i + 2), "1.00")));
+		}
+		service.processBatch(List.of(purchase("ACC1", "5.00")));
+		service.flushDirty();
+
+		// Then ACC1 resumed from its unflushed state rather than from zero
+		ArgumentCaptor<AccountMetrics> written = ArgumentCaptor.forClass(AccountMetrics.class);
+		verify(valueOperations, atLeastOnce()).set(eq("account:metrics:ACC1"), written.capture(), any(Duration.class));
+		assertThat(written.getValue().getTotalTransactions()).isEqualTo(2);
+		assertThat(written.getValue().getTotalSpending()).isEqualByComparingTo("15.00");
+	}
+
+	@Test
+	void shouldKeepSketchesOutOfTheMetricsJson() throws Exception {
+		// Given
+		MetricsAggregationService service = service(100);
+		service.processBatch(List.of(purchase("ACC1", "10.00"), purchase("ACC1", "20.00")));
+
+		// When
+		service.flushDirty();
+
+		// Then the sketches go to their own key and restore the estimates of an evicted account
+		ArgumentCaptor<AccountMetrics> metrics = ArgumentCaptor.forClass(AccountMetrics.class);
+		ArgumentCaptor<byte[]> sketches = ArgumentCaptor.forClass(byte[].class);
+		verify(valueOperations).set(eq("account:metrics:ACC1"), metrics.capture(), any(Duration.class));
+		verify(sketchOperations).set(eq("account:sketches:ACC1"), sketches.capture(), any(Duration.class));
+		assertThat(new ObjectMapper().findAndRegisterModules().writeValueAsString(metrics.getValue())).doesNotContainIgnoringCase("sketch");
+
+		AccountMetrics restored = AccountAccumulator.restore(metrics.getValue(), sketches.getValue(), 10, 0.01).snapshot();
+		assertThat(restored.getUniqueMerchants()).isEqualTo(1);
+		assertThat(restored.getP50Amount()).isCloseTo(10.0, within(0.1));
+	}
+
+	private MetricsAggregationService service(long maxAccounts) {
+		when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+		when(valueOperations.set(anyString(), any(AccountMetrics.class), any(Duration.class))).thenReturn(Mono.just(true));
+		when(valueOperations.multiGet(anyList())).thenAnswer(invocation -> Mono.just(Arrays.asList(new AccountMetrics[invocation.<List<?>>getArgument(0).size()])));
+		when(sketchRedisTemplate.opsForValue()).thenReturn(sketchOperations);
+		when(sketchOperations.set(anyString(), any(byte[].class), any(Duration.class))).thenReturn(Mono.just(true));
+		when(sketchOperations.multiGet(anyList())).thenAnswer(invocation -> Mono.just(Arrays.asList(new byte[invocation.<List<?>>getArgument(0).size()][])));
+		return new MetricsAggregationService(rollupService, redisTemplate, sketchRedisTemplate, maxAccounts, Duration.ofHours(1), 16);
+	}
+
+}
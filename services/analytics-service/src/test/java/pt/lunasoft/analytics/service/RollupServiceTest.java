@@ -0,0 +1,149 @@
+package pt.lunasoft.analytics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static pt.lunasoft.analytics.TestTransactions.purchase;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import pt.lunasoft.analytics.model.TimeSeriesDataPoint;
+import pt.lunasoft.analytics.rollup.RollupStats;
+
+class RollupServiceTest {
+
+	private static final Instant WINDOW = Instant.parse("2026-01-01T10:00:00Z");
+
+	private final InfluxDBService influxDBService = mock(InfluxDBService.class);
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final RollupService service = new RollupService(influxDBService, registry, 2000, 30_000, true, "analytics-0");
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void shouldWriteOneRollupPerTagSetAndWindowInsteadOfOnePointPerTransaction() {
+		// Given
+		for (int i = 1; i <= 100; i++) {
+			service.add(purchase("ACC" + (i % 10), BigDecimal.valueOf(i), WINDOW.plusMillis(i)));
+		}
+		// moves event time past the end of every window above
+		service.add(purchase("ACC-next", BigDecimal.valueOf(1), WINDOW.plusSeconds(5 * 60 + 3)));
+
+		// When
+		service.flush(WINDOW.plusSeconds(5 * 60 + 3));
+
+		// Then
+		ArgumentCaptor<List<TimeSeriesDataPoint>> captor = ArgumentCaptor.forClass(List.class);
+		verify(influxDBService).writeBatch(captor.capture());
+		Map<String, List<TimeSeriesDataPoint>> byMeasurement = captor.getValue().stream()
+				.collect(Collectors.groupingBy(TimeSeriesDataPoint::getMetric));
+		assertThat(byMeasurement.keySet()).containsExactlyInAnyOrder("transaction_1s", "transaction_1m", "transaction_5m", "account_transaction_1m");
+		assertThat(byMeasurement.get("account_transaction_1m")).hasSize(10);
+
+		TimeSeriesDataPoint minute = byMeasurement.get("transaction_1m").get(0);
+		assertThat(minute.getTimestamp()).isEqualTo(WINDOW);
+		assertThat(minute.getTags()).doesNotContainKey("account_id").containsEntry("instance", "analytics-0");
+		assertThat(minute.getFields()).containsEntry("count", 100.0).containsEntry("sum", 5050.0)
+				.containsEntry("min", 1.0).containsEntry("max", 100.0);
+		assertThat(minute.getFields().get("p50")).isCloseTo(50.0, within(1.5));
+		assertThat(service.openWindows()).isEqualTo(4);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void shouldWriteSketchBucketsThatMergeAcrossInstances() {
+		// Given - the low half of the amounts on one instance, the high half on another
+		RollupService other = new RollupService(influxDBService, registry, 2000, 30_000, false, "analytics-1");
+		for (int i = 1; i <= 100; i++) {
+			(i <= 50 ? service : other).add(purchase("ACC1", BigDecimal.valueOf(i), WINDOW.plusMillis(i)));
+		}
+
+		// When
+		service.shutdown();
+		other.shutdown();
+
+		// Then
+		ArgumentCaptor<List<TimeSeriesDataPoint>> captor = ArgumentCaptor.forClass(List.class);
+		verify(influxDBService, times(2)).writeBatch(captor.capture());
+		List<TimeSeriesDataPoint> points = captor.getAllValues().stream().flatMap(List::stream).toList();
+		Map<String, Double> summed = points.stream()
+				.filter(point -> point.getMetric().equals("transaction_1m"))
+				.flatMap(point -> point.getFields().entrySet().stream())
+				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, Double::sum));
+		assertThat(RollupStats.sketchFromBuckets(summed).quantile(0.50)).isCloseTo(50.0, within(1.5));
+		assertThat(points).filteredOn(point -> point.getMetric().equals("transaction_1s"))
+				.allSatisfy(point -> assertThat(point.getFields()).doesNotContainKey(RollupStats.ZERO_BUCKET_FIELD));
+	}
+
+	@Test
+	void shouldKeepOpenWindowsAndRejectLateTransactions() {
+		// Given
+		service.add(purchase("ACC1", BigDecimal.valueOf(10), WINDOW));
+		service.add(purchase("ACC1", BigDecimal.valueOf(10), WINDOW.plusSeconds(3)));
+
+		// When
+		service.flush(WINDOW.plusSeconds(3));
+
+		// Then the first 1s window is written; the second one, 1m, 5m and account windows stay open
+		verify(influxDBService).writeBatch(any());
+		assertThat(service.openWindows()).isEqualTo(4);
+
+		// When a transaction for the written second arrives
+		service.add(purchase("ACC1", BigDecimal.valueOf(10), WINDOW.plusMillis(500)));
+
+		// Then it only reaches the still open windows
+		assertThat(registry.get("analytics.rollup.late").counter().count()).isEqualTo(1);
+		assertThat(service.openWindows()).isEqualTo(4);
+	}
+
+	@Test
+	void shouldKeepWindowsOpenWhileConsumerLagsBehindWallClock() {
+		// Given - events from hours ago, as when the consumer catches up on a backlog
+		service.add(purchase("ACC1", BigDecimal.valueOf(10), WINDOW));
+
+		// When
+		service.flush(Instant.now());
+		service.add(purchase("ACC1", BigDecimal.valueOf(10), WINDOW.plusMillis(500)));
+
+		// Then
+		verify(influxDBService, never()).writeBatch(any());
+		assertThat(registry.get("analytics.rollup.late").counter().count()).isZero();
+	}
+
+	@Test
+	void shouldWriteOpenWindowsOnShutdown() {
+		// Given
+		service.add(purchase("ACC1", BigDecimal.valueOf(10), WINDOW));
+
+		// When
+		service.shutdown();
+
+		// Then
+		verify(influxDBService).writeBatch(any());
+		assertThat(service.openWindows()).isZero();
+	}
+
+	@Test
+	void shouldNotWriteWhenNoWindowClosed() {
+		// Given
+		service.add(purchase("ACC1", BigDecimal.valueOf(10), WINDOW));
+
+		// When
+		service.flush(WINDOW.plusMillis(2500));
+
+		// Then
+		verify(influxDBService, never()).writeBatch(any());
+	}
+
+}
@@ -0,0 +1,141 @@
+package pt.lunasoft.analytics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.HostInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+
+import pt.lunasoft.analytics.TestTransactions;
+import pt.lunasoft.analytics.controller.WindowStoreController;
+import pt.lunasoft.analytics.model.TransactionStats;
+import pt.lunasoft.analytics.streams.AnalyticsTopologyFixture;
+import pt.lunasoft.analytics.streams.TransactionAnalyticsTopology;
+import pt.lunasoft.models.Transaction;
+import reactor.test.StepVerifier;
+
+class WindowStoreQueryServiceTest {
+
+	private static final Instant WINDOW = Instant.parse("2026-01-01T10:00:00Z");
+
+	private TopologyTestDriver testDriver;
+	private TestInputTopic<String, Transaction> inputTopic;
+
+	@BeforeEach
+	void setUp() {
+		AnalyticsTopologyFixture fixture = new AnalyticsTopologyFixture();
+		testDriver = fixture.start();
+		inputTopic = fixture.input();
+	}
+
+	@AfterEach
+	void tearDown() {
+		testDriver.close();
+	}
+
+	@Test
+	void shouldReadAccountWindowsFromNamedStore() {
+		// Given
+		inputTopic.pipeInput("ACC001", transaction("ACC001", "100"), WINDOW.plusSeconds(10));
+		inputTopic.pipeInput("ACC001", transaction("ACC001", "200"), WINDOW.plusSeconds(20));
+		inputTopic.pipeInput("ACC001", transaction("ACC001", "50"), WINDOW.plusSeconds(5 * 60 + 1));
+		inputTopic.pipeInput("ACC002", transaction("ACC002", "999"), WINDOW.plusSeconds(30));
+
+		// When
+		List<TransactionStats> windows = WindowStoreQueryService.readWindows(
+				testDriver.getWindowStore(TransactionAnalyticsTopology.ACCOUNT_STATS_STORE),
+				testDriver.getWindowStore(TransactionAnalyticsTopology.ACCOUNT_SKETCHES_STORE), TransactionAnalyticsTopology.ACCOUNT_STATS_STORE,
+				"ACC001", WINDOW, WINDOW.plus(Duration.ofHours(1)), Duration.ofMinutes(5));
+
+		// Then
+		assertThat(windows).hasSize(2);
+		assertThat(windows.get(0).getWindowStart()).isEqualTo(WINDOW);
+		assertThat(windows.get(0).getWindowEnd()).isEqualTo(WINDOW.plus(Duration.ofMinutes(5)));
+		assertThat(windows.get(0).getAccountId()).isEqualTo("ACC001");
+		assertThat(windows.get(0).getTransactionCount()).isEqualTo(2);
+		assertThat(windows.get(0).getTotalAmount()).isEqualByComparingTo("300");
+		assertThat(windows.get(0).getUniqueMerchants()).isEqualTo(1);
+		assertThat(windows.get(0).getP50Amount().doubleValue()).isCloseTo(100, within(1.0));
+		assertThat(windows.get(1).getTransactionCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldAnswer503WithRetryAfterWhileOwnerIsUnknown() {
+		// Given
+		WebTestClient client = WebTestClient.bindToController(new WindowStoreController(queryService(HostInfo.unavailable()))).build();
+
+		// When / Then
+		client.get().uri("/api/v1/analytics/windows/accounts/ACC001")
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+				.expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "5");
+	}
+
+	@Test
+	void shouldMapSilentOwnerTo504AndUnreachableOwnerTo502() throws IOException {
+		try (ServerSocket silent = new ServerSocket(0)) {
+			// Given - accepts connections but never answers
+			WindowStoreQueryService slow = queryService(new HostInfo("localhost", silent.getLocalPort()));
+			int closedPort;
+			try (ServerSocket closed = new ServerSocket(0)) {
+				closedPort = closed.getLocalPort();
+			}
+			WindowStoreQueryService down = queryService(new HostInfo("localhost", closedPort));
+
+			// When / Then
+			StepVerifier.create(slow.fetch(TransactionAnalyticsTopology.ACCOUNT_STATS_STORE, "ACC001", WINDOW, WINDOW.plusSeconds(60), false))
+					.expectErrorSatisfies(ex -> assertThat(((ResponseStatusException) ex).getStatusCode()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT))
+					.verify(Duration.ofSeconds(5));
+			StepVerifier.create(down.fetch(TransactionAnalyticsTopology.ACCOUNT_STATS_STORE, "ACC001", WINDOW, WINDOW.plusSeconds(60), false))
+					.expectErrorSatisfies(ex -> assertThat(((ResponseStatusException) ex).getStatusCode()).isEqualTo(HttpStatus.BAD_GATEWAY))
+					.verify(Duration.ofSeconds(5));
+		}
+	}
+
+	private static WindowStoreQueryService queryService(HostInfo owner) {
+		KafkaStreams streams = mock(KafkaStreams.class);
+		when(streams.state()).thenReturn(KafkaStreams.State.RUNNING);
+		when(streams.queryMetadataForKey(anyString(), anyString(), any(Serializer.class))).thenReturn(new KeyQueryMetadata(owner, Set.of(), 0));
+		StreamsBuilderFactoryBean factoryBean = mock(StreamsBuilderFactoryBean.class);
+		when(factoryBean.getKafkaStreams()).thenReturn(streams);
+
+		WindowStoreQueryService service = new WindowStoreQueryService(factoryBean, WebClient.builder());
+		ReflectionTestUtils.setField(service, "host", "analytics-0");
+		ReflectionTestUtils.setField(service, "port", 8082);
+		ReflectionTestUtils.setField(service, "windowSizeMinutes", 5);
+		ReflectionTestUtils.setField(service, "forwardTimeoutMs", 300L);
+		ReflectionTestUtils.setField(service, "retryAfterSeconds", 5L);
+		return service;
+	}
+
+	private static Transaction transaction(String accountId, String amount) {
+		return TestTransactions.purchase(accountId, new BigDecimal(amount), WINDOW);
+	}
+
+}
@@ -0,0 +1,105 @@
+package pt.lunasoft.analytics.sketch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class SketchesTest {
+
+	@Test
+	void shouldEstimateDistinctCountOfMergedHyperLogLogs() {
+		// Given
+		HyperLogLog first = new HyperLogLog(12);
+		HyperLogLog second = new HyperLogLog(12);
+		for (int i = 0; i < 60_000; i++) {
+			first.add("merchant-" + i);
+			second.add("merchant-" + (i + 40_000));
+		}
+
+		// When
+		HyperLogLog merged = HyperLogLog.fromBytes(first.toBytes()).merge(HyperLogLog.fromBytes(second.toBytes()));
+
+		// Then 100k distinct values, ~1.6% standard error
+		assertThat((double) merged.estimate()).isCloseTo(100_000, within(5_000.0));
+	}
+
+	@Test
+	void shouldKeepSmallHyperLogLogsSparseAndExactish() {
+		// Given
+		HyperLogLog sketch = new HyperLogLog(10);
+		for (int i = 0; i < 20; i++) {
+			sketch.add("device-" + (i % 5));
+		}
+
+		// When
+		byte[] bytes = sketch.toBytes();
+
+		// Then
+		assertThat(bytes.length).isLessThan(32);
+		assertThat(HyperLogLog.fromBytes(bytes).estimate()).isEqualTo(5);
+	}
+
+	@Test
+	void shouldAnswerQuantilesWithinRelativeAccuracyAfterMerge() {
+		// Given
+		QuantileSketch first = new QuantileSketch(0.01);
+		QuantileSketch second = new QuantileSketch(0.01);
+		for (int i = 1; i <= 10_000; i++) {
+			(i % 2 == 0 ? first : second).add(i);
+		}
+
+		// When
+		QuantileSketch merged = QuantileSketch.fromBytes(first.toBytes()).merge(second);
+
+		// Then
+		assertThat(merged.count()).isEqualTo(10_000);
+		assertThat(merged.quantile(0.5)).isCloseTo(5_000, within(100.0));
+		assertThat(merged.quantile(0.99)).isCloseTo(9_900, within(200.0));
+	}
+
+	@Test
+	void shouldTrackHeavyHittersInBoundedSpace() {
+		// Given
+		SplittableRandom random = new SplittableRandom(1);
+		TopK first = new TopK(16);
+		TopK second = new TopK(16);
+		for (int i = 0; i < 20_000; i++) {
+			TopK target = i % 2 == 0 ? first : second;
+			// a long tail of rare merchants plus three hot ones
+			target.add(random.nextInt(10) < 5 ? "hot-" + random.nextInt(3) : "tail-" + random.nextInt(5_000));
+		}
+
+		// When
+		TopK merged = TopK.fromBytes(first.toBytes()).merge(second);
+
+		// Then
+		assertThat(merged.top(3)).containsOnlyKeys("hot-0", "hot-1", "hot-2");
+		assertThat(merged.top(100)).hasSizeLessThanOrEqualTo(16);
+	}
+
+	@Test
+	void shouldRoundTripSketchesThroughBinaryForm() {
+		// Given
+		HyperLogLog merchants = new HyperLogLog(10);
+		merchants.add("A");
+		merchants.add("B");
+		QuantileSketch amounts = new QuantileSketch(0.01);
+		amounts.add(42.0);
+		TopK countries = new TopK(4);
+		countries.add("PT");
+
+		// When
+		HyperLogLog restoredMerchants = HyperLogLog.fromBytes(merchants.toBytes());
+		QuantileSketch restoredAmounts = QuantileSketch.fromBytes(amounts.toBytes());
+		TopK restoredCountries = TopK.fromBytes(countries.toBytes());
+
+		// Then
+		assertThat(restoredMerchants.estimate()).isEqualTo(2);
+		assertThat(restoredAmounts.quantile(0.5)).isCloseTo(42.0, within(0.5));
+		assertThat(restoredCountries.top(1)).containsEntry("PT", 1L);
+	}
+
+}
@@ -0,0 +1,97 @@
+package pt.lunasoft.analytics.streams;
+
+import java.util.Properties;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.springframework.kafka.support.serializer.JsonSerde;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import pt.lunasoft.analytics.model.TransactionStats;
+import pt.lunasoft.models.Transaction;
+
+/**
+ * Builds {@link TransactionAnalyticsTopology} on a {@link TopologyTestDriver} with the settings of
+ * application.yml (5-minute windows, 1 minute of grace, 1-second partial flushes), emitting
+ * updates unless {@link #emitMode} says otherwise.
+ */
+public final class AnalyticsTopologyFixture {
+
+	public static final String INPUT_TOPIC = "transactions.incoming";
+	public static final String OUTPUT_TOPIC = "analytics.aggregated";
+
+	private final JsonSerde<Transaction> transactionSerde = new JsonSerde<>(Transaction.class).noTypeInfo().ignoreTypeHeaders();
+	private final JsonSerde<TransactionStats> statsSerde = new JsonSerde<>(TransactionStats.class).noTypeInfo().ignoreTypeHeaders();
+
+	private String windowType = "tumbling";
+	private String emitMode = "updates";
+	private long suppressBufferMaxBytes = 1024 * 1024;
+	private boolean recordCache = true;
+
+	private TopologyTestDriver testDriver;
+
+	public AnalyticsTopologyFixture windowType(String windowType) {
+		this.windowType = windowType;
+		return this;
+	}
+
+	public AnalyticsTopologyFixture emitMode(String emitMode) {
+		this.emitMode = emitMode;
+		return this;
+	}
+
+	public AnalyticsTopologyFixture suppressBufferMaxBytes(long suppressBufferMaxBytes) {
+		this.suppressBufferMaxBytes = suppressBufferMaxBytes;
+		return this;
+	}
+
+	/**
+	 * Turns off the store cache, so updates mode emits every change.
+	 */
+	public AnalyticsTopologyFixture withoutRecordCache() {
+		this.recordCache = false;
+		return this;
+	}
+
+	public TopologyTestDriver start() {
+		TransactionAnalyticsTopology topology = new TransactionAnalyticsTopology(transactionSerde, statsSerde);
+		ReflectionTestUtils.setField(topology, "transactionsIncomingTopic", INPUT_TOPIC);
+		ReflectionTestUtils.setField(topology, "analyticsAggregatedTopic", OUTPUT_TOPIC);
+		ReflectionTestUtils.setField(topology, "windowSizeMinutes", 5);
+		ReflectionTestUtils.setField(topology, "gracePeriodMinutes", 1);
+		ReflectionTestUtils.setField(topology, "partialFlushMs", 1000L);
+		ReflectionTestUtils.setField(topology, "windowType", windowType);
+		ReflectionTestUtils.setField(topology, "advanceMinutes", 1);
+		ReflectionTestUtils.setField(topology, "emitMode", emitMode);
+		ReflectionTestUtils.setField(topology, "suppressBufferMaxBytes", suppressBufferMaxBytes);
+		ReflectionTestUtils.setField(topology, "retentionHours", 24);
+
+		StreamsBuilder builder = new StreamsBuilder();
+		topology.processTransactionStream(builder);
+
+		Properties props = new Properties();
+		props.put(StreamsConfig.APPLICATION_ID_CONFIG, "test");
+		props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:1234");
+		if (!recordCache) {
+			props.put(StreamsConfig.STATESTORE_CACHE_MAX_BYTES_CONFIG, 0L);
+		}
+		testDriver = new TopologyTestDriver(builder.build(), props);
+		return testDriver;
+	}
+
+	public TestInputTopic<String, Transaction> input() {
+		return testDriver.createInputTopic(INPUT_TOPIC, Serdes.String().serializer(), transactionSerde.serializer());
+	}
+
+	/**
+	 * @param suffix by-account, by-category or global
+	 */
+	public TestOutputTopic<String, TransactionStats> output(String suffix) {
+		return testDriver.createOutputTopic(OUTPUT_TOPIC + "." + suffix, Serdes.String().deserializer(), statsSerde.deserializer());
+	}
+
+}
@@ -0,0 +1,94 @@
+package pt.lunasoft.analytics.streams;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.WindowStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pt.lunasoft.analytics.TestTransactions;
+import pt.lunasoft.analytics.model.TransactionStats;
+import pt.lunasoft.models.Transaction;
+
+class PartialStatsProcessorTest {
+
+	private static final Instant WINDOW = Instant.parse("2026-01-01T10:00:00Z");
+
+	private TopologyTestDriver testDriver;
+	private TestInputTopic<String, Transaction> inputTopic;
+
+	@BeforeEach
+	void setUp() {
+		AnalyticsTopologyFixture fixture = new AnalyticsTopologyFixture();
+		testDriver = fixture.start();
+		inputTopic = fixture.input();
+	}
+
+	@AfterEach
+	void tearDown() {
+		testDriver.close();
+	}
+
+	@Test
+	void shouldMergePartialsIntoCategoryAndGlobalWindows() {
+		// Given
+		inputTopic.pipeInput("ACC001", transaction("ACC001", "100", "groceries"), WINDOW.plusSeconds(1));
+		inputTopic.pipeInput("ACC002", transaction("ACC002", "300", "groceries"), WINDOW.plusSeconds(2));
+		inputTopic.pipeInput("ACC003", transaction("ACC003", "50", "travel"), WINDOW.plusSeconds(3));
+		inputTopic.pipeInput("ACC004", transaction("ACC004", "10", null), WINDOW.plusSeconds(4));
+
+		// When
+		testDriver.advanceWallClockTime(Duration.ofSeconds(1));
+
+		// Then
+		TransactionStats global = windowValue(TransactionAnalyticsTopology.GLOBAL_STATS_STORE, PartialStatsProcessor.GLOBAL_KEY);
+		assertThat(global.getTransactionCount()).isEqualTo(4);
+		assertThat(global.getTotalAmount()).isEqualByComparingTo("460");
+		assertThat(global.getMinAmount()).isEqualByComparingTo("10");
+		assertThat(global.getMaxAmount()).isEqualByComparingTo("300");
+		TransactionStats globalEstimates = windowSketches(TransactionAnalyticsTopology.GLOBAL_SKETCHES_STORE, PartialStatsProcessor.GLOBAL_KEY);
+		assertThat(globalEstimates.getUniqueMerchants()).isEqualTo(1);
+		assertThat(globalEstimates.getP50Amount().doubleValue()).isCloseTo(50, within(0.5));
+
+		TransactionStats groceries = windowValue(TransactionAnalyticsTopology.CATEGORY_STATS_STORE, "groceries");
+		assertThat(groceries.getTransactionCount()).isEqualTo(2);
+		assertThat(groceries.getAverageAmount()).isEqualByComparingTo("200");
+		assertThat(windowValue(TransactionAnalyticsTopology.CATEGORY_STATS_STORE, "travel").getTransactionCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldNotForwardPartialsBeforeFlush() {
+		// Given
+		inputTopic.pipeInput("ACC001", transaction("ACC001", "100", "groceries"), WINDOW.plusSeconds(1));
+
+		// When / Then
+		assertThat(windowValue(TransactionAnalyticsTopology.GLOBAL_STATS_STORE, PartialStatsProcessor.GLOBAL_KEY)).isNull();
+	}
+
+	private TransactionStats windowValue(String storeName, String key) {
+		WindowStore<String, StatsAggregate> store = testDriver.getWindowStore(storeName);
+		try (var iterator = store.fetch(key, WINDOW, WINDOW.plus(Duration.ofMinutes(5)))) {
+			return iterator.hasNext() ? iterator.next().value.toStats() : null;
+		}
+	}
+
+	private TransactionStats windowSketches(String storeName, String key) {
+		WindowStore<String, WindowSketches> store = testDriver.getWindowStore(storeName);
+		try (var iterator = store.fetch(key, WINDOW, WINDOW.plus(Duration.ofMinutes(5)))) {
+			return iterator.hasNext() ? iterator.next().value.fill(new TransactionStats()) : null;
+		}
+	}
+
+	private static Transaction transaction(String accountId, String amount, String category) {
+		return TestTransactions.builder(accountId, new BigDecimal(amount)).merchantCategory(category).timestamp(WINDOW).build();
+	}
+
+}
@@ -0,0 +1,50 @@
+package pt.lunasoft.analytics.streams;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import pt.lunasoft.analytics.model.TransactionStats;
+
+class StatsAggregateTest {
+
+	private final StatsAggregateSerde serde = new StatsAggregateSerde();
+
+	@Test
+	void shouldRoundTripThroughFixedSizeBinaryForm() {
+		// Given
+		StatsAggregate aggregate = new StatsAggregate().add(new BigDecimal("10.25")).add(new BigDecimal("0.0001")).add(new BigDecimal("99.99"));
+
+		// When
+		byte[] bytes = serde.serializer().serialize("topic", aggregate);
+		TransactionStats stats = serde.deserializer().deserialize("topic", bytes).toStats();
+
+		// Then
+		assertThat(bytes).hasSize(StatsAggregate.SIZE_BYTES);
+		assertThat(stats.getTransactionCount()).isEqualTo(3);
+		assertThat(stats.getTotalAmount()).isEqualByComparingTo("110.2401");
+		assertThat(stats.getMinAmount()).isEqualByComparingTo("0.0001");
+		assertThat(stats.getMaxAmount()).isEqualByComparingTo("99.99");
+		assertThat(stats.getAverageAmount()).isEqualByComparingTo("36.75");
+	}
+
+	@Test
+	void shouldMergePartialsAndKeepEmptyAggregatesNeutral() {
+		// Given
+		StatsAggregate first = new StatsAggregate().add(new BigDecimal("5"));
+		StatsAggregate second = new StatsAggregate().add(new BigDecimal("20")).add(new BigDecimal("1"));
+
+		// When
+		TransactionStats merged = new StatsAggregate().merge(first).merge(new StatsAggregate()).merge(second).toStats();
+
+		// Then
+		assertThat(merged.getTransactionCount()).isEqualTo(3);
+		assertThat(merged.getTotalAmount()).isEqualByComparingTo("26");
+		assertThat(merged.getMinAmount()).isEqualByComparingTo("1");
+		assertThat(merged.getMaxAmount()).isEqualByComparingTo("20");
+		assertThat(new StatsAggregate().toStats().getAverageAmount()).isNull();
+	}
+
+}
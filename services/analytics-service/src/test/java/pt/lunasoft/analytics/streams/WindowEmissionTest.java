@@ -0,0 +1,119 @@
+package pt.lunasoft.analytics.streams;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import pt.lunasoft.analytics.TestTransactions;
+import pt.lunasoft.analytics.model.TransactionStats;
+import pt.lunasoft.models.Transaction;
+
+class WindowEmissionTest {
+
+	private static final Instant WINDOW = Instant.parse("2026-01-01T10:00:00Z");
+
+	private TopologyTestDriver testDriver;
+	private TestInputTopic<String, Transaction> inputTopic;
+	private TestOutputTopic<String, TransactionStats> byAccount;
+
+	@AfterEach
+	void tearDown() {
+		testDriver.close();
+	}
+
+	@Test
+	void shouldEmitOneFinalRecordPerWindowAfterGrace() {
+		// Given
+		start("tumbling", "final");
+		for (int i = 0; i < 10; i++) {
+			inputTopic.pipeInput("ACC001", transaction("ACC001", "10"), WINDOW.plusSeconds(i));
+		}
+
+		// When stream time passes the window end but not the grace period
+		inputTopic.pipeInput("ACC002", transaction("ACC002", "1"), WINDOW.plusSeconds(5 * 60 + 30));
+
+		// Then
+		assertThat(byAccount.isEmpty()).isTrue();
+
+		// When stream time passes end + grace
+		inputTopic.pipeInput("ACC002", transaction("ACC002", "1"), WINDOW.plusSeconds(6 * 60 + 1));
+
+		// Then
+		List<TransactionStats> emitted = byAccount.readValuesToList();
+		assertThat(emitted).hasSize(1);
+		assertThat(emitted.get(0).getAccountId()).isEqualTo("ACC001");
+		assertThat(emitted.get(0).getTransactionCount()).isEqualTo(10);
+	}
+
+	@Test
+	void shouldEmitEveryUpdateInUpdatesMode() {
+		// Given
+		start("tumbling", "updates");
+
+		// When
+		for (int i = 0; i < 3; i++) {
+			inputTopic.pipeInput("ACC001", transaction("ACC001", "10"), WINDOW.plusSeconds(i));
+		}
+
+		// Then - with the estimates of the sketch store
+		List<TransactionStats> emitted = byAccount.readValuesToList();
+		assertThat(emitted).extracting(TransactionStats::getTransactionCount).containsExactly(1L, 2L, 3L);
+		assertThat(emitted).extracting(TransactionStats::getUniqueMerchants).containsOnly(1L);
+		assertThat(emitted.get(2).getP50Amount().doubleValue()).isCloseTo(10, within(0.1));
+	}
+
+	@Test
+	void shouldCountTransactionInEveryOverlappingHoppingWindow() {
+		// Given
+		start("hopping", "updates");
+
+		// When
+		inputTopic.pipeInput("ACC001", transaction("ACC001", "10"), WINDOW.plusSeconds(30));
+
+		// Then 5-minute windows advancing every minute overlap five times
+		assertThat(byAccount.readValuesToList()).hasSize(5);
+	}
+
+	@Test
+	void shouldEmitEarlyInsteadOfStoppingWhenSuppressionBufferIsFull() {
+		// Given - smaller than one buffered window
+		start("tumbling", "final", 64);
+
+		// When
+		for (int i = 0; i < 5; i++) {
+			inputTopic.pipeInput("ACC00" + i, transaction("ACC00" + i, "10"), WINDOW.plusSeconds(i));
+		}
+
+		// Then - every window is emitted as soon as it is buffered
+		assertThat(byAccount.readValuesToList()).hasSize(5);
+	}
+
+	private void start(String windowType, String emitMode) {
+		start(windowType, emitMode, 1024 * 1024);
+	}
+
+	private void start(String windowType, String emitMode, long suppressBufferMaxBytes) {
+		AnalyticsTopologyFixture fixture = new AnalyticsTopologyFixture()
+				.windowType(windowType)
+				.emitMode(emitMode)
+				.suppressBufferMaxBytes(suppressBufferMaxBytes)
+				.withoutRecordCache();
+		testDriver = fixture.start();
+		inputTopic = fixture.input();
+		byAccount = fixture.output("by-account");
+	}
+
+	private static Transaction transaction(String accountId, String amount) {
+		return TestTransactions.purchase(accountId, new BigDecimal(amount), WINDOW);
+	}
+
+}
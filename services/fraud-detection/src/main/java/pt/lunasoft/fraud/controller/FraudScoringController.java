@@ -0,0 +1,31 @@
+package pt.lunasoft.fraud.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import pt.lunasoft.fraud.model.FraudScore;
+import pt.lunasoft.fraud.service.FraudScoringService;
+import pt.lunasoft.models.Transaction;
+
+@RestController
+@RequestMapping("/api/v1/fraud")
+@RequiredArgsConstructor
+public class FraudScoringController {
+
+	private final FraudScoringService fraudScoringService;
+
+	/**
+	 * Scores a transaction for an authorization decision without recording it; the transaction
+	 * enters the account history when it is ingested.
+	 */
+	@PostMapping("/score")
+	public ResponseEntity<FraudScore> score(@Valid @RequestBody Transaction transaction) {
+		return ResponseEntity.ok(fraudScoringService.score(transaction));
+	}
+
+}
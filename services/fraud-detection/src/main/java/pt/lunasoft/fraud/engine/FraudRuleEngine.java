@@ -3,36 +3,57 @@ package pt.lunasoft.fraud.engine;
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.Instant;
-import java.time.ZonedDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import pt.lunasoft.fraud.rules.StatelessFraudRules;
 import pt.lunasoft.fraud.service.TransactionHistoryService;
 import pt.lunasoft.models.Transaction;
 
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class FraudRuleEngine {
 
     private final TransactionHistoryService historyService;
+
+    // History-free rules, shared with ingestion which pre-scores events with the same code and zone
+    private final StatelessFraudRules statelessRules;
     
     // Cache for tracking patterns
     private final Map<String, List<Transaction>> recentTransactionsCache = new ConcurrentHashMap<>();
     
     // Thresholds
-    private static final BigDecimal HIGH_AMOUNT_THRESHOLD = new BigDecimal("5000");
-    private static final BigDecimal VERY_HIGH_AMOUNT_THRESHOLD = new BigDecimal("10000");
     private static final int MAX_TRANSACTIONS_PER_HOUR = 10;
     private static final int MAX_TRANSACTIONS_PER_DAY = 50;
     private static final BigDecimal MAX_DAILY_AMOUNT = new BigDecimal("20000");
     
+    // Define weights for each rule (higher weight = more important)
+    private static final Map<String, Double> RULE_WEIGHTS = Map.of(
+            "HIGH_AMOUNT", 1.5,
+            "UNUSUAL_LOCATION", 1.2,
+            "RAPID_SUCCESSION", 1.8,
+            "UNUSUAL_TIME", 0.8,
+            "VELOCITY_CHECK", 1.5,
+            "DUPLICATE_TRANSACTION", 1.6,
+            "UNUSUAL_MERCHANT", 1.0,
+            "DEVICE_FINGERPRINT", 1.1,
+            "ROUND_AMOUNT", 0.7,
+            "GEOGRAPHIC_IMPOSSIBLE", 2.0
+    );
+    private static final double TOTAL_RULE_WEIGHT = RULE_WEIGHTS.values().stream().mapToDouble(Double::doubleValue).sum();
+
+    public FraudRuleEngine(TransactionHistoryService historyService, @Value("${app.fraud.rules.zone:UTC}") ZoneId zone) {
+        this.historyService = historyService;
+        this.statelessRules = new StatelessFraudRules(zone);
+    }
+    
     /**
      * Evaluate all fraud rules for a transaction
      * @param transaction The transaction to evaluate
@@ -59,22 +80,27 @@ public class FraudRuleEngine {
         return ruleScores;
     }
     
+    /**
+     * Evaluate only the rules that need no account history
+     * @param transaction The transaction to evaluate
+     * @return Map of rule names to their scores
+     */
+    public Map<String, Double> evaluateStatelessRules(Transaction transaction) {
+        return statelessRules.evaluate(transaction).scores();
+    }
+    
     /**
      * Rule 1: High Amount Transaction
      * Checks if transaction amount exceeds normal thresholds
      */
     public double evaluateHighAmountRule(Transaction transaction) {
-        BigDecimal amount = transaction.getAmount();
-        
-        if (amount.compareTo(VERY_HIGH_AMOUNT_THRESHOLD) > 0) {
-            log.warn("Very high amount detected: {} for account: {}", amount, transaction.getAccountId());
-            return 40.0; // Very high risk
-        } else if (amount.compareTo(HIGH_AMOUNT_THRESHOLD) > 0) {
-            log.info("High amount detected: {} for account: {}", amount, transaction.getAccountId());
-            return 25.0; // Moderate risk
+        double score = statelessRules.highAmount(transaction);
+        if (score >= 40.0) {
+            log.warn("Very high amount detected: {} for account: {}", transaction.getAmount(), transaction.getAccountId());
+        } else if (score > 0) {
+            log.info("High amount detected: {} for account: {}", transaction.getAmount(), transaction.getAccountId());
         }
-        
-        return 0.0; // No risk
+        return score;
     }
     
     /**
@@ -87,7 +113,7 @@ public class FraudRuleEngine {
         }
         
         String currentCountry = transaction.getLocation().getCountry();
-        List<Transaction> recentTransactions = historyService.getRecentTransactions(transaction.getAccountId(), 20);
+        List<Transaction> recentTransactions = recentTransactions(transaction, 20);
         
         if (recentTransactions.isEmpty()) {
             return 0.0; // No history to compare
@@ -124,7 +150,7 @@ public class FraudRuleEngine {
      * Checks if transactions are occurring too quickly
      */
     public double evaluateRapidSuccessionRule(Transaction transaction) {
-        List<Transaction> recentTransactions = historyService.getRecentTransactions(transaction.getAccountId(), 5);
+        List<Transaction> recentTransactions = recentTransactions(transaction, 5);
         
         if (recentTransactions.isEmpty()) {
             return 0.0;
@@ -153,21 +179,11 @@ public class FraudRuleEngine {
      * Checks if transaction occurs at an unusual hour
      */
     public double evaluateUnusualTimeRule(Transaction transaction) {
-        ZonedDateTime zonedDateTime = transaction.getTimestamp().atZone(java.time.ZoneId.systemDefault());
-        int hour = zonedDateTime.getHour();
-        
-        // Late night transactions (2 AM - 5 AM) are more suspicious
-        if (hour >= 2 && hour < 5) {
-            log.info("Late night transaction at {}:00 for account: {}", hour, transaction.getAccountId());
-            return 20.0;
+        double score = statelessRules.unusualTime(transaction);
+        if (score >= 20.0) {
+            log.info("Late night transaction at {}:00 for account: {}", transaction.getTimestamp().atZone(statelessRules.zone()).getHour(), transaction.getAccountId());
         }
-        
-        // Very early morning (5 AM - 6 AM)
-        if (hour >= 5 && hour < 6) {
-            return 10.0;
-        }
-        
-        return 0.0; // Normal hours
+        return score;
     }
     
     /**
@@ -180,20 +196,20 @@ public class FraudRuleEngine {
         
         // Check hourly velocity
         Instant oneHourAgo = now.minus(Duration.ofHours(1));
-        long hourlyCount = historyService.getRecentTransactions(accountId, 100).stream()
+        long hourlyCount = recentTransactions(transaction, 100).stream()
                 .filter(t -> t.getTimestamp().isAfter(oneHourAgo))
                 .count();
         
-        BigDecimal hourlyAmount = historyService.getTotalAmountSince(accountId, oneHourAgo);
+        BigDecimal hourlyAmount = totalAmountSince(transaction, oneHourAgo);
         hourlyAmount = hourlyAmount.add(transaction.getAmount());
         
         // Check daily velocity
         Instant oneDayAgo = now.minus(Duration.ofDays(1));
-        long dailyCount = historyService.getRecentTransactions(accountId, 100).stream()
+        long dailyCount = recentTransactions(transaction, 100).stream()
                 .filter(t -> t.getTimestamp().isAfter(oneDayAgo))
                 .count();
         
-        BigDecimal dailyAmount = historyService.getTotalAmountSince(accountId, oneDayAgo);
+        BigDecimal dailyAmount = totalAmountSince(transaction, oneDayAgo);
         dailyAmount = dailyAmount.add(transaction.getAmount());
         
         double riskScore = 0.0;
@@ -228,7 +244,7 @@ public class FraudRuleEngine {
      * Checks for potential duplicate/repeated transactions
      */
     public double evaluateDuplicateTransactionRule(Transaction transaction) {
-        List<Transaction> recentTransactions = historyService.getRecentTransactions(transaction.getAccountId(), 10);
+        List<Transaction> recentTransactions = recentTransactions(transaction, 10);
         
         if (recentTransactions.isEmpty()) {
             return 0.0;
@@ -259,7 +275,7 @@ public class FraudRuleEngine {
      * Checks if merchant is unusual for this account
      */
     public double evaluateUnusualMerchantRule(Transaction transaction) {
-        List<Transaction> recentTransactions = historyService.getRecentTransactions(transaction.getAccountId(), 50);
+        List<Transaction> recentTransactions = recentTransactions(transaction, 50);
         
         if (recentTransactions.size() < 10) {
             return 0.0; // Not enough history
@@ -302,7 +318,7 @@ public class FraudRuleEngine {
         }
         
         String currentDeviceId = transaction.getDeviceInfo().getDeviceId();
-        List<Transaction> recentTransactions = historyService.getRecentTransactions(transaction.getAccountId(), 30);
+        List<Transaction> recentTransactions = recentTransactions(transaction, 30);
         
         if (recentTransactions.isEmpty()) {
             return 0.0;
@@ -326,21 +342,11 @@ public class FraudRuleEngine {
      * Round amounts (like $1000.00) can indicate testing or fraud
      */
     public double evaluateRoundAmountRule(Transaction transaction) {
-        BigDecimal amount = transaction.getAmount();
-        
-        // Check if amount is exactly a round number
-        if (amount.remainder(new BigDecimal("1000")).compareTo(BigDecimal.ZERO) == 0 &&
-            amount.compareTo(new BigDecimal("1000")) >= 0) {
-            log.debug("Round amount detected: {} for account: {}", amount, transaction.getAccountId());
-            return 15.0;
-        }
-        
-        if (amount.remainder(new BigDecimal("100")).compareTo(BigDecimal.ZERO) == 0 &&
-            amount.compareTo(new BigDecimal("500")) >= 0) {
-            return 8.0;
+        double score = statelessRules.roundAmount(transaction);
+        if (score >= 15.0) {
+            log.debug("Round amount detected: {} for account: {}", transaction.getAmount(), transaction.getAccountId());
         }
-        
-        return 0.0;
+        return score;
     }
     
     /**
@@ -352,7 +358,7 @@ public class FraudRuleEngine {
             return 0.0;
         }
         
-        List<Transaction> recentTransactions = historyService.getRecentTransactions(transaction.getAccountId(), 5);
+        List<Transaction> recentTransactions = recentTransactions(transaction, 5);
         
         if (recentTransactions.isEmpty()) {
             return 0.0;
@@ -401,6 +407,25 @@ public class FraudRuleEngine {
         return 0.0;
     }
     
+    /**
+     * The account's history without the transaction itself, which is already there when a record
+     * is redelivered after it was recorded
+     */
+    private List<Transaction> recentTransactions(Transaction transaction, int limit) {
+        List<Transaction> recent = historyService.getRecentTransactions(transaction.getAccountId(), limit + 1);
+        return recent.stream()
+                .filter(t -> transaction.getId() == null || !transaction.getId().equals(t.getId()))
+                .limit(limit)
+                .toList();
+    }
+    
+    private BigDecimal totalAmountSince(Transaction transaction, Instant since) {
+        return recentTransactions(transaction, 100).stream()
+                .filter(t -> t.getTimestamp().isAfter(since))
+                .map(Transaction::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+    
     /**
      * Calculate distance between two coordinates using Haversine formula
      * @return distance in kilometers
@@ -434,31 +459,38 @@ public class FraudRuleEngine {
         double totalWeightedScore = 0.0;
         double totalWeight = 0.0;
         
-        // Define weights for each rule (higher weight = more important)
-        Map<String, Double> ruleWeights = Map.of(
-                "HIGH_AMOUNT", 1.5,
-                "UNUSUAL_LOCATION", 1.2,
-                "RAPID_SUCCESSION", 1.8,
-                "UNUSUAL_TIME", 0.8,
-                "VELOCITY_CHECK", 1.5,
-                "DUPLICATE_TRANSACTION", 1.6,
-                "UNUSUAL_MERCHANT", 1.0,
-                "DEVICE_FINGERPRINT", 1.1,
-                "ROUND_AMOUNT", 0.7,
-                "GEOGRAPHIC_IMPOSSIBLE", 2.0
-        );
-        
         for (Map.Entry<String, Double> entry : ruleScores.entrySet()) {
             String ruleName = entry.getKey();
             Double score = entry.getValue();
-            Double weight = ruleWeights.getOrDefault(ruleName, 1.0);
+            Double weight = RULE_WEIGHTS.getOrDefault(ruleName, 1.0);
             
             totalWeightedScore += score * weight;
             totalWeight += weight;
         }
         
-        double averageScore = totalWeightedScore / totalWeight;
+        return scaleRiskScore(totalWeightedScore / totalWeight);
+    }
+    
+    /**
+     * Calculate the risk score of a subset of the rules on the scale of a full evaluation, as if
+     * the rules that did not run had scored 0. Averaging over the subset alone would inflate the score.
+     * @param ruleScores Map of rule names to their scores, for some of the rules
+     * @return Lower bound of the overall risk score (0-100)
+     */
+    public double calculatePartialRiskScore(Map<String, Double> ruleScores) {
+        if (ruleScores.isEmpty()) {
+            return 0.0;
+        }
+        
+        double totalWeightedScore = 0.0;
+        for (Map.Entry<String, Double> entry : ruleScores.entrySet()) {
+            totalWeightedScore += entry.getValue() * RULE_WEIGHTS.getOrDefault(entry.getKey(), 1.0);
+        }
         
+        return scaleRiskScore(totalWeightedScore / TOTAL_RULE_WEIGHT);
+    }
+    
+    private static double scaleRiskScore(double averageScore) {
         // Apply non-linear scaling to emphasize higher risks
         // Use sigmoid-like function
         double scaledScore = 100 * (1 / (1 + Math.exp(-0.08 * (averageScore - 50))));
@@ -0,0 +1,7 @@
+package pt.lunasoft.fraud.enums;
+
+public enum FraudDecision {
+	APPROVE,
+	REVIEW,
+	DECLINE
+}
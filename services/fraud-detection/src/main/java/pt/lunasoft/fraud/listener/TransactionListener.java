@@ -1,7 +1,6 @@
 package pt.lunasoft.fraud.listener;
 
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
@@ -11,7 +10,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import pt.lunasoft.fraud.producer.FraudAlertProducer;
 import pt.lunasoft.fraud.service.FraudDetectionService;
-import pt.lunasoft.fraud.service.TransactionHistoryService;
 import pt.lunasoft.models.FraudAlert;
 import pt.lunasoft.models.Transaction;
 
@@ -21,39 +19,30 @@ import pt.lunasoft.models.Transaction;
 public class TransactionListener {
 
 	private final FraudDetectionService fraudDetectionService;
-	private final TransactionHistoryService historyService;
 	private final FraudAlertProducer alertProducer;
 
+	/**
+	 * Failures propagate to the container, which commits the record here and re-publishes it to the
+	 * next retry tier (see finstream.kafka.retry), so one bad transaction never stalls its partition.
+	 */
 	@KafkaListener(
 		topics = "${app.kafka.topics.transactions-incoming}",
 		groupId = "${spring.kafka.consumer.group-id}",
 		containerFactory = "kafkaListenerContainerFactory"
 	)
-	public void consumeTransaction(@Payload Transaction transaction, @Header(KafkaHeaders.RECEIVED_PARTITION) int partition, 
-			@Header(KafkaHeaders.OFFSET) long offset, Acknowledgment acknowledgment) {
-		try {
-			log.info("Consumed transaction: {} from partition: {} offset: {}", transaction.getId(), partition, offset);
-
-			// Add to history
-			historyService.addTransaction(transaction);
-
-			// Analyze for fraud
-			FraudAlert alert = fraudDetectionService.analyzeTransaction(transaction);
-
-			if (alert != null) {
-				log.warn("Fraud detected! Alert: {} for transaction: {}", alert.getId(), transaction.getId());
-				alertProducer.sendAlert(alert);
-			} else {
-				log.debug("Transaction clean: {}", transaction.getId());
-			}
-
-			// Manual commit
-			acknowledgment.acknowledge();
-
-		} catch (Exception e) {
-			log.error("Error processing transaction: {}", transaction.getId(), e);
-			// Don't acknowledge - message will be reprocessed
+	public void consumeTransaction(@Payload Transaction transaction, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+			@Header(KafkaHeaders.RECEIVED_PARTITION) int partition, @Header(KafkaHeaders.OFFSET) long offset) {
+		log.info("Consumed transaction: {} from {}-{} offset: {}", transaction.getId(), topic, partition, offset);
+
+		// Analyze for fraud; the analysis records the transaction in the history
+		FraudAlert alert = fraudDetectionService.analyzeTransaction(transaction);
+
+		if (alert != null) {
+			log.warn("Fraud detected! Alert: {} for transaction: {}", alert.getId(), transaction.getId());
+			alertProducer.sendAlert(alert);
+		} else {
+			log.debug("Transaction clean: {}", transaction.getId());
 		}
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package pt.lunasoft.fraud.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pt.lunasoft.fraud.enums.FraudDecision;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FraudScore {
+
+	private UUID transactionId;
+	private String accountId;
+	private double riskScore;
+	private List<String> triggeredRules;
+	private Map<String, Double> ruleScores;
+	private FraudDecision decision;
+	// True when the history-based rules missed the latency budget and only stateless rules were applied
+	private boolean degraded;
+	private long latencyMicros;
+
+}
@@ -25,11 +25,11 @@ public class FraudDetectionService {
     public FraudAlert analyzeTransaction(Transaction transaction) {
         log.info("Analyzing transaction: {} for account: {}", transaction.getId(), transaction.getAccountId());
 
-        // Add transaction to history first
-        historyService.addTransaction(transaction);
-
         // Evaluate all fraud rules using the rule engine
         Map<String, Double> ruleScores = ruleEngine.evaluateAllRules(transaction);
+
+        // Record the transaction once it has been analyzed; the add is a no-op for a redelivered one
+        historyService.addTransaction(transaction);
         
         // Calculate overall risk score
         double riskScore = ruleEngine.calculateOverallRiskScore(ruleScores);
@@ -0,0 +1,157 @@
+package pt.lunasoft.fraud.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import pt.lunasoft.fraud.engine.FraudRuleEngine;
+import pt.lunasoft.fraud.enums.FraudDecision;
+import pt.lunasoft.fraud.model.FraudScore;
+import pt.lunasoft.models.Transaction;
+
+/**
+ * Synchronous scoring for authorization flows. The full rule set runs against the same history
+ * store as the Kafka listener, bounded by {@code app.fraud.scoring.timeout-ms}; when it misses the
+ * budget, fails or finds the pool saturated, the answer is built from the stateless rules alone and
+ * flagged as degraded. On the full scale those few rules barely move the score, so a degraded
+ * decision compares their plain sum with its own {@code degraded-review-score} and
+ * {@code degraded-decline-score} instead.
+ * <p>
+ * Scoring is read-only: the transaction is recorded in the history when it arrives through
+ * {@code transactions.incoming}, so a scored authorization is not counted twice. With the Redis
+ * store every instance reads the same per-account state as the async path; the in-memory store
+ * is only consistent on a single instance.
+ */
+@Service
+@Slf4j
+public class FraudScoringService {
+
+	private final FraudRuleEngine ruleEngine;
+	private final ThreadPoolExecutor executor;
+	private final long timeoutMs;
+	private final double reviewScore;
+	private final double declineScore;
+	private final double degradedReviewScore;
+	private final double degradedDeclineScore;
+	private final Timer fullTimer;
+	private final Timer fallbackTimer;
+
+	public FraudScoringService(FraudRuleEngine ruleEngine, MeterRegistry meterRegistry,
+			@Value("${app.fraud.scoring.timeout-ms:30}") long timeoutMs,
+			@Value("${app.fraud.scoring.review-score:50}") double reviewScore,
+			@Value("${app.fraud.scoring.decline-score:80}") double declineScore,
+			@Value("${app.fraud.scoring.degraded-review-score:40}") double degradedReviewScore,
+			@Value("${app.fraud.scoring.degraded-decline-score:75}") double degradedDeclineScore,
+			@Value("${app.fraud.scoring.threads:16}") int threads,
+			@Value("${app.fraud.scoring.queue-capacity:64}") int queueCapacity) {
+		this.ruleEngine = ruleEngine;
+		this.timeoutMs = timeoutMs;
+		this.reviewScore = reviewScore;
+		this.declineScore = declineScore;
+		this.degradedReviewScore = degradedReviewScore;
+		this.degradedDeclineScore = degradedDeclineScore;
+		// Fixed pool with a short queue: a saturated pool rejects at once and the caller falls back,
+		// instead of queueing past its budget
+		AtomicInteger threadCount = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+				runnable -> {
+					Thread thread = new Thread(runnable, "fraud-scoring-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.fullTimer = scoringTimer(meterRegistry, "full");
+		this.fallbackTimer = scoringTimer(meterRegistry, "stateless");
+	}
+
+	public FraudScore score(Transaction transaction) {
+		long start = System.nanoTime();
+		Map<String, Double> ruleScores;
+		boolean degraded = false;
+
+		// A plain Future, unlike a CompletableFuture, interrupts the worker on cancel, so a late
+		// history read stops holding a pool thread
+		Future<Map<String, Double>> full = null;
+		try {
+			full = executor.submit(() -> ruleEngine.evaluateAllRules(transaction));
+			ruleScores = full.get(timeoutMs, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException | RejectedExecutionException | ExecutionException ex) {
+			log.warn("Full scoring unavailable for transaction {} ({}), using stateless rules", transaction.getId(), ex.getClass().getSimpleName());
+			if (full != null) {
+				full.cancel(true);
+			}
+			ruleScores = ruleEngine.evaluateStatelessRules(transaction);
+			degraded = true;
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			ruleScores = ruleEngine.evaluateStatelessRules(transaction);
+			degraded = true;
+		}
+
+		// The stateless rules alone are scored as a full run whose history rules found nothing, which
+		// keeps the reported score comparable but is far too low to decide on
+		double riskScore = degraded ? ruleEngine.calculatePartialRiskScore(ruleScores) : ruleEngine.calculateOverallRiskScore(ruleScores);
+		FraudDecision decision = degraded
+				? decide(sum(ruleScores), degradedReviewScore, degradedDeclineScore)
+				: decide(riskScore, reviewScore, declineScore);
+		List<String> triggeredRules = ruleEngine.getTriggeredRules(ruleScores);
+		long elapsedNanos = System.nanoTime() - start;
+		(degraded ? fallbackTimer : fullTimer).record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+		return FraudScore.builder()
+				.transactionId(transaction.getId())
+				.accountId(transaction.getAccountId())
+				.riskScore(riskScore)
+				.triggeredRules(triggeredRules)
+				.ruleScores(ruleScores)
+				.decision(decision)
+				.degraded(degraded)
+				.latencyMicros(TimeUnit.NANOSECONDS.toMicros(elapsedNanos))
+				.build();
+	}
+
+	private static FraudDecision decide(double score, double reviewScore, double declineScore) {
+		if (score >= declineScore) {
+			return FraudDecision.DECLINE;
+		}
+		if (score >= reviewScore) {
+			return FraudDecision.REVIEW;
+		}
+		return FraudDecision.APPROVE;
+	}
+
+	private static double sum(Map<String, Double> ruleScores) {
+		double sum = 0.0;
+		for (double score : ruleScores.values()) {
+			sum += score;
+		}
+		return sum;
+	}
+
+	private static Timer scoringTimer(MeterRegistry meterRegistry, String mode) {
+		return Timer.builder("fraud.scoring.latency")
+				.description("Synchronous fraud scoring latency")
+				.tag("mode", mode)
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+}
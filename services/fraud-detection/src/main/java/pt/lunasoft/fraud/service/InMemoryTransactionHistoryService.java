@@ -0,0 +1,72 @@
+package pt.lunasoft.fraud.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import pt.lunasoft.models.Transaction;
+
+/**
+ * In-process history, newest first like the Redis list and capped per account. Nothing is shared
+ * between instances or survives a restart, so it is meant for perf gates, benchmarks and local runs.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.fraud.history", name = "store", havingValue = "memory")
+public class InMemoryTransactionHistoryService implements TransactionHistoryService {
+
+	private final Map<String, History> histories = new ConcurrentHashMap<>();
+	private final int maxPerAccount;
+
+	public InMemoryTransactionHistoryService(@Value("${app.fraud.history.max-per-account:1000}") int maxPerAccount) {
+		this.maxPerAccount = maxPerAccount;
+	}
+
+	@Override
+	public void addTransaction(Transaction transaction) {
+		History history = histories.computeIfAbsent(transaction.getAccountId(), accountId -> new History());
+		synchronized (history) {
+			if (transaction.getId() != null && !history.ids.add(transaction.getId())) {
+				return;
+			}
+			history.transactions.addFirst(transaction);
+			if (history.transactions.size() > maxPerAccount) {
+				history.ids.remove(history.transactions.removeLast().getId());
+			}
+		}
+	}
+
+	@Override
+	public List<Transaction> getRecentTransactions(String accountId, int limit) {
+		History history = histories.get(accountId);
+		if (history == null) {
+			return new ArrayList<>();
+		}
+		synchronized (history) {
+			List<Transaction> recent = new ArrayList<>(Math.min(limit, history.transactions.size()));
+			Iterator<Transaction> iterator = history.transactions.iterator();
+			while (iterator.hasNext() && recent.size() < limit) {
+				recent.add(iterator.next());
+			}
+			return recent;
+		}
+	}
+
+	private static final class History {
+
+		private final Deque<Transaction> transactions = new ArrayDeque<>();
+		private final Set<UUID> ids = new HashSet<>();
+
+	}
+
+}
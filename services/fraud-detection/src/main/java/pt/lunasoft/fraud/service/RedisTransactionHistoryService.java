@@ -0,0 +1,55 @@
+package pt.lunasoft.fraud.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+import pt.lunasoft.models.Transaction;
+
+@Service
+@ConditionalOnProperty(prefix = "app.fraud.history", name = "store", havingValue = "redis", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RedisTransactionHistoryService implements TransactionHistoryService {
+
+	private final RedisTemplate<String, Transaction> redisTemplate;
+	private final StringRedisTemplate stringRedisTemplate;
+    private static final String HISTORY_KEY_PREFIX = "transaction:history:";
+    private static final String RECORDED_KEY_PREFIX = "transaction:history:recorded:";
+    private static final long HISTORY_TTL_HOURS = 24;
+
+    @Override
+    public void addTransaction(Transaction transaction) {
+        // The marker outlives the account list, so a redelivery within the TTL never pushes twice
+        String recordedKey = transaction.getId() == null ? null : RECORDED_KEY_PREFIX + transaction.getId();
+        if (recordedKey != null
+                && !Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(recordedKey, "1", Duration.ofHours(HISTORY_TTL_HOURS)))) {
+            return;
+        }
+        String key = HISTORY_KEY_PREFIX + transaction.getAccountId();
+        try {
+            redisTemplate.opsForList().leftPush(key, transaction);
+        } catch (RuntimeException ex) {
+            // Let the retry record it
+            if (recordedKey != null) {
+                stringRedisTemplate.delete(recordedKey);
+            }
+            throw ex;
+        }
+        redisTemplate.expire(key, HISTORY_TTL_HOURS, TimeUnit.HOURS);
+    }
+
+    @Override
+    public List<Transaction> getRecentTransactions(String accountId, int limit) {
+        String key = HISTORY_KEY_PREFIX + accountId;
+        List<Transaction> transactions = redisTemplate.opsForList().range(key, 0, limit - 1);
+        return transactions != null ? transactions : new ArrayList<>();
+    }
+	
+}
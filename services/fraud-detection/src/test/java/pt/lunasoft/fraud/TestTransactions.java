@@ -0,0 +1,39 @@
+package pt.lunasoft.fraud;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import pt.lunasoft.models.Transaction;
+import pt.lunasoft.models.enums.TransactionType;
+
+/**
+ * Transactions for the fraud tests: a EUR purchase at "Merchant" made now, with only the fields a
+ * test cares about passed in.
+ */
+public final class TestTransactions {
+
+	public static final String ACCOUNT_ID = "ACC00001";
+
+	private TestTransactions() {
+	}
+
+	public static Transaction purchase(String amount) {
+		return builder(ACCOUNT_ID, new BigDecimal(amount)).build();
+	}
+
+	/**
+	 * The same purchase, for tests that set more fields.
+	 */
+	public static Transaction.TransactionBuilder builder(String accountId, BigDecimal amount) {
+		return Transaction.builder()
+				.id(UUID.randomUUID())
+				.accountId(accountId)
+				.amount(amount)
+				.currency("EUR")
+				.type(TransactionType.PURCHASE)
+				.merchant("Merchant")
+				.timestamp(Instant.now());
+	}
+
+}
@@ -0,0 +1,39 @@
+package pt.lunasoft.fraud.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import pt.lunasoft.fraud.TestTransactions;
+import pt.lunasoft.fraud.rules.StatelessFraudRules;
+import pt.lunasoft.fraud.service.InMemoryTransactionHistoryService;
+import pt.lunasoft.models.Transaction;
+
+class FraudRuleEngineTest {
+
+	private static final ZoneId ZONE = ZoneId.of("Europe/Lisbon");
+
+	private final FraudRuleEngine engine = new FraudRuleEngine(new InMemoryTransactionHistoryService(100), ZONE);
+
+	@Test
+	void shouldScoreStatelessRulesLikeIngestionInTheConfiguredZone() {
+		// Given - 03:15 UTC is 04:15 in Lisbon summer time
+		Transaction transaction = TestTransactions.builder(TestTransactions.ACCOUNT_ID, new BigDecimal("12000.00"))
+				.timestamp(Instant.parse("2026-07-01T03:15:00Z"))
+				.build();
+
+		// When
+		Map<String, Double> scores = engine.evaluateAllRules(transaction);
+
+		// Then
+		assertThat(scores).containsAllEntriesOf(new StatelessFraudRules(ZONE).evaluate(transaction).scores())
+				.containsEntry(StatelessFraudRules.HIGH_AMOUNT, 40.0)
+				.containsEntry(StatelessFraudRules.UNUSUAL_TIME, 20.0);
+	}
+
+}
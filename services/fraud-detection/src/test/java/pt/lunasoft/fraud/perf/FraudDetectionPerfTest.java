@@ -0,0 +1,153 @@
+package pt.lunasoft.fraud.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import pt.lunasoft.fraud.TestTransactions;
+import pt.lunasoft.fraud.service.FraudDetectionService;
+import pt.lunasoft.models.DeviceInfo;
+import pt.lunasoft.models.Location;
+import pt.lunasoft.models.Transaction;
+
+/**
+ * Perf gate for the fraud pipeline, run with {@code mvn -Pperf-tests}. A fixed, seeded workload
+ * goes through the analysis path directly (latency budget) and through the embedded broker into
+ * the listener (throughput budget).
+ */
+@Tag("perf")
+@SpringBootTest
+@ActiveProfiles("perf")
+@EmbeddedKafka(partitions = 3, topics = { "transactions.incoming", "fraud.alerts" }, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+@DirtiesContext
+class FraudDetectionPerfTest {
+
+	private static final String TOPIC = "transactions.incoming";
+
+	@Autowired
+	private FraudDetectionService fraudDetectionService;
+
+	@Autowired
+	private KafkaTemplate<Object, Object> kafkaTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${perf.fraud.accounts}")
+	private int accounts;
+
+	@Value("${perf.fraud.warmup}")
+	private int warmup;
+
+	@Value("${perf.fraud.transactions}")
+	private int transactions;
+
+	@Value("${perf.fraud.max-p99-ms}")
+	private double maxP99Ms;
+
+	@Value("${perf.fraud.min-throughput-per-second}")
+	private double minThroughputPerSecond;
+
+	@Value("${perf.fraud.timeout-seconds}")
+	private long timeoutSeconds;
+
+	@Test
+	void shouldAnalyzeTransactionsWithinLatencyBudget() {
+		// Given
+		SplittableRandom random = new SplittableRandom(42);
+		Timer latency = Timer.builder("perf.fraud.analyze").publishPercentiles(0.99).register(new SimpleMeterRegistry());
+		for (int i = 0; i < warmup; i++) {
+			fraudDetectionService.analyzeTransaction(nextTransaction(random));
+		}
+
+		// When
+		for (int i = 0; i < transactions; i++) {
+			Transaction transaction = nextTransaction(random);
+			latency.record(() -> fraudDetectionService.analyzeTransaction(transaction));
+		}
+
+		// Then
+		double p99Ms = percentile(latency, 0.99);
+		assertThat(latency.count()).isEqualTo(transactions);
+		assertThat(p99Ms).as("p99 analysis latency (ms)").isLessThanOrEqualTo(maxP99Ms);
+	}
+
+	@Test
+	void shouldConsumeTransactionsWithinThroughputBudget() {
+		// Given
+		SplittableRandom random = new SplittableRandom(7);
+		publish(random, warmup);
+		awaitProcessed(warmup);
+		double before = processed();
+
+		// When
+		long start = System.nanoTime();
+		publish(random, transactions);
+		awaitProcessed(before + transactions);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		// Then
+		double throughput = transactions / seconds;
+		assertThat(processed() - before).isEqualTo(transactions);
+		assertThat(throughput).as("transactions consumed per second").isGreaterThanOrEqualTo(minThroughputPerSecond);
+	}
+
+	private void publish(SplittableRandom random, int count) {
+		for (int i = 0; i < count; i++) {
+			Transaction transaction = nextTransaction(random);
+			kafkaTemplate.send(TOPIC, transaction.getAccountId(), transaction);
+		}
+		kafkaTemplate.flush();
+	}
+
+	private void awaitProcessed(double count) {
+		await().atMost(timeoutSeconds, TimeUnit.SECONDS).pollInterval(Duration.ofMillis(50)).until(() -> processed() >= count);
+	}
+
+	private double processed() {
+		Counter counter = meterRegistry.find("finstream.kafka.listener.records").tag("topic", TOPIC).tag("outcome", "success").counter();
+		return counter == null ? 0 : counter.count();
+	}
+
+	private static double percentile(Timer timer, double percentile) {
+		for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+			if (value.percentile() == percentile) {
+				return value.value(TimeUnit.MILLISECONDS);
+			}
+		}
+		throw new IllegalStateException("Percentile " + percentile + " not published");
+	}
+
+	// Mostly everyday amounts with a tail of large ones, so a share of the workload raises alerts
+	private Transaction nextTransaction(SplittableRandom random) {
+		BigDecimal amount = random.nextInt(100) < 2
+				? BigDecimal.valueOf(random.nextDouble(5_000, 20_000)).setScale(2, RoundingMode.HALF_UP)
+				: BigDecimal.valueOf(random.nextDouble(1, 500)).setScale(2, RoundingMode.HALF_UP);
+		return TestTransactions.builder(String.format("ACC%07d", random.nextInt(accounts)), amount)
+				.merchant("Merchant " + random.nextInt(200))
+				.location(Location.builder().country("PT").city("Lisbon").latitude(38.7223).longitude(-9.1393).build())
+				.deviceInfo(DeviceInfo.builder().deviceId("device-" + random.nextInt(1000)).deviceType("mobile").build())
+				.build();
+	}
+
+}
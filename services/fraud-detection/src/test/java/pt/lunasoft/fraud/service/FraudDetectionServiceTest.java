@@ -0,0 +1,41 @@
+package pt.lunasoft.fraud.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.jupiter.api.Test;
+
+import pt.lunasoft.fraud.TestTransactions;
+import pt.lunasoft.fraud.engine.FraudRuleEngine;
+import pt.lunasoft.models.FraudAlert;
+import pt.lunasoft.models.Transaction;
+
+class FraudDetectionServiceTest {
+
+	private final InMemoryTransactionHistoryService history = new InMemoryTransactionHistoryService(100);
+	private final FraudDetectionService fraudDetectionService = new FraudDetectionService(history, new FraudRuleEngine(history, ZoneOffset.UTC));
+
+	@Test
+	void shouldScoreRedeliveredTransactionLikeTheFirstDelivery() {
+		// Given - an earlier purchase an hour ago
+		Instant now = Instant.now();
+		history.addTransaction(TestTransactions.builder(TestTransactions.ACCOUNT_ID, new BigDecimal("20.00"))
+				.timestamp(now.minus(1, ChronoUnit.HOURS))
+				.build());
+		Transaction transaction = TestTransactions.builder(TestTransactions.ACCOUNT_ID, new BigDecimal("42.17")).timestamp(now).build();
+
+		// When
+		FraudAlert first = fraudDetectionService.analyzeTransaction(transaction);
+		FraudAlert redelivered = fraudDetectionService.analyzeTransaction(transaction);
+
+		// Then - no rapid succession or duplicate against its own copy, and recorded once
+		assertThat(redelivered.getRiskScore()).isEqualTo(first.getRiskScore());
+		assertThat(redelivered.getTriggeredRules()).isEqualTo(first.getTriggeredRules());
+		assertThat(history.getRecentTransactions(TestTransactions.ACCOUNT_ID, 10)).hasSize(2).first().isEqualTo(transaction);
+	}
+
+}
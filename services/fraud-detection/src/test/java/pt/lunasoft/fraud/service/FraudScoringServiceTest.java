@@ -0,0 +1,110 @@
+package pt.lunasoft.fraud.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pt.lunasoft.fraud.TestTransactions.purchase;
+
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import pt.lunasoft.fraud.engine.FraudRuleEngine;
+import pt.lunasoft.fraud.enums.FraudDecision;
+import pt.lunasoft.fraud.model.FraudScore;
+import pt.lunasoft.fraud.rules.StatelessFraudRules;
+import pt.lunasoft.models.Transaction;
+
+class FraudScoringServiceTest {
+
+	private FraudScoringService scoringService;
+
+	@AfterEach
+	void tearDown() {
+		scoringService.shutdown();
+	}
+
+	@Test
+	void shouldScoreWithAllRulesWithoutRecordingTheTransaction() {
+		// Given
+		InMemoryTransactionHistoryService history = new InMemoryTransactionHistoryService(100);
+		scoringService = scoringService(history, 1000);
+		Transaction transaction = purchase("42.17");
+
+		// When
+		FraudScore score = scoringService.score(transaction);
+
+		// Then
+		assertThat(score.isDegraded()).isFalse();
+		assertThat(score.getRuleScores()).hasSize(10);
+		assertThat(score.getTransactionId()).isEqualTo(transaction.getId());
+		assertThat(history.getRecentTransactions("ACC00001", 10)).isEmpty();
+	}
+
+	@Test
+	void shouldFallBackToStatelessRulesWhenHistoryMissesTheBudget() {
+		// Given
+		InMemoryTransactionHistoryService slowHistory = new InMemoryTransactionHistoryService(100) {
+			@Override
+			public List<Transaction> getRecentTransactions(String accountId, int limit) {
+				try {
+					Thread.sleep(500);
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				return super.getRecentTransactions(accountId, limit);
+			}
+		};
+		scoringService = scoringService(slowHistory, 20);
+
+		// When
+		FraudScore score = scoringService.score(purchase("12000.00"));
+
+		// Then
+		assertThat(score.isDegraded()).isTrue();
+		assertThat(score.getRuleScores()).containsOnlyKeys(StatelessFraudRules.RULES);
+		assertThat(score.getTriggeredRules()).contains(StatelessFraudRules.HIGH_AMOUNT, StatelessFraudRules.ROUND_AMOUNT);
+		assertThat(score.getLatencyMicros()).isLessThan(500_000);
+	}
+
+	@Test
+	void shouldNotApproveHighRoundAmountWhenDegradedAndInterruptTheLateEvaluation() throws InterruptedException {
+		// Given - no history, so the full run scores the history rules close to 0
+		CountDownLatch interrupted = new CountDownLatch(1);
+		InMemoryTransactionHistoryService slowHistory = new InMemoryTransactionHistoryService(100) {
+			@Override
+			public List<Transaction> getRecentTransactions(String accountId, int limit) {
+				try {
+					Thread.sleep(5_000);
+				} catch (InterruptedException ex) {
+					interrupted.countDown();
+					Thread.currentThread().interrupt();
+				}
+				return super.getRecentTransactions(accountId, limit);
+			}
+		};
+		Transaction transaction = purchase("12000.00");
+		scoringService = scoringService(new InMemoryTransactionHistoryService(100), 1000);
+		FraudScore full = scoringService.score(transaction);
+		scoringService.shutdown();
+		scoringService = scoringService(slowHistory, 20);
+
+		// When
+		FraudScore degraded = scoringService.score(transaction);
+
+		// Then
+		assertThat(degraded.isDegraded()).isTrue();
+		assertThat(degraded.getRiskScore()).isLessThanOrEqualTo(full.getRiskScore())
+				.isLessThan(new FraudRuleEngine(slowHistory, ZoneOffset.UTC).calculateOverallRiskScore(degraded.getRuleScores()));
+		assertThat(degraded.getDecision()).isEqualTo(FraudDecision.REVIEW);
+		assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+	}
+
+	private static FraudScoringService scoringService(TransactionHistoryService history, long timeoutMs) {
+		return new FraudScoringService(new FraudRuleEngine(history, ZoneOffset.UTC), new SimpleMeterRegistry(), timeoutMs, 50, 80, 40, 75, 2, 4);
+	}
+
+}
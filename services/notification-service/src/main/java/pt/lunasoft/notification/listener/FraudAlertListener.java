@@ -4,7 +4,6 @@ import java.util.Map;
 import java.util.UUID;
 
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
@@ -17,6 +16,7 @@ import pt.lunasoft.notification.enums.NotificationChannel;
 import pt.lunasoft.notification.enums.NotificationPriority;
 import pt.lunasoft.notification.enums.NotificationType;
 import pt.lunasoft.notification.model.Notification;
+import pt.lunasoft.notification.service.AlertDeliveryTracker;
 import pt.lunasoft.notification.service.NotificationService;
 
 @Component
@@ -25,45 +25,40 @@ import pt.lunasoft.notification.service.NotificationService;
 public class FraudAlertListener {
 
 	private final NotificationService notificationService;
+	private final AlertDeliveryTracker deliveryTracker;
 
+	/**
+	 * Failures propagate to the container, which re-publishes the alert to the next retry tier
+	 * (see finstream.kafka.retry) instead of redelivering it in place. Each channel is sent at most
+	 * once per alert, so a retry only sends the channels that have not gone out yet.
+	 */
 	@KafkaListener(
 			topics = "${app.kafka.topics.fraud-alerts}",
 			groupId = "${spring.kafka.consumer.group-id}"
 			)
-	public void consumeFraudAlert(
-			@Payload FraudAlert alert,
-			Acknowledgment acknowledgment) {
+	public void consumeFraudAlert(@Payload FraudAlert alert) {
+		log.info("Received fraud alert: {} for account: {}", 
+				alert.getId(), alert.getAccountId());
 
-		try {
-			log.info("Received fraud alert: {} for account: {}", 
-					alert.getId(), alert.getAccountId());
+		// Send multiple notifications for critical fraud alerts
+		if (alert.getSeverity() == FraudSeverity.CRITICAL || alert.getSeverity() == FraudSeverity.HIGH) {
 
-			// Send multiple notifications for critical fraud alerts
-			if (alert.getSeverity() == FraudSeverity.CRITICAL || alert.getSeverity() == FraudSeverity.HIGH) {
+			// Email notification
+			deliveryTracker.sendOnce(alert.getId(), NotificationChannel.EMAIL, () -> sendEmailNotification(alert));
 
-				// Email notification
-				sendEmailNotification(alert);
-
-				// SMS notification for critical alerts
-				if (alert.getSeverity() == FraudSeverity.CRITICAL) {
-					sendSmsNotification(alert);
-				}
-
-				// Push notification
-				sendPushNotification(alert);
-
-				// Slack notification for internal monitoring
-				sendSlackNotification(alert);
-			} else {
-				// For low/medium severity, just send email
-				sendEmailNotification(alert);
+			// SMS notification for critical alerts
+			if (alert.getSeverity() == FraudSeverity.CRITICAL) {
+				deliveryTracker.sendOnce(alert.getId(), NotificationChannel.SMS, () -> sendSmsNotification(alert));
 			}
 
-			acknowledgment.acknowledge();
+			// Push notification
+			deliveryTracker.sendOnce(alert.getId(), NotificationChannel.PUSH, () -> sendPushNotification(alert));
 
-		} catch (Exception e) {
-			log.error("Error processing fraud alert: {}", alert.getId(), e);
-			// Don't acknowledge - message will be reprocessed
+			// Slack notification for internal monitoring
+			deliveryTracker.sendOnce(alert.getId(), NotificationChannel.SLACK, () -> sendSlackNotification(alert));
+		} else {
+			// For low/medium severity, just send email
+			deliveryTracker.sendOnce(alert.getId(), NotificationChannel.EMAIL, () -> sendEmailNotification(alert));
 		}
 	}
 
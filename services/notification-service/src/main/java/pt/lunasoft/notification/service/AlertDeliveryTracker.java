@@ -0,0 +1,53 @@
+package pt.lunasoft.notification.service;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import pt.lunasoft.notification.enums.NotificationChannel;
+
+/**
+ * Makes alert notifications idempotent per (alert id, channel). An alert that is retried after
+ * some channels were already sent only sends the remaining ones, so a failing webhook does not
+ * send the email and SMS again. Keys outlive the retry chain by {@code app.notification.dedup-ttl-hours}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AlertDeliveryTracker {
+
+	private final RedisTemplate<String, String> redisTemplate;
+
+	@Value("${app.notification.dedup-ttl-hours:24}")
+	private int dedupTtlHours;
+
+	/**
+	 * Runs {@code send} unless this channel was already sent for the alert. The claim is taken
+	 * first, so concurrent deliveries of the same alert send once, and released if {@code send}
+	 * fails, so the retry sends it.
+	 */
+	public void sendOnce(UUID alertId, NotificationChannel channel, Runnable send) {
+		String key = buildKey(alertId, channel);
+		if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, "1", Duration.ofHours(dedupTtlHours)))) {
+			log.info("Alert {} already sent via {}, skipping", alertId, channel);
+			return;
+		}
+		try {
+			send.run();
+		} catch (RuntimeException e) {
+			redisTemplate.delete(key);
+			throw e;
+		}
+	}
+
+	private String buildKey(UUID alertId, NotificationChannel channel) {
+		return String.format("notification:alert:%s:%s", alertId, channel.toString().toLowerCase());
+	}
+
+}
@@ -0,0 +1,107 @@
+package pt.lunasoft.notification.listener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import pt.lunasoft.models.FraudAlert;
+import pt.lunasoft.models.enums.FraudSeverity;
+import pt.lunasoft.notification.enums.NotificationChannel;
+import pt.lunasoft.notification.model.Notification;
+import pt.lunasoft.notification.service.AlertDeliveryTracker;
+import pt.lunasoft.notification.service.NotificationService;
+
+class FraudAlertListenerTest {
+
+	private final NotificationService notificationService = mock(NotificationService.class);
+
+	@SuppressWarnings("unchecked")
+	private final RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+
+	@SuppressWarnings("unchecked")
+	private final ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+
+	private final Set<String> claimed = new HashSet<>();
+	private final List<NotificationChannel> sent = new ArrayList<>();
+	private FraudAlertListener listener;
+
+	@BeforeEach
+	void setUp() {
+		when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+		when(valueOperations.setIfAbsent(anyString(), eq("1"), any(Duration.class)))
+				.thenAnswer(invocation -> claimed.add(invocation.getArgument(0)));
+		when(redisTemplate.delete(anyString())).thenAnswer(invocation -> claimed.remove(invocation.<String>getArgument(0)));
+
+		AlertDeliveryTracker tracker = new AlertDeliveryTracker(redisTemplate);
+		ReflectionTestUtils.setField(tracker, "dedupTtlHours", 24);
+		listener = new FraudAlertListener(notificationService, tracker);
+	}
+
+	@Test
+	void shouldOnlySendRemainingChannelsWhenAlertIsRetried() {
+		// Given slack fails once, after email, SMS and push went out
+		FraudAlert alert = alert(FraudSeverity.CRITICAL);
+		doAnswer(invocation -> {
+			Notification notification = invocation.getArgument(0);
+			if (notification.getChannel() == NotificationChannel.SLACK && !sent.contains(NotificationChannel.SLACK)) {
+				sent.add(NotificationChannel.SLACK);
+				throw new IllegalStateException("slack down");
+			}
+			sent.add(notification.getChannel());
+			return null;
+		}).when(notificationService).sendNotification(any(Notification.class));
+
+		// When
+		assertThatThrownBy(() -> listener.consumeFraudAlert(alert)).isInstanceOf(IllegalStateException.class);
+		listener.consumeFraudAlert(alert);
+
+		// Then
+		assertThat(sent).containsExactly(NotificationChannel.EMAIL, NotificationChannel.SMS, NotificationChannel.PUSH,
+				NotificationChannel.SLACK, NotificationChannel.SLACK);
+	}
+
+	@Test
+	void shouldNotSendTwiceForDuplicateDelivery() {
+		// Given
+		FraudAlert alert = alert(FraudSeverity.LOW);
+		doAnswer(invocation -> sent.add(invocation.<Notification>getArgument(0).getChannel()))
+				.when(notificationService).sendNotification(any(Notification.class));
+
+		// When
+		listener.consumeFraudAlert(alert);
+		listener.consumeFraudAlert(alert);
+
+		// Then
+		assertThat(sent).containsExactly(NotificationChannel.EMAIL);
+	}
+
+	private static FraudAlert alert(FraudSeverity severity) {
+		return FraudAlert.builder()
+				.id(UUID.randomUUID())
+				.transactionId(UUID.randomUUID())
+				.accountId("ACC001")
+				.severity(severity)
+				.riskScore(0.9)
+				.triggeredRules(List.of("HIGH_AMOUNT"))
+				.build();
+	}
+
+}
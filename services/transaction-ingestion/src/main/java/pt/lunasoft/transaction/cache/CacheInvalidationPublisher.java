@@ -0,0 +1,13 @@
+package pt.lunasoft.transaction.cache;
+
+@FunctionalInterface
+public interface CacheInvalidationPublisher {
+
+	/**
+	 * Tell the other instances that an entry changed.
+	 * @param cacheName The cache the entry belongs to
+	 * @param key The string form of the key, or {@code null} when the whole cache was cleared
+	 */
+	void publish(String cacheName, String key);
+
+}
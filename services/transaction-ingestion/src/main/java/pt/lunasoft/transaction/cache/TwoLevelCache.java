@@ -0,0 +1,143 @@
+package pt.lunasoft.transaction.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+/**
+ * Cache that keeps a bounded in-process Caffeine copy (L1) in front of a shared remote cache (L2).
+ * <p>
+ * Reads are served from L1 when possible and fall back to L2, populating L1 on the way back.
+ * Writes and evictions go to L2 first, then L1. Only evictions and clears are announced through
+ * the {@link CacheInvalidationPublisher}: {@code put} is also how {@code @Cacheable} fills the
+ * cache after a miss, and announcing those would broadcast on every cold read and drop the peers'
+ * fresh L1 entries. Changes to a cached value must therefore evict it rather than put it.
+ * L1 keys use the string form of the cache key, which is also what the Redis cache writes.
+ * <p>
+ * An invalidation can arrive while an L2 read is in flight, and filling L1 with that read would
+ * bring back the value the invalidation just dropped. Every eviction bumps a generation for the
+ * key's stripe, and a fill only lands if the generation it started with is still current. Keys
+ * sharing a stripe just skip a fill now and then.
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+	private static final int GENERATION_STRIPES = 1024;
+
+	private final String name;
+	private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+	private final Cache remote;
+	private final CacheInvalidationPublisher publisher;
+	private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+	public TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<String, Object> local, Cache remote,
+			CacheInvalidationPublisher publisher) {
+		super(true);
+		this.name = name;
+		this.local = local;
+		this.remote = remote;
+		this.publisher = publisher;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public Object getNativeCache() {
+		return local;
+	}
+
+	@Override
+	protected Object lookup(Object key) {
+		String localKey = localKey(key);
+		Object value = local.getIfPresent(localKey);
+		if (value != null) {
+			return value;
+		}
+
+		long generation = generation(localKey);
+		ValueWrapper remoteValue = remote.get(key);
+		if (remoteValue == null) {
+			return null;
+		}
+		Object storeValue = toStoreValue(remoteValue.get());
+		fill(localKey, storeValue, generation);
+		return storeValue;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		String localKey = localKey(key);
+		Object value = local.getIfPresent(localKey);
+		if (value != null) {
+			return (T) fromStoreValue(value);
+		}
+
+		long generation = generation(localKey);
+		T loaded = remote.get(key, valueLoader);
+		fill(localKey, toStoreValue(loaded), generation);
+		return loaded;
+	}
+
+	@Override
+	public void put(Object key, Object value) {
+		remote.put(key, value);
+		local.put(localKey(key), toStoreValue(value));
+	}
+
+	@Override
+	public void evict(Object key) {
+		remote.evict(key);
+		invalidateLocal(localKey(key));
+		publisher.publish(name, localKey(key));
+	}
+
+	@Override
+	public void clear() {
+		remote.clear();
+		invalidateLocal(null);
+		publisher.publish(name, null);
+	}
+
+	/**
+	 * Drop an L1 entry after another instance changed it. L2 is left alone.
+	 */
+	void evictLocal(String key) {
+		invalidateLocal(key);
+	}
+
+	// The generation moves before the entry goes, so a fill either sees the bump and backs off or
+	// lands first and is removed here
+	private void invalidateLocal(String key) {
+		if (key == null) {
+			for (int i = 0; i < GENERATION_STRIPES; i++) {
+				generations.incrementAndGet(i);
+			}
+			local.invalidateAll();
+		} else {
+			generations.incrementAndGet(stripe(key));
+			local.invalidate(key);
+		}
+	}
+
+	private void fill(String localKey, Object storeValue, long generation) {
+		local.asMap().compute(localKey, (k, current) -> generation(k) == generation ? storeValue : current);
+	}
+
+	private long generation(String localKey) {
+		return generations.get(stripe(localKey));
+	}
+
+	private static int stripe(String localKey) {
+		return (localKey.hashCode() & Integer.MAX_VALUE) % GENERATION_STRIPES;
+	}
+
+	private static String localKey(Object key) {
+		return String.valueOf(key);
+	}
+
+}
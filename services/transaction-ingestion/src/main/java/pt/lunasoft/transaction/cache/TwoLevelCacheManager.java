@@ -0,0 +1,104 @@
+package pt.lunasoft.transaction.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Builds a {@link TwoLevelCache} around every cache of the remote (Redis) manager and keeps the
+ * L1 copies of all instances coherent over a Redis pub/sub channel.
+ * <p>
+ * Caches are exposed through a {@link TransactionAwareCacheDecorator}, so puts and evictions made
+ * inside a transaction only reach L1, L2 and the other instances after it commits.
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager {
+
+	private static final String SEPARATOR = "|";
+
+	private final CacheManager remoteCacheManager;
+	private final StringRedisTemplate redisTemplate;
+	private final String invalidationChannel;
+	private final long localMaximumSize;
+	private final Duration localTtl;
+	private final String instanceId = UUID.randomUUID().toString();
+
+	private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+	private final Map<String, Cache> decoratedCaches = new ConcurrentHashMap<>();
+
+	public TwoLevelCacheManager(CacheManager remoteCacheManager, StringRedisTemplate redisTemplate, String invalidationChannel,
+			long localMaximumSize, Duration localTtl) {
+		this.remoteCacheManager = remoteCacheManager;
+		this.redisTemplate = redisTemplate;
+		this.invalidationChannel = invalidationChannel;
+		this.localMaximumSize = localMaximumSize;
+		this.localTtl = localTtl;
+	}
+
+	@Override
+	public Cache getCache(String name) {
+		return decoratedCaches.computeIfAbsent(name, n -> {
+			Cache remote = remoteCacheManager.getCache(n);
+			if (remote == null) {
+				return null;
+			}
+			TwoLevelCache cache = new TwoLevelCache(n, buildLocalCache(), remote, this::publishInvalidation);
+			caches.put(n, cache);
+			return new TransactionAwareCacheDecorator(cache);
+		});
+	}
+
+	@Override
+	public Collection<String> getCacheNames() {
+		return decoratedCaches.keySet();
+	}
+
+	/**
+	 * Handle a message received on the invalidation channel. Messages sent by this instance are ignored.
+	 */
+	public void onInvalidation(String message) {
+		String[] parts = message.split("\\" + SEPARATOR, 3);
+		if (parts.length < 3 || instanceId.equals(parts[0])) {
+			return;
+		}
+
+		TwoLevelCache cache = caches.get(parts[1]);
+		if (cache != null) {
+			cache.evictLocal(parts[2].isEmpty() ? null : parts[2]);
+			log.debug("Evicted local entry {} from cache {} on remote change", parts[2], parts[1]);
+		}
+	}
+
+	public String getInvalidationChannel() {
+		return invalidationChannel;
+	}
+
+	private com.github.benmanes.caffeine.cache.Cache<String, Object> buildLocalCache() {
+		// The TTL only bounds staleness if an invalidation message is lost; pub/sub normally evicts first
+		return Caffeine.newBuilder()
+				.maximumSize(localMaximumSize)
+				.expireAfterWrite(localTtl)
+				.build();
+	}
+
+	private void publishInvalidation(String cacheName, String key) {
+		try {
+			redisTemplate.convertAndSend(invalidationChannel, instanceId + SEPARATOR + cacheName + SEPARATOR + (key == null ? "" : key));
+		} catch (Exception e) {
+			// Other instances fall back to the local TTL
+			log.warn("Failed to publish cache invalidation for {}:{}", cacheName, key, e);
+		}
+	}
+
+}
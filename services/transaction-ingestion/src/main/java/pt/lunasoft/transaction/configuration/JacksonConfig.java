@@ -0,0 +1,24 @@
+package pt.lunasoft.transaction.configuration;
+
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+
+/**
+ * Tunes the shared ObjectMapper for the ingestion hot path. It is used by Spring MVC to read and write
+ * request bodies and by {@link pt.lunasoft.transaction.mapper.TransactionJsonWriter} for Kafka payloads.
+ */
+@Configuration
+public class JacksonConfig {
+
+	// The default pool keeps buffers in a ThreadLocal, which never gets reused under virtual threads
+	// (one thread per request); a shared deque hands the same few buffers to every request
+	@Bean
+	public Jackson2ObjectMapperBuilderCustomizer recyclerPoolCustomizer() {
+		return builder -> builder.postConfigurer(objectMapper ->
+				objectMapper.getFactory().setRecyclerPool(JsonRecyclerPools.sharedConcurrentDequePool()));
+	}
+
+}
@@ -1,26 +1,65 @@
 package pt.lunasoft.transaction.configuration;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import pt.lunasoft.transaction.cache.TwoLevelCacheManager;
+
 @Configuration
 @EnableCaching
 public class RedisConfig {
 
+	@Value("${app.cache.ttl}")
+	private long cacheTtlSeconds;
+
+	@Value("${app.cache.local.max-size:10000}")
+	private long localMaxSize;
+
+	@Value("${app.cache.local.ttl-seconds:60}")
+	private long localTtlSeconds;
+
+	@Value("${app.cache.invalidation-channel:cache:invalidation}")
+	private String invalidationChannel;
+
+	@Bean
+	public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory, StringRedisTemplate stringRedisTemplate) {
+		GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer()
+				.configure(mapper -> mapper.registerModule(new JavaTimeModule())
+						.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+
+		RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofSeconds(cacheTtlSeconds))
+				.serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer));
+		RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory).cacheDefaults(config).build();
+		redisCacheManager.initializeCaches();
+
+		return new TwoLevelCacheManager(redisCacheManager, stringRedisTemplate, invalidationChannel, localMaxSize,
+				Duration.ofSeconds(localTtlSeconds));
+	}
+
 	@Bean
-	public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-		RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofHours(1))
-				.serializeValuesWith(RedisSerializationContext.SerializationPair
-						.fromSerializer(new GenericJackson2JsonRedisSerializer()));
-		return RedisCacheManager.builder(connectionFactory).cacheDefaults(config).build();
+	public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+			TwoLevelCacheManager cacheManager) {
+		RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+		container.setConnectionFactory(connectionFactory);
+		container.addMessageListener((message, pattern) -> cacheManager.onInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)),
+				new ChannelTopic(cacheManager.getInvalidationChannel()));
+		return container;
 	}
 
-}
\ No newline at end of file
+}
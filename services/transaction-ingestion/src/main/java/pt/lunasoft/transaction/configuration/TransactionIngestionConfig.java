@@ -1,10 +1,21 @@
 package pt.lunasoft.transaction.configuration;
 
+import java.time.ZoneId;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import pt.lunasoft.fraud.rules.StatelessFraudRules;
+
 @EnableTransactionManagement
 @Configuration
 public class TransactionIngestionConfig {
 
-}
\ No newline at end of file
+	@Bean
+	public StatelessFraudRules statelessFraudRules(@Value("${app.fraud.rules.zone:UTC}") ZoneId zone) {
+		return new StatelessFraudRules(zone);
+	}
+
+}
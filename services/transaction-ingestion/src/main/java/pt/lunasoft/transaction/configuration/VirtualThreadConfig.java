@@ -0,0 +1,60 @@
+package pt.lunasoft.transaction.configuration;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import pt.lunasoft.transaction.jdbc.BoundedDataSource;
+
+/**
+ * Active only when {@code spring.threads.virtual.enabled=true}. Spring Boot then runs Tomcat requests,
+ * the application task executor and {@code @Async} methods on virtual threads; this configuration
+ * puts a bulkhead in front of the connection pool so that the now unbounded request concurrency
+ * does not turn into an unbounded queue on Hikari.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class VirtualThreadConfig {
+
+	@Bean
+	static BeanPostProcessor boundedDataSourcePostProcessor(
+			@Value("${app.virtual-threads.jdbc.max-concurrency:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrency,
+			@Value("${app.virtual-threads.jdbc.acquire-timeout-ms:2000}") long acquireTimeoutMs) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource && !(bean instanceof BoundedDataSource)) {
+					log.info("Bounding JDBC access to {} concurrent connections for virtual threads", maxConcurrency);
+					return new BoundedDataSource(dataSource, maxConcurrency, Duration.ofMillis(acquireTimeoutMs));
+				}
+				return bean;
+			}
+		};
+	}
+
+	@Bean
+	public MeterBinder jdbcBulkheadMetrics(DataSource dataSource) {
+		return registry -> {
+			if (dataSource instanceof BoundedDataSource bounded) {
+				Gauge.builder("jdbc.bulkhead.active", bounded, BoundedDataSource::getActiveCount)
+						.description("Connections currently held through the virtual-thread bulkhead")
+						.register(registry);
+				Gauge.builder("jdbc.bulkhead.waiting", bounded, BoundedDataSource::getWaitingCount)
+						.description("Threads waiting for a bulkhead permit")
+						.register(registry);
+			}
+		};
+	}
+
+}
@@ -11,6 +11,7 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -22,7 +23,10 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import pt.lunasoft.models.Transaction;
 import pt.lunasoft.models.enums.TransactionStatus;
+import pt.lunasoft.transaction.projection.TransactionView;
+import pt.lunasoft.transaction.service.IdempotencyService;
 import pt.lunasoft.transaction.service.TransactionService;
+import pt.lunasoft.transaction.util.CursorPage;
 
 @RestController
 @RequestMapping("/api/v1/transactions")
@@ -31,14 +35,28 @@ import pt.lunasoft.transaction.service.TransactionService;
 @Tag(name = "Transactions", description = "Transaction management APIs")
 public class TransactionController {
 
+	private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+	private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
 	private final TransactionService transactionService;
+	private final IdempotencyService idempotencyService;
 
     @PostMapping
-    @Operation(summary = "Create a new transaction")
-    public ResponseEntity<Transaction> createTransaction(@Valid @RequestBody Transaction transaction) {
+    @Operation(summary = "Create a new transaction",
+            description = "Requests repeated with the same Idempotency-Key return the original response")
+    public ResponseEntity<Transaction> createTransaction(@Valid @RequestBody Transaction transaction,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         log.info("Received request to create transaction for account: {}", transaction.getAccountId());
-        Transaction created = transactionService.createTransaction(transaction);
-        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        if (idempotencyKey == null) {
+            Transaction created = transactionService.createTransaction(transaction);
+            return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        }
+
+        IdempotencyService.Outcome outcome = idempotencyService.execute(idempotencyKey, transaction,
+                () -> transactionService.createTransaction(transaction));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(outcome.replayed()))
+                .body(outcome.transaction());
     }
 
     @GetMapping("/{id}")
@@ -55,6 +73,16 @@ public class TransactionController {
         return ResponseEntity.ok(transactions);
     }
 
+    @GetMapping("/account/{accountId}/history")
+    @Operation(summary = "Scroll transactions by account ID using an opaque cursor, newest first",
+            description = "fields selects the column set: summary, fraud or full (default)")
+    public ResponseEntity<CursorPage<?>> getTransactionHistory(@PathVariable String accountId,
+            @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String fields) {
+        CursorPage<?> transactions = transactionService.getTransactionHistory(accountId, cursor, size, TransactionView.fromFields(fields));
+        return ResponseEntity.ok(transactions);
+    }
+
     @PatchMapping("/{id}/status")
     @Operation(summary = "Update transaction status")
     public ResponseEntity<Transaction> updateTransactionStatus(@PathVariable UUID id, @RequestParam TransactionStatus status) {
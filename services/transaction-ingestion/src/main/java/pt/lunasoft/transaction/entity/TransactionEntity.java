@@ -26,7 +26,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "TRANSACTION", indexes = {
-		@Index(name = "IDX_ACCOUNT_ID", columnList = "ACCOUNT_ID"),
+		@Index(name = "IDX_ACCOUNT_TIMESTAMP_ID", columnList = "ACCOUNT_ID, TIMESTAMP, ID"),
 		@Index(name = "IDX_TIMESTAMP", columnList = "TIMESTAMP"),
 		@Index(name = "IDX_STATUS", columnList = "STATUS")
 })
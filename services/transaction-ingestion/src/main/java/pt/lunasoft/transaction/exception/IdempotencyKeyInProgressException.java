@@ -0,0 +1,11 @@
+package pt.lunasoft.transaction.exception;
+
+public class IdempotencyKeyInProgressException extends RuntimeException {
+
+	private static final long serialVersionUID = 6210938475520137461L;
+
+	public IdempotencyKeyInProgressException(String message) {
+		super(message);
+	}
+
+}
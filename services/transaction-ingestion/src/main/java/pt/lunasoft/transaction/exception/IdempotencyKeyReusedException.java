@@ -0,0 +1,11 @@
+package pt.lunasoft.transaction.exception;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+	private static final long serialVersionUID = -3856201947123658902L;
+
+	public IdempotencyKeyReusedException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,11 @@
+package pt.lunasoft.transaction.exception;
+
+public class InvalidCursorException extends RuntimeException {
+
+	private static final long serialVersionUID = 4127619836071154213L;
+
+	public InvalidCursorException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,11 @@
+package pt.lunasoft.transaction.exception;
+
+public class InvalidIdempotencyKeyException extends RuntimeException {
+
+	private static final long serialVersionUID = 881264095730149327L;
+
+	public InvalidIdempotencyKeyException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,11 @@
+package pt.lunasoft.transaction.exception;
+
+public class TransactionRejectedException extends RuntimeException {
+
+	private static final long serialVersionUID = 4217730916489250131L;
+
+	public TransactionRejectedException(String message) {
+		super(message);
+	}
+
+}
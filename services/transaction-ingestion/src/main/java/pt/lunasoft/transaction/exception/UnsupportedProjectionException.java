@@ -0,0 +1,11 @@
+package pt.lunasoft.transaction.exception;
+
+public class UnsupportedProjectionException extends RuntimeException {
+
+	private static final long serialVersionUID = -2760358114624078590L;
+
+	public UnsupportedProjectionException(String message) {
+		super(message);
+	}
+
+}
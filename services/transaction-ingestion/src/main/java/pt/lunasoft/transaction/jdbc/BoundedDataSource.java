@@ -0,0 +1,103 @@
+package pt.lunasoft.transaction.jdbc;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * DataSource that caps how many callers may hold a connection at once.
+ * <p>
+ * With virtual threads there is no request thread pool to act as a natural limit, so every
+ * in-flight request can reach the connection pool at the same time. Callers wait on a fair
+ * {@link Semaphore}, which parks a virtual thread without pinning its carrier, and give up
+ * after {@code acquireTimeout} instead of queueing inside the pool for the full connection timeout.
+ * The permit is returned when the connection is closed.
+ */
+public class BoundedDataSource extends DelegatingDataSource {
+
+	private final Semaphore permits;
+	private final int maxConcurrency;
+	private final long acquireTimeoutNanos;
+
+	public BoundedDataSource(DataSource target, int maxConcurrency, Duration acquireTimeout) {
+		super(target);
+		this.permits = new Semaphore(maxConcurrency, true);
+		this.maxConcurrency = maxConcurrency;
+		this.acquireTimeoutNanos = acquireTimeout.toNanos();
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		acquire();
+		try {
+			return guard(super.getConnection());
+		} catch (SQLException | RuntimeException ex) {
+			permits.release();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		acquire();
+		try {
+			return guard(super.getConnection(username, password));
+		} catch (SQLException | RuntimeException ex) {
+			permits.release();
+			throw ex;
+		}
+	}
+
+	public int getActiveCount() {
+		return maxConcurrency - permits.availablePermits();
+	}
+
+	public int getWaitingCount() {
+		return permits.getQueueLength();
+	}
+
+	private void acquire() throws SQLException {
+		try {
+			if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+				throw new SQLTransientConnectionException("No database connection available within "
+						+ TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos) + "ms (" + maxConcurrency + " in use)");
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", ex);
+		}
+	}
+
+	private Connection guard(Connection connection) {
+		AtomicBoolean released = new AtomicBoolean();
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+				(proxy, method, args) -> {
+					if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+						try {
+							connection.close();
+						} finally {
+							if (released.compareAndSet(false, true)) {
+								permits.release();
+							}
+						}
+						return null;
+					}
+					try {
+						return method.invoke(connection, args);
+					} catch (InvocationTargetException ex) {
+						throw ex.getTargetException();
+					}
+				});
+	}
+
+}
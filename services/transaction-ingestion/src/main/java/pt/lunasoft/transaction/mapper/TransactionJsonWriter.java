@@ -0,0 +1,35 @@
+package pt.lunasoft.transaction.mapper;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import pt.lunasoft.models.Transaction;
+
+/**
+ * Serializes transactions straight to Kafka record bytes on the request thread. The writer is bound to
+ * {@link Transaction} once, so no per-call type lookup is needed, and it draws its output buffers
+ * from the mapper's recycler pool. It produces the same JSON as the shared Kafka JSON serializer,
+ * which then passes the {@code byte[]} through untouched.
+ */
+@Component
+public class TransactionJsonWriter {
+
+	private final ObjectWriter writer;
+
+	public TransactionJsonWriter(ObjectMapper objectMapper) {
+		this.writer = objectMapper.writerFor(Transaction.class);
+	}
+
+	public byte[] toBytes(Transaction transaction) {
+		try {
+			return writer.writeValueAsBytes(transaction);
+		} catch (JsonProcessingException ex) {
+			throw new SerializationException("Cannot serialize transaction " + transaction.getId(), ex);
+		}
+	}
+
+}
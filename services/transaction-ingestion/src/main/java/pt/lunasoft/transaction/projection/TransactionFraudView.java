@@ -0,0 +1,37 @@
+package pt.lunasoft.transaction.projection;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import pt.lunasoft.models.enums.TransactionStatus;
+import pt.lunasoft.models.enums.TransactionType;
+
+/**
+ * Columns the fraud rules look at: the summary plus location and device identity.
+ * Free-text columns (DESCRIPTION, USER_AGENT) are never read.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TransactionFraudView(
+		UUID id,
+		String accountId,
+		BigDecimal amount,
+		String currency,
+		TransactionType type,
+		String merchant,
+		String merchantCategory,
+		Instant timestamp,
+		TransactionStatus status,
+		Double locationLatitude,
+		Double locationLongitude,
+		String locationCountry,
+		String ipAddress,
+		String deviceId) {
+
+	public static final String SELECT = "SELECT new pt.lunasoft.transaction.projection.TransactionFraudView("
+			+ "t.id, t.accountId, t.amount, t.currency, t.type, t.merchant, t.merchantCategory, t.timestamp, t.status, "
+			+ "t.locationLatitude, t.locationLongitude, t.locationCountry, t.ipAddress, t.deviceId) ";
+
+}
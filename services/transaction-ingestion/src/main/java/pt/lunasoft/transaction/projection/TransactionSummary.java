@@ -0,0 +1,30 @@
+package pt.lunasoft.transaction.projection;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import pt.lunasoft.models.enums.TransactionStatus;
+import pt.lunasoft.models.enums.TransactionType;
+
+/**
+ * Dashboard list row. Built by a JPQL constructor expression, so only these columns leave the database.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TransactionSummary(
+		UUID id,
+		String accountId,
+		BigDecimal amount,
+		String currency,
+		TransactionType type,
+		String merchant,
+		String merchantCategory,
+		Instant timestamp,
+		TransactionStatus status) {
+
+	public static final String SELECT = "SELECT new pt.lunasoft.transaction.projection.TransactionSummary("
+			+ "t.id, t.accountId, t.amount, t.currency, t.type, t.merchant, t.merchantCategory, t.timestamp, t.status) ";
+
+}
@@ -0,0 +1,25 @@
+package pt.lunasoft.transaction.projection;
+
+import java.util.Locale;
+
+import pt.lunasoft.transaction.exception.UnsupportedProjectionException;
+
+/**
+ * Column sets a read endpoint can be asked for through the {@code fields} query parameter.
+ */
+public enum TransactionView {
+	SUMMARY,
+	FRAUD,
+	FULL;
+
+	public static TransactionView fromFields(String fields) {
+		if (fields == null || fields.isBlank()) {
+			return FULL;
+		}
+		try {
+			return valueOf(fields.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new UnsupportedProjectionException("Unsupported fields value: " + fields + " (expected summary, fraud or full)");
+		}
+	}
+}
@@ -4,6 +4,7 @@ import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -12,11 +13,44 @@ import org.springframework.data.repository.query.Param;
 
 import pt.lunasoft.models.enums.TransactionStatus;
 import pt.lunasoft.transaction.entity.TransactionEntity;
+import pt.lunasoft.transaction.projection.TransactionFraudView;
+import pt.lunasoft.transaction.projection.TransactionSummary;
 
 public interface TransactionRepository extends JpaRepository<TransactionEntity, UUID> {
 
+	// Shared seek clauses for the account history; the projections below reuse them with their own SELECT
+	String LATEST_BY_ACCOUNT = "FROM TransactionEntity t WHERE t.accountId = :accountId ORDER BY t.timestamp DESC, t.id DESC";
+
+	String BEFORE_CURSOR_BY_ACCOUNT = "FROM TransactionEntity t WHERE t.accountId = :accountId "
+			+ "AND (t.timestamp < :timestamp OR (t.timestamp = :timestamp AND t.id < :id)) "
+			+ "ORDER BY t.timestamp DESC, t.id DESC";
+
 	Page<TransactionEntity> findByAccountId(String accountId, Pageable pageable);
 
+	/**
+	 * First page of the account history, newest first. Served from IDX_ACCOUNT_TIMESTAMP_ID without a sort or count.
+	 */
+	@Query("SELECT t " + LATEST_BY_ACCOUNT)
+	List<TransactionEntity> findLatestByAccountId(@Param("accountId") String accountId, Limit limit);
+
+	/**
+	 * Seek to the rows strictly after the (timestamp, id) cursor position, newest first.
+	 */
+	@Query("SELECT t " + BEFORE_CURSOR_BY_ACCOUNT)
+	List<TransactionEntity> findByAccountIdBefore(@Param("accountId") String accountId, @Param("timestamp") Instant timestamp, @Param("id") UUID id, Limit limit);
+
+	@Query(TransactionSummary.SELECT + LATEST_BY_ACCOUNT)
+	List<TransactionSummary> findLatestSummariesByAccountId(@Param("accountId") String accountId, Limit limit);
+
+	@Query(TransactionSummary.SELECT + BEFORE_CURSOR_BY_ACCOUNT)
+	List<TransactionSummary> findSummariesByAccountIdBefore(@Param("accountId") String accountId, @Param("timestamp") Instant timestamp, @Param("id") UUID id, Limit limit);
+
+	@Query(TransactionFraudView.SELECT + LATEST_BY_ACCOUNT)
+	List<TransactionFraudView> findLatestFraudViewsByAccountId(@Param("accountId") String accountId, Limit limit);
+
+	@Query(TransactionFraudView.SELECT + BEFORE_CURSOR_BY_ACCOUNT)
+	List<TransactionFraudView> findFraudViewsByAccountIdBefore(@Param("accountId") String accountId, @Param("timestamp") Instant timestamp, @Param("id") UUID id, Limit limit);
+
     List<TransactionEntity> findByStatus(TransactionStatus status);
 
     @Query("SELECT t FROM TransactionEntity t WHERE t.accountId = :accountId AND t.timestamp BETWEEN :startTime AND :endTime")
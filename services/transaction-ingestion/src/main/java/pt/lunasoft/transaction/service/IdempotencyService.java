@@ -0,0 +1,196 @@
+package pt.lunasoft.transaction.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import pt.lunasoft.models.Transaction;
+import pt.lunasoft.transaction.exception.IdempotencyKeyInProgressException;
+import pt.lunasoft.transaction.exception.IdempotencyKeyReusedException;
+import pt.lunasoft.transaction.exception.InvalidIdempotencyKeyException;
+import pt.lunasoft.transaction.util.BloomFilter;
+import pt.lunasoft.transaction.util.IdempotencyRecord;
+
+/**
+ * Runs a transaction creation at most once per Idempotency-Key.
+ * <p>
+ * The key is claimed with {@code SET NX EX} before the work runs, and the response replaces the claim
+ * once it succeeds. A local Bloom filter remembers the keys this instance has handled: a key it has
+ * never seen goes straight to the claim, which answers "first seen" in a single round trip, while a
+ * key it may have seen is read first so a replay never attempts a write. The filter only steers the
+ * order of calls; Redis stays the source of truth because a retry may land on another instance.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+	private static final String KEY_PREFIX = "idempotency:";
+	private static final int MAX_KEY_LENGTH = 255;
+
+	private final StringRedisTemplate redisTemplate;
+	private final ObjectMapper objectMapper;
+
+	@Value("${app.idempotency.ttl-hours:24}")
+	private long ttlHours;
+
+	@Value("${app.idempotency.in-progress-ttl-seconds:60}")
+	private long inProgressTtlSeconds;
+
+	@Value("${app.idempotency.bloom.expected-insertions:1000000}")
+	private long expectedInsertions;
+
+	@Value("${app.idempotency.bloom.false-positive-probability:0.01}")
+	private double falsePositiveProbability;
+
+	// Current and previous generation; the older one is dropped once the current one is full
+	private final AtomicReference<BloomFilter[]> seenKeys = new AtomicReference<>();
+
+	public record Outcome(Transaction transaction, boolean replayed) {
+	}
+
+	@PostConstruct
+	void initBloomFilter() {
+		BloomFilter empty = new BloomFilter(expectedInsertions, falsePositiveProbability);
+		seenKeys.set(new BloomFilter[] { empty, empty });
+	}
+
+	public Outcome execute(String idempotencyKey, Transaction request, Supplier<Transaction> action) {
+		validate(idempotencyKey);
+		String redisKey = KEY_PREFIX + idempotencyKey;
+		String requestHash = hash(request);
+
+		try {
+			if (mightHaveSeen(idempotencyKey)) {
+				Outcome replay = replay(redisKey, requestHash);
+				if (replay != null) {
+					return replay;
+				}
+			}
+			if (!claim(redisKey, requestHash)) {
+				remember(idempotencyKey);
+				Outcome replay = replay(redisKey, requestHash);
+				if (replay != null) {
+					return replay;
+				}
+				// The claim expired between our two calls; treat as in progress and let the client retry
+				throw new IdempotencyKeyInProgressException("Request with Idempotency-Key " + idempotencyKey + " is still being processed");
+			}
+		} catch (DataAccessException ex) {
+			log.warn("Idempotency store unavailable, processing key {} without deduplication", idempotencyKey, ex);
+			return new Outcome(action.get(), false);
+		}
+
+		remember(idempotencyKey);
+		Transaction response;
+		try {
+			response = action.get();
+		} catch (RuntimeException ex) {
+			release(redisKey);
+			throw ex;
+		}
+
+		store(redisKey, IdempotencyRecord.builder().requestHash(requestHash).response(response).build(), Duration.ofHours(ttlHours));
+		return new Outcome(response, false);
+	}
+
+	private Outcome replay(String redisKey, String requestHash) {
+		String stored = redisTemplate.opsForValue().get(redisKey);
+		if (stored == null) {
+			return null;
+		}
+
+		IdempotencyRecord record = read(stored);
+		if (!requestHash.equals(record.getRequestHash())) {
+			throw new IdempotencyKeyReusedException("Idempotency-Key was already used with a different request body");
+		}
+		if (record.getResponse() == null) {
+			throw new IdempotencyKeyInProgressException("Request with this Idempotency-Key is still being processed");
+		}
+		log.info("Replaying transaction {} for repeated Idempotency-Key", record.getResponse().getId());
+		return new Outcome(record.getResponse(), true);
+	}
+
+	private boolean claim(String redisKey, String requestHash) {
+		String pending = write(IdempotencyRecord.builder().requestHash(requestHash).build());
+		return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(redisKey, pending, Duration.ofSeconds(inProgressTtlSeconds)));
+	}
+
+	private void store(String redisKey, IdempotencyRecord record, Duration ttl) {
+		try {
+			redisTemplate.opsForValue().set(redisKey, write(record), ttl);
+		} catch (DataAccessException ex) {
+			// The transaction is committed; a retry after the claim expires would create it again
+			log.error("Failed to store idempotent response for {}", redisKey, ex);
+		}
+	}
+
+	// Let the client retry with the same key after a failure
+	private void release(String redisKey) {
+		try {
+			redisTemplate.delete(redisKey);
+		} catch (DataAccessException ex) {
+			log.warn("Failed to release idempotency claim {}, it expires in {}s", redisKey, inProgressTtlSeconds, ex);
+		}
+	}
+
+	private boolean mightHaveSeen(String idempotencyKey) {
+		BloomFilter[] generations = seenKeys.get();
+		return generations[0].mightContain(idempotencyKey) || generations[1].mightContain(idempotencyKey);
+	}
+
+	private void remember(String idempotencyKey) {
+		BloomFilter[] generations = seenKeys.get();
+		generations[0].put(idempotencyKey);
+		if (generations[0].getInsertions() >= expectedInsertions) {
+			BloomFilter fresh = new BloomFilter(expectedInsertions, falsePositiveProbability);
+			seenKeys.compareAndSet(generations, new BloomFilter[] { fresh, generations[0] });
+		}
+	}
+
+	private static void validate(String idempotencyKey) {
+		if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+			throw new InvalidIdempotencyKeyException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+		}
+	}
+
+	private String hash(Transaction request) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+			return HexFormat.of().formatHex(digest);
+		} catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("Unable to fingerprint request", ex);
+		}
+	}
+
+	private String write(IdempotencyRecord record) {
+		try {
+			return objectMapper.writeValueAsString(record);
+		} catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Unable to serialize idempotency record", ex);
+		}
+	}
+
+	private IdempotencyRecord read(String stored) {
+		try {
+			return objectMapper.readValue(stored, IdempotencyRecord.class);
+		} catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Unable to read idempotency record", ex);
+		}
+	}
+
+}
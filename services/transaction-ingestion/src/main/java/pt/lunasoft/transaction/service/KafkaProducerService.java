@@ -1,7 +1,9 @@
 package pt.lunasoft.transaction.service;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
@@ -9,26 +11,45 @@ import org.springframework.stereotype.Service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import pt.lunasoft.kafka.configuration.FinstreamKafkaProperties;
+import pt.lunasoft.kafka.serialization.SerializationFormat;
 import pt.lunasoft.models.Transaction;
+import pt.lunasoft.transaction.mapper.TransactionJsonWriter;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class KafkaProducerService {
 
-	private final KafkaTemplate<String, Transaction> kafkaTemplate;
+	private final KafkaTemplate<String, Object> kafkaTemplate;
+	private final TransactionJsonWriter transactionJsonWriter;
+	private final FinstreamKafkaProperties kafkaProperties;
 
     @Value("${app.kafka.topics.transactions-incoming}")
     private String transactionsIncomingTopic;
 
+    // Log one in every N successful sends, none when N <= 0; failures are always logged
+    @Value("${app.kafka.producer.log-sample-rate:100}")
+    private int logSampleRate;
+
+    private final AtomicLong sentCount = new AtomicLong();
+
     public void sendTransaction(Transaction transaction) {
         log.debug("Sending transaction to Kafka: {}", transaction.getId());
         
-        CompletableFuture<SendResult<String, Transaction>> future = kafkaTemplate.send(transactionsIncomingTopic, transaction.getAccountId(), transaction);
+        // JSON is written here once and passed through as bytes; Avro still goes through its serializer
+        Object payload = kafkaProperties.getSerialization().getFormat() == SerializationFormat.JSON
+                ? transactionJsonWriter.toBytes(transaction)
+                : transaction;
+        ProducerRecord<String, Object> record = new ProducerRecord<>(transactionsIncomingTopic, transaction.getAccountId(), payload);
+        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(record);
         
         future.whenComplete((result, ex) -> {
             if (ex == null) {
-                log.info("Transaction sent successfully: {} to partition: {}", transaction.getId(), result.getRecordMetadata().partition());
+                if (logSampleRate > 0 && sentCount.incrementAndGet() % logSampleRate == 0) {
+                    log.info("Transaction sent successfully: {} to partition: {} ({} sent)", transaction.getId(),
+                            result.getRecordMetadata().partition(), sentCount.get());
+                }
             } else {
                 log.error("Failed to send transaction: {}", transaction.getId(), ex);
             }
@@ -1,9 +1,14 @@
 package pt.lunasoft.transaction.service;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Function;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -11,42 +16,63 @@ import org.springframework.transaction.annotation.Transactional;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import pt.lunasoft.fraud.rules.PreScore;
+import pt.lunasoft.fraud.rules.StatelessFraudRules;
 import pt.lunasoft.models.Transaction;
 import pt.lunasoft.models.enums.TransactionStatus;
 import pt.lunasoft.transaction.entity.TransactionEntity;
 import pt.lunasoft.transaction.exception.TransactionNotFoundException;
+import pt.lunasoft.transaction.exception.TransactionRejectedException;
 import pt.lunasoft.transaction.mapper.TransactionMapper;
+import pt.lunasoft.transaction.projection.TransactionView;
 import pt.lunasoft.transaction.repository.TransactionRepository;
+import pt.lunasoft.transaction.util.CursorPage;
+import pt.lunasoft.transaction.util.TransactionCursor;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TransactionService {
 
+	private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
 	private final TransactionRepository transactionRepository;
 	private final TransactionMapper transactionMapper;
 	private final KafkaProducerService kafkaProducerService;
+	private final StatelessFraudRules statelessFraudRules;
+
+	// Sum of stateless fraud rule scores at which a transaction is refused outright; 0 accepts all
+	@Value("${app.fraud.prescore.reject-score:0}")
+	private double rejectScore;
 
 	@Transactional
 	public Transaction createTransaction(Transaction transaction) {
 		log.info("Creating transaction for account: {}", transaction.getAccountId());
 
-		// Set initial values
-		transaction.setId(UUID.randomUUID());
+		// History-free fraud rules run inline; extreme cases never reach the database or Kafka
+		PreScore preScore = statelessFraudRules.evaluate(transaction);
+		if (rejectScore > 0 && preScore.total() >= rejectScore) {
+			throw new TransactionRejectedException("Transaction rejected by fraud pre-scoring: " + preScore.scores());
+		}
+
+		// Set initial values; the id is generated on persist, a preset one would make save() merge a missing row
+		transaction.setId(null);
 		transaction.setStatus(TransactionStatus.PENDING);
 		transaction.setCreatedAt(Instant.now());
 
 		// Save to database
-		TransactionEntity entity = transactionMapper.toEntity(transaction);
-		TransactionEntity saved = transactionRepository.save(entity);
+		TransactionEntity saved = transactionRepository.save(transactionMapper.toEntity(transaction));
 
-		Transaction savedTransaction = transactionMapper.toModel(saved);
+		// The validated request already carries every field; only copy back what persistence assigned
+		transaction.setId(saved.getId());
+		transaction.setCreatedAt(saved.getCreatedAt());
+		transaction.setUpdatedAt(saved.getUpdatedAt());
 
-		// Publish to Kafka
-		kafkaProducerService.sendTransaction(savedTransaction);
+		// Publish to Kafka; fraud detection evaluates the stateless rules again with the rest
+		kafkaProducerService.sendTransaction(transaction);
 
-		log.info("Transaction created successfully: {}", savedTransaction.getId());
-		return savedTransaction;
+		log.info("Transaction created successfully: {}", transaction.getId());
+		return transaction;
 	}
 
 	@Cacheable(value = "transactions", key = "#id")
@@ -60,6 +86,50 @@ public class TransactionService {
 		return transactionRepository.findByAccountId(accountId, pageable).map(transactionMapper::toModel);
 	}
 
+	/**
+	 * Keyset pagination over the account history, newest first. Each page costs one index range scan
+	 * regardless of depth, and no total count is computed. SUMMARY and FRAUD views are selected as
+	 * constructor projections and returned as-is; only FULL loads entities and maps them to the model.
+	 */
+	@Transactional(readOnly = true)
+	public CursorPage<?> getTransactionHistory(String accountId, String cursor, int size, TransactionView view) {
+		log.debug("Fetching {} transaction history for account: {}", view, accountId);
+
+		int pageSize = Math.clamp(size, 1, MAX_HISTORY_PAGE_SIZE);
+		// Fetch one extra row to learn whether another page exists
+		Limit limit = Limit.of(pageSize + 1);
+		TransactionCursor position = cursor == null || cursor.isBlank() ? null : TransactionCursor.decode(cursor);
+
+		return switch (view) {
+			case SUMMARY -> toCursorPage(position == null
+					? transactionRepository.findLatestSummariesByAccountId(accountId, limit)
+					: transactionRepository.findSummariesByAccountIdBefore(accountId, position.timestamp(), position.id(), limit),
+					pageSize, row -> new TransactionCursor(row.timestamp(), row.id()), Function.identity());
+			case FRAUD -> toCursorPage(position == null
+					? transactionRepository.findLatestFraudViewsByAccountId(accountId, limit)
+					: transactionRepository.findFraudViewsByAccountIdBefore(accountId, position.timestamp(), position.id(), limit),
+					pageSize, row -> new TransactionCursor(row.timestamp(), row.id()), Function.identity());
+			case FULL -> toCursorPage(position == null
+					? transactionRepository.findLatestByAccountId(accountId, limit)
+					: transactionRepository.findByAccountIdBefore(accountId, position.timestamp(), position.id(), limit),
+					pageSize, TransactionCursor::of, transactionMapper::toModel);
+		};
+	}
+
+	private <R, T> CursorPage<T> toCursorPage(List<R> rows, int pageSize, Function<R, TransactionCursor> positionOf, Function<R, T> mapper) {
+		boolean hasNext = rows.size() > pageSize;
+		List<R> page = hasNext ? rows.subList(0, pageSize) : rows;
+
+		return CursorPage.<T>builder()
+				.content(page.stream().map(mapper).toList())
+				.size(page.size())
+				.hasNext(hasNext)
+				.nextCursor(hasNext ? positionOf.apply(page.get(page.size() - 1)).encode() : null)
+				.build();
+	}
+
+	// Evicted rather than put: the eviction is what tells other instances to drop their local copy
+	@CacheEvict(value = "transactions", key = "#id")
 	@Transactional
 	public Transaction updateTransactionStatus(UUID id, TransactionStatus status) {
 		log.info("Updating transaction {} status to {}", id, status);
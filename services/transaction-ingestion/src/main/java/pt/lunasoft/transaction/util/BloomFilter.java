@@ -0,0 +1,75 @@
+package pt.lunasoft.transaction.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, thread-safe Bloom filter over strings. {@link #mightContain(String)} never returns
+ * false for a key that was {@link #put(String) put}; it returns true for an unseen key with roughly
+ * the configured false positive probability once {@code expectedInsertions} keys have been added.
+ */
+public class BloomFilter {
+
+	private final AtomicLongArray bits;
+	private final long bitCount;
+	private final int hashCount;
+	private final AtomicLong insertions = new AtomicLong();
+
+	public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+		long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+		int words = (int) Math.max(1, (optimalBits + 63) / 64);
+		this.bits = new AtomicLongArray(words);
+		this.bitCount = words * 64L;
+		this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+	}
+
+	public void put(String key) {
+		long hash1 = hash(key);
+		long hash2 = mix(hash1) | 1;
+		for (int i = 0; i < hashCount; i++) {
+			long index = Math.floorMod(hash1 + i * hash2, bitCount);
+			int word = (int) (index >>> 6);
+			long mask = 1L << index;
+			long current = bits.get(word);
+			while ((current & mask) == 0 && !bits.weakCompareAndSetVolatile(word, current, current | mask)) {
+				current = bits.get(word);
+			}
+		}
+		insertions.incrementAndGet();
+	}
+
+	public boolean mightContain(String key) {
+		long hash1 = hash(key);
+		long hash2 = mix(hash1) | 1;
+		for (int i = 0; i < hashCount; i++) {
+			long index = Math.floorMod(hash1 + i * hash2, bitCount);
+			if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public long getInsertions() {
+		return insertions.get();
+	}
+
+	// FNV-1a over the UTF-16 code units
+	private static long hash(String key) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < key.length(); i++) {
+			hash ^= key.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return mix(hash);
+	}
+
+	// SplitMix64 finalizer, also used to derive the second hash for double hashing
+	private static long mix(long value) {
+		long z = value + 0x9e3779b97f4a7c15L;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -0,0 +1,21 @@
+package pt.lunasoft.transaction.util;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+	private List<T> content;
+	private int size;
+	private boolean hasNext;
+	private String nextCursor;
+
+}
@@ -0,0 +1,22 @@
+package pt.lunasoft.transaction.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pt.lunasoft.models.Transaction;
+
+/**
+ * Value stored in Redis under an Idempotency-Key. {@code response} is null while the first request
+ * is still being processed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+	private String requestHash;
+	private Transaction response;
+
+}
@@ -0,0 +1,48 @@
+package pt.lunasoft.transaction.util;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+import pt.lunasoft.transaction.entity.TransactionEntity;
+import pt.lunasoft.transaction.exception.InvalidCursorException;
+
+/**
+ * Position in an account history scroll: the (timestamp, id) of the last row returned.
+ * Clients see it as an opaque URL-safe token.
+ */
+public record TransactionCursor(Instant timestamp, UUID id) {
+
+	private static final int ENCODED_BYTES = Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+	public static TransactionCursor of(TransactionEntity entity) {
+		return new TransactionCursor(entity.getTimestamp(), entity.getId());
+	}
+
+	public String encode() {
+		ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES)
+				.putLong(timestamp.getEpochSecond())
+				.putInt(timestamp.getNano())
+				.putLong(id.getMostSignificantBits())
+				.putLong(id.getLeastSignificantBits());
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+	}
+
+	public static TransactionCursor decode(String token) {
+		try {
+			byte[] bytes = Base64.getUrlDecoder().decode(token);
+			if (bytes.length != ENCODED_BYTES) {
+				throw new InvalidCursorException("Invalid cursor: " + token);
+			}
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			Instant timestamp = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+			return new TransactionCursor(timestamp, new UUID(buffer.getLong(), buffer.getLong()));
+		} catch (IllegalArgumentException | BufferUnderflowException | DateTimeException e) {
+			throw new InvalidCursorException("Invalid cursor: " + token);
+		}
+	}
+
+}
@@ -166,6 +166,87 @@ class TransactionIntegrationTest {
                 .andExpect(jsonPath("$.content.length()").value(3));
     }
 
+    @Test
+    void shouldScrollAccountHistoryWithCursor() throws Exception {
+        // Given - Create transactions with distinct timestamps
+        Instant base = Instant.now().minusSeconds(600);
+        for (int i = 0; i < 5; i++) {
+            Transaction transaction = Transaction.builder()
+                    .accountId("ACC777")
+                    .amount(new BigDecimal("10.00"))
+                    .currency("USD")
+                    .type(TransactionType.PURCHASE)
+                    .merchant("Test Merchant " + i)
+                    .timestamp(base.plusSeconds(i * 10L))
+                    .build();
+
+            mockMvc.perform(post("/api/v1/transactions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(transaction)))
+                    .andExpect(status().isCreated());
+        }
+
+        // When & Then - First page
+        String firstPage = mockMvc.perform(get("/api/v1/transactions/account/ACC777/history")
+                        .param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(3))
+                .andExpect(jsonPath("$.content[0].merchant").value("Test Merchant 4"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        // When & Then - Second page continues where the first stopped
+        mockMvc.perform(get("/api/v1/transactions/account/ACC777/history")
+                        .param("size", "3")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].merchant").value("Test Merchant 1"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void shouldReturnSummaryProjectionWhenRequested() throws Exception {
+        // Given
+        Transaction transaction = Transaction.builder()
+                .accountId("ACC888")
+                .amount(new BigDecimal("42.00"))
+                .currency("EUR")
+                .type(TransactionType.PURCHASE)
+                .merchant("Test Merchant")
+                .description("Long free-text description")
+                .timestamp(Instant.now())
+                .build();
+
+        mockMvc.perform(post("/api/v1/transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transaction)))
+                .andExpect(status().isCreated());
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/transactions/account/ACC888/history")
+                        .param("fields", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].accountId").value("ACC888"))
+                .andExpect(jsonPath("$.content[0].amount").value(42.00))
+                .andExpect(jsonPath("$.content[0].description").doesNotExist());
+
+        mockMvc.perform(get("/api/v1/transactions/account/ACC888/history")
+                        .param("fields", "everything"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRejectMalformedCursor() throws Exception {
+        mockMvc.perform(get("/api/v1/transactions/account/ACC777/history")
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void shouldUpdateTransactionStatus() throws Exception {
         // Given - Create a transaction
@@ -0,0 +1,124 @@
+package pt.lunasoft.transaction.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+class TwoLevelCacheTest {
+
+    private ConcurrentMapCache remote;
+    private List<String> published;
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remote = new ConcurrentMapCache("transactions");
+        published = new ArrayList<>();
+        cache = new TwoLevelCache("transactions", Caffeine.newBuilder().maximumSize(100).build(), remote,
+                (name, key) -> published.add(name + ":" + key));
+    }
+
+    @Test
+    void shouldPopulateLocalCacheFromRemoteOnMiss() {
+        // Given
+        UUID id = UUID.randomUUID();
+        remote.put(id, "remote-value");
+
+        // When
+        Object first = cache.get(id).get();
+        remote.evict(id);
+        Object second = cache.get(id).get();
+
+        // Then - second read is served by L1 even though L2 no longer has it
+        assertThat(first).isEqualTo("remote-value");
+        assertThat(second).isEqualTo("remote-value");
+    }
+
+    @Test
+    void shouldWriteThroughWithoutPublishingOnPut() {
+        // Given
+        UUID id = UUID.randomUUID();
+
+        // When
+        cache.put(id, "loaded");
+
+        // Then - a cache fill must not invalidate the other instances
+        assertThat(remote.get(id).get()).isEqualTo("loaded");
+        assertThat(cache.get(id).get()).isEqualTo("loaded");
+        assertThat(published).isEmpty();
+    }
+
+    @Test
+    void shouldPublishOnEvict() {
+        // Given
+        UUID id = UUID.randomUUID();
+        cache.put(id, "old");
+
+        // When
+        cache.evict(id);
+
+        // Then
+        assertThat(remote.get(id)).isNull();
+        assertThat(cache.get(id)).isNull();
+        assertThat(published).containsExactly("transactions:" + id);
+    }
+
+    @Test
+    void shouldDropLocalEntryOnRemoteInvalidation() {
+        // Given
+        UUID id = UUID.randomUUID();
+        cache.put(id, "stale");
+        remote.put(id, "fresh");
+
+        // When
+        cache.evictLocal(id.toString());
+
+        // Then
+        assertThat(cache.get(id).get()).isEqualTo("fresh");
+    }
+
+    @Test
+    void shouldNotFillLocalCacheWhenInvalidatedDuringRemoteRead() {
+        // Given - another instance's invalidation arrives while the L2 read is in flight
+        UUID id = UUID.randomUUID();
+        ConcurrentMapCache slowRemote = new ConcurrentMapCache("transactions") {
+            @Override
+            public ValueWrapper get(Object key) {
+                ValueWrapper value = super.get(key);
+                cache.evictLocal(key.toString());
+                put(key, "fresh");
+                return value;
+            }
+        };
+        slowRemote.put(id, "stale");
+        Cache<String, Object> local = Caffeine.newBuilder().maximumSize(100).build();
+        cache = new TwoLevelCache("transactions", local, slowRemote, (name, key) -> published.add(name + ":" + key));
+
+        // When
+        Object read = cache.get(id).get();
+
+        // Then - the stale read is returned once but never cached
+        assertThat(read).isEqualTo("stale");
+        assertThat(local.getIfPresent(id.toString())).isNull();
+    }
+
+    @Test
+    void shouldLoadThroughRemoteWithValueLoader() {
+        UUID id = UUID.randomUUID();
+
+        String value = cache.get(id, () -> "loaded");
+
+        assertThat(value).isEqualTo("loaded");
+        assertThat(remote.get(id).get()).isEqualTo("loaded");
+    }
+
+}
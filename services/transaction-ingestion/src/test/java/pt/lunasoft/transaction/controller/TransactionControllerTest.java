@@ -0,0 +1,61 @@
+package pt.lunasoft.transaction.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import pt.lunasoft.fraud.rules.StatelessFraudRules;
+import pt.lunasoft.transaction.exception.GlobalExceptionHandler;
+import pt.lunasoft.transaction.mapper.TransactionMapper;
+import pt.lunasoft.transaction.repository.TransactionRepository;
+import pt.lunasoft.transaction.service.IdempotencyService;
+import pt.lunasoft.transaction.service.KafkaProducerService;
+import pt.lunasoft.transaction.service.TransactionService;
+
+class TransactionControllerTest {
+
+	private final TransactionRepository repository = mock(TransactionRepository.class);
+	private final KafkaProducerService kafkaProducerService = mock(KafkaProducerService.class);
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		TransactionService transactionService = new TransactionService(repository, mock(TransactionMapper.class),
+				kafkaProducerService, new StatelessFraudRules(ZoneOffset.UTC));
+		ReflectionTestUtils.setField(transactionService, "rejectScore", 60.0);
+		mockMvc = MockMvcBuilders.standaloneSetup(new TransactionController(transactionService, mock(IdempotencyService.class)))
+				.setControllerAdvice(new GlobalExceptionHandler())
+				.build();
+	}
+
+	@Test
+	void shouldRejectTransactionReachingPreScoreThresholdWith422() throws Exception {
+		// Given - very high, round and late at night: 40 + 15 + 20
+		String body = """
+				{"accountId":"ACC00001","amount":12000.00,"currency":"EUR","type":"PURCHASE",
+				 "merchant":"Merchant","timestamp":"2026-01-01T03:15:00.000Z"}
+				""";
+
+		// When / Then
+		mockMvc.perform(post("/api/v1/transactions").contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isUnprocessableEntity())
+				.andExpect(jsonPath("$.status").value(422));
+		verify(repository, never()).save(any());
+		verifyNoInteractions(kafkaProducerService);
+	}
+
+}
@@ -0,0 +1,70 @@
+package pt.lunasoft.transaction.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BoundedDataSourceTest {
+
+	private DataSource target;
+	private Connection connection;
+	private BoundedDataSource dataSource;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		target = mock(DataSource.class);
+		connection = mock(Connection.class);
+		when(target.getConnection()).thenReturn(connection);
+		dataSource = new BoundedDataSource(target, 1, Duration.ofMillis(50));
+	}
+
+	@Test
+	void shouldRejectWhenAllPermitsAreHeld() throws SQLException {
+		// Given
+		Connection held = dataSource.getConnection();
+
+		// When / Then
+		assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+		assertThat(dataSource.getActiveCount()).isEqualTo(1);
+		held.close();
+	}
+
+	@Test
+	void shouldReleasePermitOnceWhenConnectionIsClosed() throws SQLException {
+		// Given
+		Connection held = dataSource.getConnection();
+
+		// When
+		held.close();
+		held.close();
+
+		// Then
+		verify(connection, times(2)).close();
+		assertThat(dataSource.getActiveCount()).isZero();
+		assertThat(dataSource.getConnection()).isNotNull();
+	}
+
+	@Test
+	void shouldReleasePermitWhenTargetFails() throws SQLException {
+		// Given
+		when(target.getConnection()).thenThrow(new SQLException("down"));
+
+		// When / Then
+		assertThatThrownBy(dataSource::getConnection).hasMessage("down");
+		assertThat(dataSource.getActiveCount()).isZero();
+	}
+
+}
@@ -0,0 +1,59 @@
+package pt.lunasoft.transaction.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pt.lunasoft.models.Location;
+import pt.lunasoft.models.Transaction;
+import pt.lunasoft.models.enums.TransactionStatus;
+import pt.lunasoft.models.enums.TransactionType;
+
+class TransactionJsonWriterTest {
+
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+			.postConfigurer(mapper -> mapper.getFactory().setRecyclerPool(JsonRecyclerPools.sharedConcurrentDequePool()))
+			.build();
+
+	@Test
+	void shouldWriteSameBytesAsKafkaJsonSerializer() {
+		// Given
+		Transaction transaction = transaction();
+		JsonSerializer<Transaction> serializer = new JsonSerializer<Transaction>(objectMapper).noTypeInfo();
+
+		// When
+		byte[] bytes = new TransactionJsonWriter(objectMapper).toBytes(transaction);
+
+		// Then
+		assertThat(bytes).isEqualTo(serializer.serialize("transactions.incoming", transaction));
+		try (JsonDeserializer<Transaction> deserializer = new JsonDeserializer<>(Transaction.class, objectMapper, false)) {
+			assertThat(deserializer.deserialize("transactions.incoming", bytes)).isEqualTo(transaction);
+		}
+	}
+
+	private static Transaction transaction() {
+		return Transaction.builder()
+				.id(UUID.randomUUID())
+				.accountId("ACC00001")
+				.amount(new BigDecimal("149.99"))
+				.currency("EUR")
+				.type(TransactionType.PURCHASE)
+				.merchant("Coffee Roasters")
+				.timestamp(Instant.parse("2026-01-01T10:00:00Z"))
+				.status(TransactionStatus.PENDING)
+				.location(Location.builder().latitude(38.72).longitude(-9.14).city("Lisbon").country("PT").build())
+				.createdAt(Instant.parse("2026-01-01T10:00:00.123Z"))
+				.build();
+	}
+
+}
@@ -0,0 +1,128 @@
+package pt.lunasoft.transaction.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import pt.lunasoft.models.Transaction;
+import pt.lunasoft.models.enums.TransactionType;
+import pt.lunasoft.transaction.repository.TransactionRepository;
+
+/**
+ * Perf gate for the ingestion write path, run with {@code mvn -Pperf-tests}: a fixed, seeded
+ * workload of POSTs through validation, H2 and the Kafka producer, checked against a p99 latency
+ * and a throughput budget. Requests carry no Idempotency-Key and nothing is cached on create, so
+ * Redis is never touched; only the invalidation subscriber, which connects on startup, is stubbed.
+ */
+@Tag("perf")
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+@EmbeddedKafka(partitions = 3, topics = { "transactions.incoming" }, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+@DirtiesContext
+class TransactionIngestionPerfTest {
+
+	@MockitoBean
+	private RedisMessageListenerContainer cacheInvalidationListenerContainer;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Value("${perf.ingestion.accounts}")
+	private int accounts;
+
+	@Value("${perf.ingestion.warmup}")
+	private int warmup;
+
+	@Value("${perf.ingestion.transactions}")
+	private int transactions;
+
+	@Value("${perf.ingestion.max-p99-ms}")
+	private double maxP99Ms;
+
+	@Value("${perf.ingestion.min-throughput-per-second}")
+	private double minThroughputPerSecond;
+
+	@Test
+	void shouldIngestTransactionsWithinBudgets() throws Exception {
+		// Given
+		SplittableRandom random = new SplittableRandom(42);
+		Timer latency = Timer.builder("perf.ingestion.create").publishPercentiles(0.99).register(new SimpleMeterRegistry());
+		for (int i = 0; i < warmup; i++) {
+			createTransaction(nextTransaction(random));
+		}
+
+		// When
+		long start = System.nanoTime();
+		for (int i = 0; i < transactions; i++) {
+			byte[] body = nextTransaction(random);
+			long requestStart = System.nanoTime();
+			createTransaction(body);
+			latency.record(System.nanoTime() - requestStart, TimeUnit.NANOSECONDS);
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		// Then
+		assertThat(transactionRepository.count()).isEqualTo(warmup + transactions);
+		assertThat(percentile(latency, 0.99)).as("p99 create latency (ms)").isLessThanOrEqualTo(maxP99Ms);
+		assertThat(transactions / seconds).as("transactions created per second").isGreaterThanOrEqualTo(minThroughputPerSecond);
+	}
+
+	private void createTransaction(byte[] body) throws Exception {
+		mockMvc.perform(post("/api/v1/transactions").contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isCreated());
+	}
+
+	private static double percentile(Timer timer, double percentile) {
+		for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+			if (value.percentile() == percentile) {
+				return value.value(TimeUnit.MILLISECONDS);
+			}
+		}
+		throw new IllegalStateException("Percentile " + percentile + " not published");
+	}
+
+	private byte[] nextTransaction(SplittableRandom random) throws Exception {
+		Transaction transaction = Transaction.builder()
+				.accountId(String.format("ACC%07d", random.nextInt(accounts)))
+				.amount(BigDecimal.valueOf(random.nextDouble(1, 500)).setScale(2, RoundingMode.HALF_UP))
+				.currency("EUR")
+				.type(TransactionType.PURCHASE)
+				.merchant("Merchant " + random.nextInt(200))
+				.timestamp(Instant.now())
+				.build();
+		return objectMapper.writeValueAsBytes(transaction);
+	}
+
+}
@@ -0,0 +1,39 @@
+package pt.lunasoft.transaction.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+	@Test
+	void shouldAlwaysContainInsertedKeys() {
+		// Given
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		var keys = IntStream.range(0, 10_000).mapToObj(i -> UUID.randomUUID().toString()).toList();
+
+		// When
+		keys.forEach(filter::put);
+
+		// Then
+		assertThat(keys).allMatch(filter::mightContain);
+		assertThat(filter.getInsertions()).isEqualTo(10_000);
+	}
+
+	@Test
+	void shouldKeepFalsePositivesNearConfiguredRate() {
+		// Given
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		IntStream.range(0, 10_000).forEach(i -> filter.put("seen-" + i));
+
+		// When
+		long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("unseen-" + i)).count();
+
+		// Then
+		assertThat(falsePositives).isLessThan(2_000);
+	}
+
+}
@@ -0,0 +1,42 @@
+package pt.lunasoft.transaction.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import pt.lunasoft.transaction.exception.InvalidCursorException;
+
+class TransactionCursorTest {
+
+    @Test
+    void shouldRoundTripTimestampAndId() {
+        // Given
+        TransactionCursor cursor = new TransactionCursor(Instant.parse("2025-03-14T09:26:53.589793Z"), UUID.randomUUID());
+
+        // When
+        TransactionCursor decoded = TransactionCursor.decode(cursor.encode());
+
+        // Then
+        assertThat(decoded).isEqualTo(cursor);
+    }
+
+    @Test
+    void shouldProduceUrlSafeToken() {
+        TransactionCursor cursor = new TransactionCursor(Instant.now(), UUID.randomUUID());
+
+        assertThat(cursor.encode()).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void shouldRejectMalformedToken() {
+        assertThatThrownBy(() -> TransactionCursor.decode("not-a-cursor"))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> TransactionCursor.decode("%%%"))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+}
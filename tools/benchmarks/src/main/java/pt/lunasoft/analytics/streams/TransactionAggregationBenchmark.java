@@ -0,0 +1,67 @@
+package pt.lunasoft.analytics.streams;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pt.lunasoft.benchmarks.support.Transactions;
+import pt.lunasoft.models.Transaction;
+
+/**
+ * Cost of folding one transaction into a window aggregate, the step the topology runs for every
+ * record on each of its windowed aggregations, and of the store round trip of that aggregate.
+ * Lives in the topology's package because the aggregator is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionAggregationBenchmark {
+
+	private static final int BATCH = 1_000;
+	private static final String STORE_TOPIC = "account-stats-changelog";
+
+	private final TransactionAnalyticsTopology topology = new TransactionAnalyticsTopology(null, null);
+	private final StatsAggregateSerde serde = new StatsAggregateSerde();
+	private List<Transaction> transactions;
+
+	@Setup
+	public void setUp() {
+		transactions = Transactions.history("ACC0000001", BATCH, 1);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public StatsAggregate aggregateTransaction() {
+		StatsAggregate aggregate = topology.initializeStats();
+		for (Transaction transaction : transactions) {
+			aggregate = topology.aggregateTransaction(transaction.getAccountId(), transaction, aggregate);
+		}
+		return aggregate;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public StatsAggregate aggregateWithStoreRoundTrip() {
+		StatsAggregate aggregate = topology.initializeStats();
+		for (Transaction transaction : transactions) {
+			byte[] stored = serde.serializer().serialize(STORE_TOPIC, topology.aggregateTransaction(transaction.getAccountId(), transaction, aggregate));
+			aggregate = serde.deserializer().deserialize(STORE_TOPIC, stored);
+		}
+		return aggregate;
+	}
+
+}
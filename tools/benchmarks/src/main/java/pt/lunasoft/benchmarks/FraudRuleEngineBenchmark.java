@@ -0,0 +1,102 @@
+package pt.lunasoft.benchmarks;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pt.lunasoft.benchmarks.support.Transactions;
+import pt.lunasoft.fraud.engine.FraudRuleEngine;
+import pt.lunasoft.fraud.service.InMemoryTransactionHistoryService;
+import pt.lunasoft.models.Transaction;
+
+/**
+ * Per-transaction cost of the fraud rules against an account history of {@code historySize}
+ * entries. The history-bound rules read at most 100 entries, so sizes beyond that show whether
+ * anything scales with the full history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FraudRuleEngineBenchmark {
+
+	private static final String ACCOUNT_ID = "ACC0000001";
+
+	@Param({ "10", "100", "1000" })
+	int historySize;
+
+	private FraudRuleEngine engine;
+	private Transaction transaction;
+	private Map<String, Double> ruleScores;
+
+	@Setup
+	public void setUp() {
+		InMemoryTransactionHistoryService history = new InMemoryTransactionHistoryService(historySize);
+		// Stored oldest first so the newest ends up at the head, as with LPUSH
+		Transactions.history(ACCOUNT_ID, historySize, 1).reversed().forEach(history::addTransaction);
+		engine = new FraudRuleEngine(history);
+		transaction = Transactions.sample(ACCOUNT_ID, new SplittableRandom(2), Instant.now());
+		ruleScores = engine.evaluateAllRules(transaction);
+	}
+
+	@Benchmark
+	public Map<String, Double> evaluateAllRules() {
+		return engine.evaluateAllRules(transaction);
+	}
+
+	@Benchmark
+	public double calculateOverallRiskScore() {
+		return engine.calculateOverallRiskScore(ruleScores);
+	}
+
+	@Benchmark
+	public double highAmountRule() {
+		return engine.evaluateHighAmountRule(transaction);
+	}
+
+	@Benchmark
+	public double unusualLocationRule() {
+		return engine.evaluateUnusualLocationRule(transaction);
+	}
+
+	@Benchmark
+	public double velocityRule() {
+		return engine.evaluateVelocityRule(transaction);
+	}
+
+	@Benchmark
+	public double duplicateTransactionRule() {
+		return engine.evaluateDuplicateTransactionRule(transaction);
+	}
+
+	@Benchmark
+	public double unusualMerchantRule() {
+		return engine.evaluateUnusualMerchantRule(transaction);
+	}
+
+	@Benchmark
+	public double deviceFingerprintRule() {
+		return engine.evaluateDeviceFingerprintRule(transaction);
+	}
+
+	@Benchmark
+	public double geographicImpossibleRule() {
+		return engine.evaluateGeographicImpossibleRule(transaction);
+	}
+
+}
@@ -0,0 +1,100 @@
+package pt.lunasoft.benchmarks;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pt.lunasoft.benchmarks.support.Transactions;
+import pt.lunasoft.kafka.serialization.FinstreamSerdes;
+import pt.lunasoft.kafka.serialization.SerializationFormat;
+import pt.lunasoft.models.Transaction;
+import pt.lunasoft.transaction.mapper.TransactionJsonWriter;
+
+/**
+ * Transaction wire formats as the services use them: the kafka-common serdes in JSON (plain
+ * Jackson and with the ingestion JacksonConfig) and Avro, plus the ingestion
+ * pre-bound JSON writer. {@code json/serialize} against {@code json-ingestion/ingestionJsonWriter}
+ * is the ingestion Kafka payload before and after the pre-bound writer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+	private static final String TOPIC = "transactions.incoming";
+
+	@Param({ "json", "json-ingestion", "avro" })
+	String codec;
+
+	private Transaction transaction;
+	private Serializer<Transaction> serializer;
+	private Deserializer<Transaction> deserializer;
+	private TransactionJsonWriter jsonWriter;
+	private byte[] payload;
+
+	@Setup
+	public void setUp() {
+		Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+		if (codec.equals("json-ingestion")) {
+			builder.postConfigurer(mapper -> mapper.getFactory().setRecyclerPool(JsonRecyclerPools.sharedConcurrentDequePool()));
+		}
+		ObjectMapper objectMapper = builder.build();
+		SerializationFormat format = codec.equals("avro") ? SerializationFormat.AVRO : SerializationFormat.JSON;
+
+		Serde<Transaction> serde = new FinstreamSerdes(format, objectMapper, Map.of()).transaction();
+		serializer = serde.serializer();
+		deserializer = serde.deserializer();
+		jsonWriter = new TransactionJsonWriter(objectMapper);
+		transaction = Transactions.sample("ACC0000001", new SplittableRandom(1), Instant.now());
+		payload = serializer.serialize(TOPIC, transaction);
+	}
+
+	@Benchmark
+	public byte[] serialize() {
+		return serializer.serialize(TOPIC, transaction);
+	}
+
+	@Benchmark
+	public Transaction deserialize() {
+		return deserializer.deserialize(TOPIC, payload);
+	}
+
+	// Only meaningful for the JSON codecs; the Avro run measures the same JSON writer again
+	@Benchmark
+	public byte[] ingestionJsonWriter() {
+		return jsonWriter.toBytes(transaction);
+	}
+
+	// One fresh virtual thread per call, as a request gets in ingestion; shows what the recycler pool
+	// choice costs there, where a ThreadLocal pool never sees the same thread twice
+	@Benchmark
+	public byte[] ingestionJsonWriterOnVirtualThread() throws InterruptedException {
+		byte[][] result = new byte[1][];
+		Thread.ofVirtual().start(() -> result[0] = jsonWriter.toBytes(transaction)).join();
+		return result[0];
+	}
+
+}
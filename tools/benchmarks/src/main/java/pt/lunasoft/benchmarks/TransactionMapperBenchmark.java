@@ -0,0 +1,51 @@
+package pt.lunasoft.benchmarks;
+
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pt.lunasoft.benchmarks.support.Transactions;
+import pt.lunasoft.models.Transaction;
+import pt.lunasoft.transaction.entity.TransactionEntity;
+import pt.lunasoft.transaction.mapper.TransactionMapper;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionMapperBenchmark {
+
+	private final TransactionMapper mapper = new TransactionMapper();
+	private Transaction transaction;
+	private TransactionEntity entity;
+
+	@Setup
+	public void setUp() {
+		transaction = Transactions.sample("ACC0000001", new SplittableRandom(1), Instant.now());
+		entity = mapper.toEntity(transaction);
+	}
+
+	@Benchmark
+	public TransactionEntity toEntity() {
+		return mapper.toEntity(transaction);
+	}
+
+	@Benchmark
+	public Transaction toModel() {
+		return mapper.toModel(entity);
+	}
+
+}
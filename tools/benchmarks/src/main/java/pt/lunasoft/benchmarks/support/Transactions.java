@@ -0,0 +1,69 @@
+package pt.lunasoft.benchmarks.support;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import pt.lunasoft.models.DeviceInfo;
+import pt.lunasoft.models.Location;
+import pt.lunasoft.models.Transaction;
+import pt.lunasoft.models.enums.TransactionStatus;
+import pt.lunasoft.models.enums.TransactionType;
+
+/**
+ * Deterministic fixtures shared by the benchmarks.
+ */
+public final class Transactions {
+
+	private static final List<String> MERCHANTS = List.of("Continente", "Amazon", "Uber", "Galp", "Zara", "IKEA");
+	private static final List<String> COUNTRIES = List.of("PT", "PT", "PT", "ES", "FR");
+
+	private Transactions() {
+	}
+
+	public static Transaction sample(String accountId, SplittableRandom random, Instant timestamp) {
+		return Transaction.builder()
+				.id(new UUID(random.nextLong(), random.nextLong()))
+				.accountId(accountId)
+				.amount(BigDecimal.valueOf(1 + random.nextDouble(250)).setScale(2, RoundingMode.HALF_UP))
+				.currency("EUR")
+				.type(TransactionType.PURCHASE)
+				.merchant(MERCHANTS.get(random.nextInt(MERCHANTS.size())))
+				.merchantCategory("RETAIL")
+				.timestamp(timestamp)
+				.status(TransactionStatus.PENDING)
+				.description("Card purchase")
+				.location(Location.builder()
+						.latitude(38.72 + random.nextDouble(-1, 1))
+						.longitude(-9.14 + random.nextDouble(-1, 1))
+						.city("Lisbon")
+						.country(COUNTRIES.get(random.nextInt(COUNTRIES.size())))
+						.ipAddress("10.0.0." + random.nextInt(1, 255))
+						.build())
+				.deviceInfo(DeviceInfo.builder()
+						.deviceId("device-" + random.nextInt(3))
+						.deviceType("mobile")
+						.operatingSystem("Android")
+						.build())
+				.createdAt(timestamp)
+				.build();
+	}
+
+	/**
+	 * {@code size} transactions for one account spread evenly over the last 24 hours, newest first.
+	 */
+	public static List<Transaction> history(String accountId, int size, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		Instant now = Instant.now();
+		long stepMillis = Duration.ofHours(24).toMillis() / Math.max(size, 1);
+		return IntStream.range(0, size)
+				.mapToObj(i -> sample(accountId, random, now.minusMillis((i + 1) * stepMillis)))
+				.toList();
+	}
+
+}
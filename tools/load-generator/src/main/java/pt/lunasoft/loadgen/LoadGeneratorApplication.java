@@ -0,0 +1,18 @@
+package pt.lunasoft.loadgen;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.kafka.annotation.EnableKafka;
+
+@SpringBootApplication
+@EnableKafka
+@ConfigurationPropertiesScan
+public class LoadGeneratorApplication {
+
+	// The run ends when the LoadRunner returns; exit explicitly so the alert listener does not keep the JVM up
+	public static void main(String[] args) {
+		System.exit(SpringApplication.exit(SpringApplication.run(LoadGeneratorApplication.class, args)));
+	}
+
+}
@@ -0,0 +1,36 @@
+package pt.lunasoft.loadgen.configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pt.lunasoft.loadgen.driver.KafkaLoadDriver;
+import pt.lunasoft.loadgen.driver.LoadDriver;
+import pt.lunasoft.loadgen.driver.RestLoadDriver;
+import pt.lunasoft.loadgen.generator.TransactionGenerator;
+import pt.lunasoft.loadgen.report.LatencyReport;
+
+@Configuration
+public class LoadGeneratorConfig {
+
+	@Bean
+	public LoadDriver loadDriver(LoadGeneratorProperties properties, ObjectMapper objectMapper, KafkaTemplate<String, Object> kafkaTemplate) {
+		return switch (properties.getMode()) {
+			case REST -> new RestLoadDriver(properties.getRest(), objectMapper);
+			case KAFKA -> new KafkaLoadDriver(kafkaTemplate, properties.getKafka().getTransactionsTopic());
+		};
+	}
+
+	@Bean
+	public TransactionGenerator transactionGenerator(LoadGeneratorProperties properties) {
+		return new TransactionGenerator(properties.getWorkload(), properties.getSeed());
+	}
+
+	@Bean
+	public LatencyReport latencyReport(LoadGeneratorProperties properties) {
+		return new LatencyReport(properties.getReport().getDecisionTimeoutSeconds(), properties.getReport().getHistogramLog());
+	}
+
+}
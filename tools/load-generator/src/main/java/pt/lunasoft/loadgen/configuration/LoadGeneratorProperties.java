@@ -0,0 +1,116 @@
+package pt.lunasoft.loadgen.configuration;
+
+import java.nio.file.Path;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "loadgen")
+public class LoadGeneratorProperties {
+
+	private Mode mode = Mode.REST;
+
+	/**
+	 * Target arrival rate. Requests are issued on this schedule whatever the system's response
+	 * time (open loop), and latency is measured from the scheduled time, not the actual send.
+	 */
+	private int ratePerSecond = 200;
+	private int durationSeconds = 60;
+
+	/**
+	 * Traffic sent before measurement starts, so JIT, pools and caches are warm.
+	 */
+	private int warmupSeconds = 10;
+
+	/**
+	 * Requests outstanding beyond this are counted as dropped instead of piling up in memory.
+	 */
+	private int maxInFlight = 10_000;
+	private long seed = 42;
+
+	private Rest rest = new Rest();
+	private Kafka kafka = new Kafka();
+	private Workload workload = new Workload();
+	private Report report = new Report();
+
+	public enum Mode {
+		/** POST /api/v1/transactions on transaction-ingestion */
+		REST,
+		/** Publish straight to transactions.incoming, bypassing ingestion */
+		KAFKA
+	}
+
+	@Data
+	public static class Rest {
+
+		private String baseUrl = "http://localhost:8080";
+		private long requestTimeoutMs = 5000;
+
+	}
+
+	@Data
+	public static class Kafka {
+
+		private String transactionsTopic = "transactions.incoming";
+		private String fraudAlertsTopic = "fraud.alerts";
+
+	}
+
+	@Data
+	public static class Workload {
+
+		private int accounts = 100_000;
+
+		/**
+		 * Zipf exponent of the account popularity; around 1 gives a few very hot accounts and a long tail.
+		 */
+		private double zipfExponent = 1.1;
+
+		/**
+		 * Share of transactions made from a city in another country than the account's home.
+		 */
+		private double geoJumpProbability = 0.01;
+
+		/**
+		 * Share of transactions that start a burst of identical submissions.
+		 */
+		private double duplicateBurstProbability = 0.005;
+		private int duplicateBurstSize = 3;
+
+		/**
+		 * Whether burst copies carry the same Idempotency-Key (client retries) or none (real duplicates).
+		 */
+		private boolean duplicateSharesIdempotencyKey = false;
+
+		/**
+		 * Share of transactions on which the account switches to a new device.
+		 */
+		private double deviceChurnProbability = 0.02;
+
+		/**
+		 * Share of transactions with an amount above the fraud high-amount thresholds.
+		 */
+		private double highAmountProbability = 0.005;
+
+	}
+
+	@Data
+	public static class Report {
+
+		private int intervalSeconds = 5;
+
+		/**
+		 * How long a sent transaction waits for a fraud alert before it stops being tracked.
+		 */
+		private long decisionTimeoutSeconds = 30;
+
+		/**
+		 * Optional HdrHistogram log of every interval, readable with HistogramLogProcessor or HdrHistogramVisualizer.
+		 */
+		private Path histogramLog;
+
+	}
+
+}
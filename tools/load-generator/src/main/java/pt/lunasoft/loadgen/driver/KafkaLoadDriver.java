@@ -0,0 +1,36 @@
+package pt.lunasoft.loadgen.driver;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.kafka.core.KafkaTemplate;
+
+import pt.lunasoft.loadgen.generator.GeneratedTransaction;
+import pt.lunasoft.models.Transaction;
+import pt.lunasoft.models.enums.TransactionStatus;
+
+/**
+ * Publishes to transactions.incoming as ingestion would after persisting, isolating the fraud
+ * pipeline from the REST and database path. The future completes on the broker acknowledgement.
+ */
+public class KafkaLoadDriver implements LoadDriver {
+
+	private final KafkaTemplate<String, Object> kafkaTemplate;
+	private final String topic;
+
+	public KafkaLoadDriver(KafkaTemplate<String, Object> kafkaTemplate, String topic) {
+		this.kafkaTemplate = kafkaTemplate;
+		this.topic = topic;
+	}
+
+	@Override
+	public CompletableFuture<UUID> send(GeneratedTransaction generated) {
+		Transaction transaction = generated.transaction();
+		transaction.setId(UUID.randomUUID());
+		transaction.setStatus(TransactionStatus.PENDING);
+		transaction.setCreatedAt(Instant.now());
+		return kafkaTemplate.send(topic, transaction.getAccountId(), transaction).thenApply(result -> transaction.getId());
+	}
+
+}
@@ -0,0 +1,16 @@
+package pt.lunasoft.loadgen.driver;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import pt.lunasoft.loadgen.generator.GeneratedTransaction;
+
+/**
+ * Sends one generated transaction without blocking the caller. The future completes with the id
+ * the transaction is known by downstream, which is what fraud alerts refer to.
+ */
+public interface LoadDriver {
+
+	CompletableFuture<UUID> send(GeneratedTransaction transaction);
+
+}
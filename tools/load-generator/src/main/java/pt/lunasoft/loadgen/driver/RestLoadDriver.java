@@ -0,0 +1,97 @@
+package pt.lunasoft.loadgen.driver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pt.lunasoft.loadgen.configuration.LoadGeneratorProperties;
+import pt.lunasoft.loadgen.generator.GeneratedTransaction;
+
+/**
+ * POSTs to transaction-ingestion with the JDK async HTTP client. Requests are not tied to a thread
+ * while in flight, so the arrival rate is not capped by a connection or thread pool.
+ */
+public class RestLoadDriver implements LoadDriver {
+
+	private static final String TRANSACTIONS_PATH = "/api/v1/transactions";
+	private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+	private final HttpClient httpClient;
+	private final ObjectMapper objectMapper;
+	private final URI uri;
+	private final Duration timeout;
+
+	public RestLoadDriver(LoadGeneratorProperties.Rest rest, ObjectMapper objectMapper) {
+		this.httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(5))
+				.executor(Executors.newVirtualThreadPerTaskExecutor())
+				.build();
+		this.objectMapper = objectMapper;
+		this.uri = URI.create(rest.getBaseUrl() + TRANSACTIONS_PATH);
+		this.timeout = Duration.ofMillis(rest.getRequestTimeoutMs());
+	}
+
+	@Override
+	public CompletableFuture<UUID> send(GeneratedTransaction generated) {
+		HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+				.timeout(timeout)
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofByteArray(toJson(generated)));
+		if (generated.idempotencyKey() != null) {
+			request.header(IDEMPOTENCY_KEY_HEADER, generated.idempotencyKey());
+		}
+
+		return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray())
+				.thenApply(response -> {
+					if (response.statusCode() / 100 != 2) {
+						throw new HttpStatusException(response.statusCode());
+					}
+					return readId(response.body());
+				});
+	}
+
+	private byte[] toJson(GeneratedTransaction generated) {
+		try {
+			return objectMapper.writeValueAsBytes(generated.transaction());
+		} catch (JsonProcessingException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private UUID readId(byte[] body) {
+		try {
+			return UUID.fromString(objectMapper.readTree(body).path("id").asText());
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	public static class HttpStatusException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int status;
+
+		public HttpStatusException(int status) {
+			super("HTTP " + status);
+			this.status = status;
+		}
+
+		public int getStatus() {
+			return status;
+		}
+
+	}
+
+}
@@ -0,0 +1,21 @@
+package pt.lunasoft.loadgen.generator;
+
+import java.util.List;
+
+record City(String name, String country, double latitude, double longitude) {
+
+	static final List<City> ALL = List.of(
+			new City("Lisbon", "PT", 38.7223, -9.1393),
+			new City("Porto", "PT", 41.1579, -8.6291),
+			new City("Madrid", "ES", 40.4168, -3.7038),
+			new City("Barcelona", "ES", 41.3874, 2.1686),
+			new City("Paris", "FR", 48.8566, 2.3522),
+			new City("Berlin", "DE", 52.5200, 13.4050),
+			new City("London", "GB", 51.5072, -0.1276),
+			new City("New York", "US", 40.7128, -74.0060),
+			new City("Sao Paulo", "BR", -23.5505, -46.6333),
+			new City("Singapore", "SG", 1.3521, 103.8198),
+			new City("Lagos", "NG", 6.5244, 3.3792),
+			new City("Sydney", "AU", -33.8688, 151.2093));
+
+}
@@ -0,0 +1,19 @@
+package pt.lunasoft.loadgen.generator;
+
+import pt.lunasoft.models.Transaction;
+
+/**
+ * A transaction ready to send, the Idempotency-Key to send it with (may be null) and the
+ * behaviour that produced it.
+ */
+public record GeneratedTransaction(Transaction transaction, String idempotencyKey, Kind kind) {
+
+	public enum Kind {
+		NORMAL,
+		HIGH_AMOUNT,
+		GEO_JUMP,
+		DEVICE_CHURN,
+		DUPLICATE
+	}
+
+}
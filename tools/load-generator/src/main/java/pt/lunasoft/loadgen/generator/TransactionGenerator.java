@@ -0,0 +1,170 @@
+package pt.lunasoft.loadgen.generator;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import pt.lunasoft.loadgen.configuration.LoadGeneratorProperties;
+import pt.lunasoft.loadgen.generator.GeneratedTransaction.Kind;
+import pt.lunasoft.models.DeviceInfo;
+import pt.lunasoft.models.Location;
+import pt.lunasoft.models.Transaction;
+import pt.lunasoft.models.enums.TransactionType;
+
+/**
+ * Produces a realistic, reproducible transaction stream:
+ * <ul>
+ * <li>accounts are picked from a Zipf distribution, so a few hot accounts dominate like in production</li>
+ * <li>each account has a home city, a usual device and a typical spend (log-normal around it)</li>
+ * <li>a configurable share of transactions jumps to a city in another country, switches device or
+ * carries a very high amount, which is what the fraud rules look for</li>
+ * <li>some transactions are followed by identical copies, as from double submits or client retries</li>
+ * </ul>
+ * Transactions carry no id, as a client request would not. Not thread-safe; the load runner calls
+ * it from its single dispatch thread.
+ */
+public class TransactionGenerator {
+
+	private static final List<String> MERCHANTS = List.of("Continente", "Pingo Doce", "Amazon", "Uber", "Galp", "Zara",
+			"Apple Store", "Booking.com", "IKEA", "Fnac", "Starbucks", "Ryanair");
+	private static final List<String> CATEGORIES = List.of("GROCERY", "GROCERY", "RETAIL", "TRANSPORT", "FUEL", "RETAIL",
+			"ELECTRONICS", "TRAVEL", "HOME", "ELECTRONICS", "FOOD", "TRAVEL");
+	private static final List<String> OPERATING_SYSTEMS = List.of("iOS", "Android", "Windows", "macOS");
+
+	private final LoadGeneratorProperties.Workload workload;
+	private final SplittableRandom random;
+	private final ZipfSampler accounts;
+	private final AccountProfile[] profiles;
+	private final Deque<GeneratedTransaction> pendingDuplicates = new ArrayDeque<>();
+
+	public TransactionGenerator(LoadGeneratorProperties.Workload workload, long seed) {
+		this.workload = workload;
+		this.random = new SplittableRandom(seed);
+		this.accounts = new ZipfSampler(workload.getAccounts(), workload.getZipfExponent());
+		this.profiles = new AccountProfile[workload.getAccounts()];
+	}
+
+	public GeneratedTransaction next() {
+		GeneratedTransaction duplicate = pendingDuplicates.poll();
+		if (duplicate != null) {
+			return duplicate;
+		}
+
+		AccountProfile profile = profile(accounts.sample(random));
+		Kind kind = Kind.NORMAL;
+
+		City city = profile.home;
+		BigDecimal amount = typicalAmount(profile);
+		if (random.nextDouble() < workload.getHighAmountProbability()) {
+			kind = Kind.HIGH_AMOUNT;
+			amount = BigDecimal.valueOf(5_000 + random.nextDouble(15_000)).setScale(2, RoundingMode.HALF_UP);
+		} else if (random.nextDouble() < workload.getGeoJumpProbability()) {
+			kind = Kind.GEO_JUMP;
+			city = foreignCity(profile.home);
+		} else if (random.nextDouble() < workload.getDeviceChurnProbability()) {
+			kind = Kind.DEVICE_CHURN;
+			profile.newDevice(random);
+		}
+
+		int merchant = random.nextInt(MERCHANTS.size());
+		Transaction transaction = Transaction.builder()
+				.accountId(profile.accountId)
+				.amount(amount)
+				.currency("EUR")
+				.type(TransactionType.PURCHASE)
+				.merchant(MERCHANTS.get(merchant))
+				.merchantCategory(CATEGORIES.get(merchant))
+				.timestamp(Instant.now())
+				.location(Location.builder()
+						.latitude(city.latitude() + random.nextDouble(-0.05, 0.05))
+						.longitude(city.longitude() + random.nextDouble(-0.05, 0.05))
+						.city(city.name())
+						.country(city.country())
+						.ipAddress("10." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(1, 255))
+						.build())
+				.deviceInfo(DeviceInfo.builder()
+						.deviceId(profile.deviceId)
+						.deviceType(profile.deviceType)
+						.operatingSystem(profile.operatingSystem)
+						.build())
+				.build();
+
+		String idempotencyKey = null;
+		if (random.nextDouble() < workload.getDuplicateBurstProbability()) {
+			if (workload.isDuplicateSharesIdempotencyKey()) {
+				idempotencyKey = UUID.randomUUID().toString();
+			}
+			for (int i = 1; i < workload.getDuplicateBurstSize(); i++) {
+				pendingDuplicates.add(new GeneratedTransaction(copyOf(transaction), idempotencyKey, Kind.DUPLICATE));
+			}
+		}
+		return new GeneratedTransaction(transaction, idempotencyKey, kind);
+	}
+
+	private AccountProfile profile(int rank) {
+		AccountProfile profile = profiles[rank];
+		if (profile == null) {
+			profile = new AccountProfile(String.format("ACC%07d", rank), random);
+			profiles[rank] = profile;
+		}
+		return profile;
+	}
+
+	private BigDecimal typicalAmount(AccountProfile profile) {
+		// Log-normal: most purchases near the account's usual spend, with a long right tail
+		double amount = profile.typicalAmount * Math.exp(0.8 * random.nextGaussian());
+		return BigDecimal.valueOf(Math.clamp(amount, 0.5, 4_999.0)).setScale(2, RoundingMode.HALF_UP);
+	}
+
+	private City foreignCity(City home) {
+		City city;
+		do {
+			city = City.ALL.get(random.nextInt(City.ALL.size()));
+		} while (city.country().equals(home.country()));
+		return city;
+	}
+
+	private static Transaction copyOf(Transaction transaction) {
+		return Transaction.builder()
+				.accountId(transaction.getAccountId())
+				.amount(transaction.getAmount())
+				.currency(transaction.getCurrency())
+				.type(transaction.getType())
+				.merchant(transaction.getMerchant())
+				.merchantCategory(transaction.getMerchantCategory())
+				.timestamp(transaction.getTimestamp())
+				.location(transaction.getLocation())
+				.deviceInfo(transaction.getDeviceInfo())
+				.build();
+	}
+
+	private static final class AccountProfile {
+
+		private final String accountId;
+		private final City home;
+		private final double typicalAmount;
+		private String deviceId;
+		private String deviceType;
+		private String operatingSystem;
+
+		private AccountProfile(String accountId, SplittableRandom random) {
+			this.accountId = accountId;
+			this.home = City.ALL.get(random.nextInt(City.ALL.size()));
+			this.typicalAmount = 10 + random.nextDouble(140);
+			newDevice(random);
+		}
+
+		private void newDevice(SplittableRandom random) {
+			this.deviceId = "dev-" + Long.toHexString(random.nextLong());
+			this.operatingSystem = OPERATING_SYSTEMS.get(random.nextInt(OPERATING_SYSTEMS.size()));
+			this.deviceType = operatingSystem.startsWith("i") || operatingSystem.startsWith("A") ? "mobile" : "desktop";
+		}
+
+	}
+
+}
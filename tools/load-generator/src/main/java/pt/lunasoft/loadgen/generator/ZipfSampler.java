@@ -0,0 +1,39 @@
+package pt.lunasoft.loadgen.generator;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Draws ranks 0..n-1 with probability proportional to 1 / (rank + 1)^s. The cumulative
+ * distribution is computed once, so each sample is a binary search over {@code n} doubles.
+ */
+public class ZipfSampler {
+
+	private final double[] cumulative;
+
+	public ZipfSampler(int n, double exponent) {
+		if (n <= 0) {
+			throw new IllegalArgumentException("n must be positive");
+		}
+		cumulative = new double[n];
+		double sum = 0;
+		for (int rank = 0; rank < n; rank++) {
+			sum += 1.0 / Math.pow(rank + 1, exponent);
+			cumulative[rank] = sum;
+		}
+		for (int rank = 0; rank < n; rank++) {
+			cumulative[rank] /= sum;
+		}
+	}
+
+	public int sample(RandomGenerator random) {
+		int index = Arrays.binarySearch(cumulative, random.nextDouble());
+		// A miss returns -(insertion point) - 1; the insertion point is the first rank whose cumulative exceeds u
+		return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+	}
+
+	public int size() {
+		return cumulative.length;
+	}
+
+}
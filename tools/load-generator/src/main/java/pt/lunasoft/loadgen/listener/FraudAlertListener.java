@@ -0,0 +1,26 @@
+package pt.lunasoft.loadgen.listener;
+
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import pt.lunasoft.loadgen.report.LatencyReport;
+import pt.lunasoft.models.FraudAlert;
+
+/**
+ * Closes the loop for flagged transactions: the alert's transaction id is matched against the
+ * send schedule to get the end-to-end fraud decision latency.
+ */
+@Component
+@RequiredArgsConstructor
+public class FraudAlertListener {
+
+	private final LatencyReport latencyReport;
+
+	@KafkaListener(topics = "${loadgen.kafka.fraud-alerts-topic}", groupId = "${spring.kafka.consumer.group-id}")
+	public void onFraudAlert(@Payload FraudAlert alert) {
+		latencyReport.decided(alert.getTransactionId());
+	}
+
+}
@@ -0,0 +1,217 @@
+package pt.lunasoft.loadgen.report;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import lombok.extern.slf4j.Slf4j;
+import pt.lunasoft.loadgen.generator.GeneratedTransaction.Kind;
+
+/**
+ * Collects the two latencies the harness reports, both in microseconds and both measured from the
+ * time a request was scheduled, so a stalled system cannot hide its queueing delay (coordinated
+ * omission):
+ * <ul>
+ * <li>ingest: until ingestion answered (REST) or the broker acknowledged (Kafka)</li>
+ * <li>decision: until the fraud alert for that transaction was consumed from fraud.alerts. Clean
+ * transactions produce no event, so this covers the flagged share of the traffic only</li>
+ * </ul>
+ * REST ids are only known once ingestion answers, and an alert can be consumed before that, so
+ * either side may arrive first; whichever comes second records the decision latency.
+ * Recording is lock-free; {@link #tick()} swaps out the interval histograms and prints a line.
+ */
+@Slf4j
+public class LatencyReport {
+
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+	private static final int SIGNIFICANT_DIGITS = 3;
+
+	private final Recorder ingest = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+	private final Recorder decision = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+	private final Histogram totalIngest = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+	private final Histogram totalDecision = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+
+	// Ingested transactions awaiting their alert, and alerts that arrived before their ingest response
+	private final Map<UUID, Pending> pending = new ConcurrentHashMap<>();
+	private final Map<Kind, LongAdder> sentByKind = new EnumMap<>(Kind.class);
+	private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder unmatchedAlerts = new LongAdder();
+	private final long decisionTimeoutNanos;
+	private final HistogramLogWriter logWriter;
+
+	private volatile boolean measuring;
+
+	public LatencyReport(long decisionTimeoutSeconds, Path histogramLog) {
+		for (Kind kind : Kind.values()) {
+			sentByKind.put(kind, new LongAdder());
+		}
+		this.decisionTimeoutNanos = TimeUnit.SECONDS.toNanos(decisionTimeoutSeconds);
+		this.logWriter = histogramLog == null ? null : openLog(histogramLog);
+	}
+
+	public void sent(Kind kind) {
+		sentByKind.get(kind).increment();
+	}
+
+	public void ingested(UUID transactionId, long scheduledNanos) {
+		long now = System.nanoTime();
+		ingest.recordValue(Math.min(toMicros(now - scheduledNanos), HIGHEST_TRACKABLE_MICROS));
+		if (transactionId != null) {
+			pending.compute(transactionId, (id, early) -> {
+				if (early != null && early.decided()) {
+					recordDecision(early.nanos() - scheduledNanos);
+					return null;
+				}
+				return new Pending(scheduledNanos, false);
+			});
+		}
+	}
+
+	public void failed(Throwable error) {
+		errors.computeIfAbsent(error.getClass().getSimpleName() + ": " + error.getMessage(), key -> new LongAdder()).increment();
+	}
+
+	public void dropped() {
+		dropped.increment();
+	}
+
+	public void decided(UUID transactionId) {
+		if (transactionId == null) {
+			unmatchedAlerts.increment();
+			return;
+		}
+		long now = System.nanoTime();
+		pending.compute(transactionId, (id, ingested) -> {
+			if (ingested != null && !ingested.decided()) {
+				recordDecision(now - ingested.nanos());
+				return null;
+			}
+			// Kept until the ingest response arrives or the decision timeout passes
+			return new Pending(now, true);
+		});
+	}
+
+	private void recordDecision(long nanos) {
+		decision.recordValue(Math.min(toMicros(nanos), HIGHEST_TRACKABLE_MICROS));
+	}
+
+	/**
+	 * Ends the warm-up: everything recorded so far is discarded and totals start accumulating.
+	 */
+	public synchronized void startMeasuring() {
+		ingest.reset();
+		decision.reset();
+		errors.clear();
+		dropped.reset();
+		sentByKind.values().forEach(LongAdder::reset);
+		measuring = true;
+	}
+
+	public synchronized void tick() {
+		Histogram ingestInterval = ingest.getIntervalHistogram();
+		Histogram decisionInterval = decision.getIntervalHistogram();
+		evictExpired();
+
+		if (!measuring) {
+			log.info("[warm-up] {} ingested, ingest p99 {} ms", ingestInterval.getTotalCount(), millis(ingestInterval.getValueAtPercentile(99)));
+			return;
+		}
+		totalIngest.add(ingestInterval);
+		totalDecision.add(decisionInterval);
+		if (logWriter != null) {
+			ingestInterval.setTag("ingest");
+			decisionInterval.setTag("decision");
+			logWriter.outputIntervalHistogram(ingestInterval);
+			logWriter.outputIntervalHistogram(decisionInterval);
+		}
+		log.info("{} ingested | ingest p50 {} p99 {} p99.9 {} max {} ms | {} decided, p50 {} p99 {} ms | {} awaiting, {} errors, {} dropped",
+				ingestInterval.getTotalCount(), millis(ingestInterval.getValueAtPercentile(50)), millis(ingestInterval.getValueAtPercentile(99)),
+				millis(ingestInterval.getValueAtPercentile(99.9)), millis(ingestInterval.getMaxValue()), decisionInterval.getTotalCount(),
+				millis(decisionInterval.getValueAtPercentile(50)), millis(decisionInterval.getValueAtPercentile(99)), count(false),
+				errors.values().stream().mapToLong(LongAdder::sum).sum(), dropped.sum());
+	}
+
+	public synchronized void printSummary(PrintStream out, int durationSeconds) {
+		tick();
+		double seconds = durationSeconds;
+		out.println();
+		out.println("=== FinStream load test summary ===");
+		out.printf("Duration            %.1f s%n", seconds);
+		out.printf("Sent                %s%n", sentByKind);
+		out.printf("Ingest throughput   %.1f tx/s%n", totalIngest.getTotalCount() / seconds);
+		out.println();
+		out.println("Ingest latency (ms, from scheduled send):");
+		percentiles(out, totalIngest);
+		out.println("Fraud decision latency (ms, flagged transactions only):");
+		percentiles(out, totalDecision);
+		out.printf("Unmatched alerts    %d%n", unmatchedAlerts.sum() + count(true));
+		out.printf("Still awaiting      %d%n", count(false));
+		out.printf("Dropped (in-flight) %d%n", dropped.sum());
+		out.printf("Errors              %s%n", errors);
+		if (logWriter != null) {
+			logWriter.close();
+		}
+	}
+
+	private void evictExpired() {
+		long cutoff = System.nanoTime() - decisionTimeoutNanos;
+		pending.values().removeIf(entry -> {
+			if (entry.nanos() >= cutoff) {
+				return false;
+			}
+			if (entry.decided()) {
+				unmatchedAlerts.increment();
+			}
+			return true;
+		});
+	}
+
+	private long count(boolean decided) {
+		return pending.values().stream().filter(entry -> entry.decided() == decided).count();
+	}
+
+	private static void percentiles(PrintStream out, Histogram histogram) {
+		out.printf("  count %d  p50 %s  p90 %s  p99 %s  p99.9 %s  p99.99 %s  max %s%n", histogram.getTotalCount(),
+				millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+				millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+				millis(histogram.getValueAtPercentile(99.99)), millis(histogram.getMaxValue()));
+	}
+
+	private static String millis(long micros) {
+		return String.format("%.2f", micros / 1000.0);
+	}
+
+	private static long toMicros(long nanos) {
+		return Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+	}
+
+	// Scheduled send time of an ingested transaction, or receipt time of an alert that came first
+	private record Pending(long nanos, boolean decided) {
+	}
+
+	private static HistogramLogWriter openLog(Path path) {
+		try {
+			HistogramLogWriter writer = new HistogramLogWriter(path.toFile());
+			writer.outputLogFormatVersion();
+			writer.outputStartTime(System.currentTimeMillis());
+			writer.setBaseTime(System.currentTimeMillis());
+			writer.outputLegend();
+			return writer;
+		} catch (FileNotFoundException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+}
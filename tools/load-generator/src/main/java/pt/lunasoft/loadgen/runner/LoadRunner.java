@@ -0,0 +1,101 @@
+package pt.lunasoft.loadgen.runner;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import pt.lunasoft.loadgen.configuration.LoadGeneratorProperties;
+import pt.lunasoft.loadgen.driver.LoadDriver;
+import pt.lunasoft.loadgen.generator.GeneratedTransaction;
+import pt.lunasoft.loadgen.generator.TransactionGenerator;
+import pt.lunasoft.loadgen.report.LatencyReport;
+
+/**
+ * Open-loop dispatcher. Send times are fixed up front at 1 / rate apart and never pushed back by
+ * slow responses: if the system stalls, requests keep arriving and their latency, measured from
+ * the scheduled time, shows the backlog. A closed loop would silently slow down with the system
+ * under test and report flattering percentiles.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LoadRunner implements CommandLineRunner {
+
+	private final LoadGeneratorProperties properties;
+	private final TransactionGenerator generator;
+	private final LoadDriver driver;
+	private final LatencyReport report;
+
+	@Override
+	public void run(String... args) throws Exception {
+		long intervalNanos = TimeUnit.SECONDS.toNanos(1) / properties.getRatePerSecond();
+		long start = System.nanoTime();
+		long measureFrom = start + TimeUnit.SECONDS.toNanos(properties.getWarmupSeconds());
+		long end = measureFrom + TimeUnit.SECONDS.toNanos(properties.getDurationSeconds());
+		Semaphore inFlight = new Semaphore(properties.getMaxInFlight());
+
+		log.info("Driving {} at {} tx/s for {}s after {}s warm-up", properties.getMode(), properties.getRatePerSecond(),
+				properties.getDurationSeconds(), properties.getWarmupSeconds());
+
+		ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+		int tickSeconds = properties.getReport().getIntervalSeconds();
+		ticker.scheduleAtFixedRate(report::tick, tickSeconds, tickSeconds, TimeUnit.SECONDS);
+		try {
+			boolean measuring = false;
+			for (long i = 0;; i++) {
+				long scheduled = start + i * intervalNanos;
+				if (scheduled >= end) {
+					break;
+				}
+				if (!measuring && scheduled >= measureFrom) {
+					report.startMeasuring();
+					measuring = true;
+				}
+				long wait = scheduled - System.nanoTime();
+				if (wait > 0) {
+					LockSupport.parkNanos(wait);
+				}
+				dispatch(generator.next(), scheduled, inFlight);
+			}
+
+			// Let in-flight requests finish, then give late alerts a moment to arrive
+			if (!inFlight.tryAcquire(properties.getMaxInFlight(), properties.getRest().getRequestTimeoutMs() * 2, TimeUnit.MILLISECONDS)) {
+				log.warn("{} requests still in flight at the end of the run", properties.getMaxInFlight() - inFlight.availablePermits());
+			}
+			TimeUnit.SECONDS.sleep(Math.min(5, properties.getReport().getDecisionTimeoutSeconds()));
+		} finally {
+			ticker.shutdownNow();
+		}
+		report.printSummary(System.out, properties.getDurationSeconds());
+	}
+
+	private void dispatch(GeneratedTransaction transaction, long scheduled, Semaphore inFlight) {
+		if (!inFlight.tryAcquire()) {
+			report.dropped();
+			return;
+		}
+		report.sent(transaction.kind());
+		try {
+			driver.send(transaction).whenComplete((id, error) -> {
+				inFlight.release();
+				if (error == null) {
+					report.ingested(id, scheduled);
+				} else {
+					report.failed(error instanceof CompletionException ? error.getCause() : error);
+				}
+			});
+		} catch (RuntimeException ex) {
+			inFlight.release();
+			report.failed(ex);
+		}
+	}
+
+}
@@ -0,0 +1,81 @@
+package pt.lunasoft.loadgen.generator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import pt.lunasoft.loadgen.configuration.LoadGeneratorProperties;
+import pt.lunasoft.loadgen.generator.GeneratedTransaction.Kind;
+
+class TransactionGeneratorTest {
+
+	@Test
+	void shouldConcentrateTrafficOnFewAccounts() {
+		// Given
+		ZipfSampler sampler = new ZipfSampler(10_000, 1.1);
+		SplittableRandom random = new SplittableRandom(1);
+
+		// When
+		long hottestHundred = IntStream.range(0, 100_000).map(i -> sampler.sample(random)).filter(rank -> rank < 100).count();
+
+		// Then - 1% of the accounts carry well over half of the transactions
+		assertThat(hottestHundred).isGreaterThan(50_000);
+	}
+
+	@Test
+	void shouldFollowBurstsWithIdenticalCopies() {
+		// Given
+		LoadGeneratorProperties.Workload workload = new LoadGeneratorProperties.Workload();
+		workload.setDuplicateBurstProbability(0.1);
+		workload.setDuplicateBurstSize(3);
+		workload.setDuplicateSharesIdempotencyKey(true);
+		TransactionGenerator generator = new TransactionGenerator(workload, 7);
+
+		// When
+		List<GeneratedTransaction> stream = new ArrayList<>();
+		IntStream.range(0, 5_000).forEach(i -> stream.add(generator.next()));
+
+		// Then
+		for (int i = 1; i < stream.size(); i++) {
+			GeneratedTransaction current = stream.get(i);
+			if (current.kind() == Kind.DUPLICATE) {
+				GeneratedTransaction previous = stream.get(i - 1);
+				assertThat(current.transaction()).isEqualTo(previous.transaction());
+				assertThat(current.idempotencyKey()).isNotNull().isEqualTo(previous.idempotencyKey());
+			}
+		}
+		assertThat(stream).anyMatch(generated -> generated.kind() == Kind.DUPLICATE);
+	}
+
+	@Test
+	void shouldJumpToAnotherCountryAndBeReproducible() {
+		// Given
+		LoadGeneratorProperties.Workload workload = new LoadGeneratorProperties.Workload();
+		workload.setAccounts(1);
+		workload.setGeoJumpProbability(0.2);
+		workload.setHighAmountProbability(0);
+		TransactionGenerator generator = new TransactionGenerator(workload, 3);
+		TransactionGenerator replay = new TransactionGenerator(workload, 3);
+
+		// When
+		Map<Kind, List<String>> countries = new HashMap<>();
+		for (int i = 0; i < 1_000; i++) {
+			GeneratedTransaction generated = generator.next();
+			GeneratedTransaction replayed = replay.next();
+			assertThat(replayed.transaction().getAmount()).isEqualTo(generated.transaction().getAmount());
+			countries.computeIfAbsent(generated.kind(), kind -> new ArrayList<>()).add(generated.transaction().getLocation().getCountry());
+		}
+
+		// Then - the single account always shops at home except on geo jumps
+		assertThat(countries.get(Kind.NORMAL)).containsOnly(countries.get(Kind.NORMAL).get(0));
+		assertThat(countries.get(Kind.GEO_JUMP)).isNotEmpty().doesNotContain(countries.get(Kind.NORMAL).get(0));
+	}
+
+}
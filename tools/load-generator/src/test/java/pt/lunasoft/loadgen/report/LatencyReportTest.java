@@ -0,0 +1,54 @@
+package pt.lunasoft.loadgen.report;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyReportTest {
+
+	@Test
+	void shouldMatchDecisionThatArrivesBeforeTheIngestResponse() {
+		// Given
+		LatencyReport report = new LatencyReport(60, null);
+		report.startMeasuring();
+		UUID early = UUID.randomUUID();
+		UUID late = UUID.randomUUID();
+		long scheduled = System.nanoTime();
+
+		// When
+		report.decided(early);
+		report.ingested(early, scheduled);
+		report.ingested(late, scheduled);
+		report.decided(late);
+
+		// Then
+		String summary = summary(report);
+		assertThat(summary).contains("Unmatched alerts    0", "Still awaiting      0");
+		assertThat(summary.split("Fraud decision latency")[1]).contains("count 2");
+	}
+
+	@Test
+	void shouldCountAlertsForUnknownTransactionsAsUnmatched() {
+		// Given
+		LatencyReport report = new LatencyReport(60, null);
+		report.startMeasuring();
+
+		// When
+		report.decided(UUID.randomUUID());
+		report.ingested(UUID.randomUUID(), System.nanoTime());
+
+		// Then
+		assertThat(summary(report)).contains("Unmatched alerts    1", "Still awaiting      1");
+	}
+
+	private static String summary(LatencyReport report) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		report.printSummary(new PrintStream(out), 1);
+		return out.toString();
+	}
+
+}